@@ -1,9 +1,18 @@
 package br.com.compass.bank;
 
+import br.com.compass.bank.http.BankServer;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.service.AccountService;
+import br.com.compass.bank.service.BatchCommandService;
+import br.com.compass.bank.service.StatementExportService;
 import br.com.compass.bank.view.AccountLoginView;
 import br.com.compass.bank.view.AccountOpeningView;
+import br.com.compass.bank.view.Screen;
 import br.com.compass.bank.view.ViewRenderer;
 
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Optional;
 import java.util.Scanner;
 
 public class App {
@@ -11,12 +20,73 @@ public class App {
     public static final Scanner scanner = new Scanner(System.in);
     
     public static void main(String[] args) {
-        menu();
+        // Headless mode: serve the JSON API instead of the console menu
+        if (args.length > 0 && args[0].equals("--http")) {
+            serve(args.length > 1 ? Integer.parseInt(args[1]) : Integer.getInteger("bank.http.port", 8080));
+            return;
+        }
+
+        // Batch mode: replay a command file and write the results to an output file
+        if (args.length > 0 && args[0].equals("--batch")) {
+            if (args.length < 3) {
+                System.out.println("Usage: --batch <commands file> <output file> [parallelism]");
+                return;
+            }
+
+            int parallelism = (args.length > 3) ? Integer.parseInt(args[3]) : Integer.getInteger("bank.batch.parallelism", Runtime.getRuntime().availableProcessors());
+            BatchCommandService.BatchReport report = BatchCommandService.run(Path.of(args[1]), Path.of(args[2]), parallelism);
+            System.out.printf("Ran %,d commands (%,d failed) in %.2f s, %,.0f commands/s with parallelism %d%n",
+                    report.commands(), report.failed(), report.nanos() / 1e9, report.commandsPerSecond(), report.parallelism());
+            return;
+        }
+
+        // Export mode: write the whole history of an account to a CSV or NDJSON file
+        if (args.length > 0 && args[0].equals("--export")) {
+            if (args.length < 3) {
+                System.out.println("Usage: --export <account id> <file (.csv, .ndjson, optionally .gz)>");
+                return;
+            }
+
+            Optional<Account> account = AccountService.find(Long.parseLong(args[1]));
+            if (account.isEmpty()) {
+                System.out.println("There's no registered accounts with the provided ID.");
+                return;
+            }
+
+            long exported = StatementExportService.exportFile(account.get(), Path.of(args[2]));
+            System.out.printf("Exported %d transactions to %s%n", exported, args[2]);
+            return;
+        }
+
+        ViewRenderer.run(App::menu);
         scanner.close();
         System.out.println("Application closed");
     }
 
-    public static void menu() {
+    /**
+     * Serves the JSON API until the process is stopped.
+     *
+     * @param port the port to listen on.
+     */
+    public static void serve(int port) {
+        BankServer server = BankServer.start(new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "http-shutdown"));
+        System.out.printf("Serving the bank API on port %d (%s)%n", server.address().getPort(),
+                server.snapshot().virtualThreads() ? "virtual threads" : "bounded thread pool");
+
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Displays the main menu and returns the screen chosen by the user.
+     *
+     * @return the next screen, or {@code null} when the user chose to exit.
+     */
+    public static Screen menu() {
         int option = ViewRenderer.readInteger("""
         ╭────────────────────────────────╮
         │           \u001B[34mMain Menu\u001B[0m            │
@@ -27,21 +97,15 @@ public class App {
         ╰────────────────────────────────╯
         >>\s""");
 
-        switch (option) {
-            case 1:
-                AccountLoginView.handle();
-                break;
-            case 2:
-                AccountOpeningView.handle();
-                break;
-            case 0:
-                System.exit(0);
-                break;
-            default:
-                 System.out.println("Invalid option! Please try again.");
-                 menu();
-                 break;
-        }
+        return switch (option) {
+            case 1 -> AccountLoginView::handle;
+            case 2 -> AccountOpeningView::handle;
+            case 0 -> null;
+            default -> {
+                System.out.println("Invalid option! Please try again.");
+                yield App::menu;
+            }
+        };
     }
 
 }
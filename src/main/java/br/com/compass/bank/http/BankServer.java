@@ -0,0 +1,532 @@
+package br.com.compass.bank.http;
+
+import br.com.compass.bank.exception.account.AccountLoginException;
+import br.com.compass.bank.exception.account.AccountOpeningException;
+import br.com.compass.bank.exception.transaction.TransactionException;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.AccountType;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.User;
+import br.com.compass.bank.repository.StatementEntry;
+import br.com.compass.bank.repository.StatementPage;
+import br.com.compass.bank.repository.TransactionRepository;
+import br.com.compass.bank.service.AccountService;
+import br.com.compass.bank.service.AuthService;
+import br.com.compass.bank.service.TransactionService;
+import br.com.compass.bank.validation.InputValidator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BankServer exposes the bank services as a headless JSON-over-HTTP API on the JDK's built-in {@link HttpServer}.
+ * <p>
+ * Every endpoint takes and returns a flat JSON object; errors are returned as {@code {"error": "..."}} with
+ * the message the console views would have printed. Endpoints other than register and login require the
+ * token returned by login in an {@code Authorization: Bearer <token>} header.
+ * </p>
+ * <pre>
+ * POST /api/register   {"name", "cpf", "phone", "password", "type"}  -> {"id"}
+ * POST /api/login      {"id", "password"}                            -> {"token"}
+ * POST /api/deposit    {"amount"}                                    -> {"balance"}
+ * POST /api/withdraw   {"amount"}                                    -> {"balance"}
+ * POST /api/transfer   {"to" or "toCpf", "amount"}                   -> {"balance"}
+ * GET  /api/statement?size=20&amp;after=&lt;cursor&gt;                     -> {"entries": [...], "next"}
+ * </pre>
+ * <p>
+ * Each request runs on its own virtual thread when the runtime has them (Java 21 and later), so a
+ * request blocked on JDBC, a lock or BCrypt costs no platform thread. The request path only blocks
+ * on {@link java.util.concurrent.locks.ReentrantLock}s, futures and the JDBC driver, never inside a
+ * {@code synchronized} block, so virtual threads do not pin their carrier. On older runtimes requests
+ * run on a bounded pool of {@code bank.http.threads} platform threads with a queue of
+ * {@code bank.http.queue_capacity} requests; once the queue is full, the accepting thread serves the
+ * request itself, which stops it from accepting more connections until the pool catches up.
+ * </p>
+ */
+public class BankServer implements AutoCloseable {
+
+    // Number of statement entries returned when the request does not choose, and the most it may ask for
+    private static final int STATEMENT_PAGE_SIZE = 20;
+    private static final int STATEMENT_MAX_PAGE_SIZE = 500;
+
+    // Largest accepted request body, in bytes
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private static final JsonFactory json = new JsonFactory();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    // Number of handled requests, of those answered with an error status, and the time spent handling them
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder handleNanos = new LongAdder();
+
+    private BankServer(HttpServer server, ExecutorService executor, boolean virtualThreads) {
+        this.server = server;
+        this.executor = executor;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Starts a server with the executor described in the class documentation.
+     *
+     * @param address the address to listen on; port 0 picks a free port.
+     * @return the started server.
+     * @throws UncheckedIOException if the server cannot bind the address.
+     */
+    public static BankServer start(InetSocketAddress address) {
+        ExecutorService virtual = Boolean.parseBoolean(System.getProperty("bank.http.virtual_threads", "true")) ? newVirtualThreadExecutor() : null;
+        ExecutorService executor = (virtual != null) ? virtual : newBoundedExecutor(
+                Integer.getInteger("bank.http.threads", 64),
+                Integer.getInteger("bank.http.queue_capacity", 1024));
+
+        return start(address, executor, virtual != null);
+    }
+
+    /**
+     * Starts a server on a given executor.
+     *
+     * @param address        the address to listen on; port 0 picks a free port.
+     * @param executor       the executor running the requests, shut down with the server.
+     * @param virtualThreads whether the executor runs each request on a virtual thread, reported by {@link #snapshot()}.
+     * @return the started server.
+     * @throws UncheckedIOException if the server cannot bind the address.
+     */
+    public static BankServer start(InetSocketAddress address, ExecutorService executor, boolean virtualThreads) {
+        try {
+            HttpServer http = HttpServer.create(address, Integer.getInteger("bank.http.backlog", 1024));
+            BankServer server = new BankServer(http, executor, virtualThreads);
+
+            server.route("POST", "/api/register", BankServer::register);
+            server.route("POST", "/api/login", BankServer::login);
+            server.route("POST", "/api/deposit", BankServer::deposit);
+            server.route("POST", "/api/withdraw", BankServer::withdraw);
+            server.route("POST", "/api/transfer", BankServer::transfer);
+            server.route("GET", "/api/statement", BankServer::statement);
+
+            http.setExecutor(executor);
+            http.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start the HTTP server on " + address, e);
+        }
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task, if the runtime supports them.
+     * The factory method is looked up reflectively, since the project still targets Java 17.
+     *
+     * @return the executor, or null if virtual threads are unavailable.
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Missing before Java 19, and failing on Java 19 and 20 unless preview features are enabled
+            return null;
+        }
+    }
+
+    /**
+     * Creates the bounded platform thread pool used when virtual threads are unavailable.
+     *
+     * @param threads       the number of worker threads.
+     * @param queueCapacity the maximum number of requests waiting for a worker.
+     * @return the executor.
+     */
+    static ExecutorService newBoundedExecutor(int threads, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Returns the address the server listens on, with the actual port if port 0 was requested.
+     *
+     * @return the bound address.
+     */
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops accepting connections, waits up to a second for running requests, and shuts the executor down.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---------------------------------------------------------------- Endpoints
+
+    private static void register(Request request, JsonGenerator out) throws IOException {
+        String name = request.require("name"), cpf = request.require("cpf"), phone = request.require("phone"), password = request.require("password");
+        validate(InputValidator.CPF, cpf);
+        validate(InputValidator.NAME, name);
+        validate(InputValidator.PHONE, phone);
+        validate(InputValidator.PASSWORD, password);
+
+        AccountType type;
+        try {
+            type = AccountType.valueOf(request.optional("type").orElse("CHECKING").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Invalid account type. Use CHECKING or SAVINGS.");
+        }
+
+        Account account = Account.builder()
+                .user(User.builder().cpf(cpf).phone(phone).name(name).build())
+                .password(password)
+                .type(type)
+                .balance(Money.ZERO)
+                .build();
+        AuthService.register(account);
+
+        out.writeNumberField("id", account.getId());
+    }
+
+    private static void login(Request request, JsonGenerator out) throws IOException {
+        out.writeStringField("token", AuthService.login(request.requireId("id"), request.require("password")));
+    }
+
+    private static void deposit(Request request, JsonGenerator out) throws IOException {
+        Account account = request.account();
+        TransactionService.deposit(account, request.requireMoney("amount"));
+        out.writeStringField("balance", account.getBalance().toString());
+    }
+
+    private static void withdraw(Request request, JsonGenerator out) throws IOException {
+        Account account = request.account();
+        TransactionService.withdraw(account, request.requireMoney("amount"));
+        out.writeStringField("balance", account.getBalance().toString());
+    }
+
+    private static void transfer(Request request, JsonGenerator out) throws IOException {
+        Account account = request.account();
+        Optional<String> cpf = request.optional("toCpf");
+        if (cpf.isPresent() == request.optional("to").isPresent())
+            throw new HttpError(400, "Provide either the field to, an account ID, or the field toCpf, a CPF.");
+        Money amount = request.requireMoney("amount");
+
+        // Like the console, a CPF addresses the owner's checking account
+        Optional<Account> receiver;
+        if (cpf.isPresent()) {
+            validate(InputValidator.CPF, cpf.get());
+            receiver = AccountService.findByCpf(cpf.get()).stream().filter(candidate -> candidate.getType() == AccountType.CHECKING).findFirst();
+        } else {
+            receiver = AccountService.find(request.requireId("to"));
+        }
+
+        TransactionService.transfer(account, receiver.orElse(null), amount);
+        out.writeStringField("balance", account.getBalance().toString());
+    }
+
+    private static void statement(Request request, JsonGenerator out) throws IOException {
+        Account account = request.account();
+
+        int size;
+        try {
+            size = Integer.parseInt(request.optional("size").orElse(String.valueOf(STATEMENT_PAGE_SIZE)));
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "The page size must be a number.");
+        }
+        if (size < 1 || size > STATEMENT_MAX_PAGE_SIZE)
+            throw new HttpError(400, "The page size must be between 1 and " + STATEMENT_MAX_PAGE_SIZE + ".");
+
+        StatementPage page = TransactionRepository.findStatement(account, request.optional("after").map(BankServer::parseCursor).orElse(null), null, null, size);
+
+        out.writeArrayFieldStart("entries");
+        for (StatementEntry entry : page.entries()) {
+            out.writeStartObject();
+            out.writeNumberField("id", entry.id());
+            out.writeStringField("type", entry.type().name());
+            out.writeStringField("amount", (entry.received() ? entry.amount() : entry.amount().negate()).toString());
+            out.writeStringField("timestamp", entry.timestamp().toString());
+            out.writeEndObject();
+        }
+        out.writeEndArray();
+
+        if (page.hasNext())
+            out.writeStringField("next", page.next().timestamp() + "_" + page.next().id());
+        else
+            out.writeNullField("next");
+    }
+
+    /**
+     * Parses a statement cursor, written as {@code <timestamp>_<id>}.
+     */
+    private static StatementPage.Cursor parseCursor(String cursor) {
+        int separator = cursor.lastIndexOf('_');
+        try {
+            return new StatementPage.Cursor(LocalDateTime.parse(cursor.substring(0, separator)), Long.parseLong(cursor.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new HttpError(400, "Invalid statement cursor.");
+        }
+    }
+
+    private static void validate(InputValidator validator, String input) {
+        Optional<Exception> error = validator.validate(input);
+        if (error.isPresent())
+            throw new HttpError(400, error.get().getMessage());
+    }
+
+    // ---------------------------------------------------------------- Plumbing
+
+    /**
+     * Registers an endpoint, wrapping it with the JSON encoding, the error mapping and the metrics.
+     *
+     * @param method   the accepted HTTP method.
+     * @param path     the exact request path.
+     * @param endpoint the endpoint.
+     */
+    private void route(String method, String path, Endpoint endpoint) {
+        server.createContext(path, exchange -> {
+            long start = System.nanoTime();
+            int status = 200;
+
+            try (exchange) {
+                byte[] body;
+                try {
+                    if (!path.equals(exchange.getRequestURI().getPath()))
+                        throw new HttpError(404, "Not found.");
+                    if (!method.equals(exchange.getRequestMethod()))
+                        throw new HttpError(405, "Method not allowed. Use " + method + ".");
+
+                    Request request = new Request(exchange, parse(exchange));
+                    body = render(out -> endpoint.handle(request, out));
+                } catch (RuntimeException e) {
+                    status = status(e);
+                    String message = (status == 500) ? "Internal server error." : e.getMessage();
+                    body = render(out -> out.writeStringField("error", message));
+                }
+
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(status, body.length);
+                exchange.getResponseBody().write(body);
+            } finally {
+                requests.increment();
+                if (status >= 400)
+                    errors.increment();
+                handleNanos.add(System.nanoTime() - start);
+            }
+        });
+    }
+
+    /**
+     * Renders a response object.
+     *
+     * @param fields writes the fields of the object.
+     * @return the encoded JSON object.
+     */
+    private static byte[] render(Fields fields) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        try (JsonGenerator out = json.createGenerator(body)) {
+            out.writeStartObject();
+            fields.write(out);
+            out.writeEndObject();
+        }
+
+        return body.toByteArray();
+    }
+
+    /**
+     * Maps an exception raised by an endpoint to an HTTP status.
+     */
+    private static int status(RuntimeException e) {
+        if (e instanceof HttpError error)
+            return error.status;
+        if (e instanceof AccountLoginException)
+            return 401;
+        if (e instanceof AccountOpeningException || e instanceof TransactionException)
+            return 422;
+        if (e instanceof UncheckedIOException)
+            return 400;
+
+        return 500;
+    }
+
+    /**
+     * Reads the query parameters and the flat JSON object of a request body into one map.
+     * Body fields take precedence over query parameters of the same name.
+     */
+    private static Map<String, String> parse(HttpExchange exchange) {
+        Map<String, String> fields = new HashMap<>();
+
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0)
+                    fields.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8), URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+
+        try (InputStream input = exchange.getRequestBody()) {
+            byte[] bytes = input.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES)
+                throw new HttpError(413, "The request body is too large.");
+            if (bytes.length == 0)
+                return fields;
+
+            try (JsonParser parser = json.createParser(bytes)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT)
+                    throw new HttpError(400, "The request body must be a JSON object.");
+
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY)
+                        throw new HttpError(400, "The field " + field + " must be a string or a number.");
+                    if (value != JsonToken.VALUE_NULL)
+                        fields.put(field, parser.getText());
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new HttpError(400, "The request body is not valid JSON.");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return fields;
+    }
+
+    /**
+     * Writes the fields of a response object.
+     */
+    @FunctionalInterface
+    private interface Fields {
+
+        /**
+         * Writes the fields.
+         *
+         * @param out the generator, positioned inside the response object.
+         * @throws IOException if the fields cannot be written.
+         */
+        void write(JsonGenerator out) throws IOException;
+    }
+
+    /**
+     * An API endpoint, writing the fields of its response object.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+
+        /**
+         * Handles a request.
+         *
+         * @param request the request.
+         * @param out     the generator, positioned inside the response object.
+         * @throws IOException if the response cannot be written.
+         */
+        void handle(Request request, JsonGenerator out) throws IOException;
+    }
+
+    /**
+     * The parameters of a request, with typed accessors failing with a 400 error.
+     */
+    private record Request(HttpExchange exchange, Map<String, String> fields) {
+
+        Optional<String> optional(String field) {
+            return Optional.ofNullable(fields.get(field)).map(String::trim).filter(value -> !value.isEmpty());
+        }
+
+        String require(String field) {
+            return optional(field).orElseThrow(() -> new HttpError(400, "The field " + field + " is required."));
+        }
+
+        Long requireId(String field) {
+            try {
+                return Long.valueOf(require(field));
+            } catch (NumberFormatException e) {
+                throw new HttpError(400, "The field " + field + " must be an account ID.");
+            }
+        }
+
+        Money requireMoney(String field) {
+            try {
+                return Money.parse(require(field));
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new HttpError(400, "The field " + field + " must be an amount with at most two decimal places.");
+            }
+        }
+
+        /**
+         * Resolves the account of the session whose token is in the {@code Authorization} header.
+         */
+        Account account() {
+            String header = exchange.getRequestHeaders().getFirst("Authorization");
+            if (header == null || !header.startsWith("Bearer "))
+                throw new HttpError(401, "Missing bearer token.");
+
+            return AuthService.current(header.substring("Bearer ".length()).trim());
+        }
+    }
+
+    /**
+     * An error answered with a specific HTTP status.
+     */
+    private static class HttpError extends RuntimeException {
+
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Takes a point-in-time snapshot of the server metrics.
+     *
+     * @return the current metrics.
+     */
+    public Snapshot snapshot() {
+        long handled = requests.sum();
+        return new Snapshot(virtualThreads, handled, errors.sum(), handled == 0 ? 0 : handleNanos.sum() / handled / 1_000);
+    }
+
+    /**
+     * Point-in-time server metrics.
+     *
+     * @param virtualThreads   whether requests run on virtual threads.
+     * @param requests         the number of handled requests.
+     * @param errors           the number of requests answered with an error status.
+     * @param averageMicros    the average time spent handling a request, in microseconds.
+     */
+    public record Snapshot(boolean virtualThreads, long requests, long errors, long averageMicros) {}
+}
@@ -0,0 +1,120 @@
+package br.com.compass.bank.internal;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * AccountLocks serializes in-process operations per account without a global lock.
+ * <p>
+ * Account IDs are hashed onto a fixed array of lock stripes, so memory use does not depend on the
+ * number of accounts and unrelated accounts rarely share a lock. Operations on two accounts take both
+ * stripes in ascending stripe order, which rules out deadlocks between concurrent transfers. Holding
+ * the stripe for the whole database transaction also means concurrent operations on the same account
+ * queue here instead of contending for the row lock in the database.
+ * </p>
+ * <p>
+ * The default instance reads its stripe count from the {@code bank.locks.stripes} system property,
+ * rounded up to a power of two.
+ * </p>
+ */
+public class AccountLocks {
+
+    /**
+     * The lock manager used by the transaction service.
+     */
+    public static final AccountLocks DEFAULT = new AccountLocks(Integer.getInteger("bank.locks.stripes", 1024));
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * Creates a lock manager.
+     *
+     * @param stripes the number of lock stripes, rounded up to a power of two.
+     */
+    public AccountLocks(int stripes) {
+        if (stripes < 1 || stripes > (1 << 30))
+            throw new IllegalArgumentException("Invalid number of lock stripes: " + stripes);
+
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes)
+            size <<= 1;
+
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++)
+            this.stripes[i] = new ReentrantLock();
+        this.mask = size - 1;
+    }
+
+    /**
+     * Runs the work while holding the lock of one account.
+     *
+     * @param id   the ID of the account.
+     * @param work the work to run.
+     * @param <T>  the result type.
+     * @return the result of the work.
+     */
+    public <T> T withLock(Long id, Supplier<T> work) {
+        ReentrantLock lock = stripes[stripe(id)];
+
+        lock.lock();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the work while holding the locks of two accounts, taken in ascending stripe order.
+     *
+     * @param first  the ID of the first account.
+     * @param second the ID of the second account.
+     * @param work   the work to run.
+     * @param <T>    the result type.
+     * @return the result of the work.
+     */
+    public <T> T withLocks(Long first, Long second, Supplier<T> work) {
+        int a = stripe(first), b = stripe(second);
+        if (a == b)
+            return withLock(first, work);
+
+        ReentrantLock outer = stripes[Math.min(a, b)];
+        ReentrantLock inner = stripes[Math.max(a, b)];
+
+        outer.lock();
+        try {
+            inner.lock();
+            try {
+                return work.get();
+            } finally {
+                inner.unlock();
+            }
+        } finally {
+            outer.unlock();
+        }
+    }
+
+    /**
+     * Maps an account ID to its stripe, spreading sequential IDs over the whole array.
+     *
+     * @param id the ID of the account; null maps to the first stripe.
+     * @return the stripe index.
+     */
+    int stripe(Long id) {
+        if (id == null)
+            return 0;
+
+        long hash = id * 0x9E3779B97F4A7C15L; // Fibonacci hashing
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Returns the number of lock stripes.
+     *
+     * @return the stripe count.
+     */
+    public int stripes() {
+        return stripes.length;
+    }
+}
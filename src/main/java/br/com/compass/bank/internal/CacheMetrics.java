@@ -0,0 +1,74 @@
+package br.com.compass.bank.internal;
+
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Point-in-time second-level and query cache statistics, used to size the regions in {@code ehcache.xml}.
+ * <p>
+ * A low hit ratio on an entity region usually means its TTL or heap size is too small for the working
+ * set, while many puts with few hits mean the cached data is invalidated faster than it is read.
+ * </p>
+ *
+ * @param regions      the statistics of each second-level cache region.
+ * @param queryHits    the number of queries answered from the query cache.
+ * @param queryMisses  the number of cacheable queries that had to hit the database.
+ * @param queryPuts    the number of query results stored in the query cache.
+ */
+public record CacheMetrics(List<Region> regions, long queryHits, long queryMisses, long queryPuts) {
+
+    /**
+     * Statistics of one second-level cache region.
+     *
+     * @param name      the region name.
+     * @param hits      the number of lookups served from the region.
+     * @param misses    the number of lookups that had to hit the database.
+     * @param puts      the number of entries stored in the region.
+     * @param elements  the number of entries currently held in memory, or -1 if unknown.
+     */
+    public record Region(String name, long hits, long misses, long puts, long elements) {
+
+        /**
+         * Returns the share of lookups served from the region.
+         *
+         * @return the hit ratio, between 0 and 1.
+         */
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * Builds a snapshot from the Hibernate statistics.
+     *
+     * @param statistics the session factory statistics.
+     * @return the current {@link CacheMetrics}.
+     */
+    static CacheMetrics of(Statistics statistics) {
+        List<Region> regions = new ArrayList<>();
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null)
+                regions.add(new Region(name, region.getHitCount(), region.getMissCount(), region.getPutCount(), region.getElementCountInMemory()));
+        }
+
+        return new CacheMetrics(regions, statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount());
+    }
+
+    /**
+     * Finds the statistics of a region.
+     *
+     * @param name the region name, e.g. the fully qualified entity class name.
+     * @return the region statistics, or null if there is no such region.
+     */
+    public Region region(String name) {
+        return regions.stream()
+                .filter(region -> region.name().equals(name))
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -8,7 +8,13 @@ import lombok.Getter;
 import lombok.extern.java.Log;
 
 import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.sql.Statement;
 
 /**
  * A utility class for managing the Hibernate SessionFactory and database connection.
@@ -16,17 +22,79 @@ import org.hibernate.cfg.Configuration;
 @Log
 public class DatabaseConnection {
 
+    // Tables whose ids come from a pooled sequence, with the sequence name; the allocation size of each is ID_ALLOCATION_SIZE
+    private static final String[][] ID_SEQUENCES = {
+            {"t_user", "t_user_seq"},
+            {"t_account", "t_account_seq"},
+            {"t_transaction", "t_transaction_seq"}
+    };
+    private static final int ID_ALLOCATION_SIZE = 50;
+
     /**
      * The static SessionFactory instance used for database operations.
-     * It is initialized lazily using the buildSessionFactory method.
+     * Connections are served by the {@link PooledConnectionProvider}.
      */
     @Getter
-    private static final SessionFactory factory = new Configuration()
+    private static final SessionFactory factory = alignSequences(new Configuration()
             .configure("hibernate.cfg.xml")
+            .setProperty(AvailableSettings.CONNECTION_PROVIDER, PooledConnectionProvider.class.getName())
             .addAnnotatedClass(Account.class)
             .addAnnotatedClass(User.class)
             .addAnnotatedClass(Transaction.class)
-            .buildSessionFactory();
+            .buildSessionFactory());
+
+    /**
+     * Moves every id sequence past the highest id already stored in its table.
+     * <p>
+     * Databases created before the ids came from sequences hold identity-generated ids, while the schema
+     * update creates the sequences starting at 1, so the first inserts would collide with existing rows.
+     * Each sequence is set to the highest id plus one allocation block, unless it is already ahead, so
+     * running this on every start never moves a sequence backwards. Only PostgreSQL needs it; the other
+     * databases are only used for tests and start empty.
+     * </p>
+     *
+     * @param factory the session factory whose schema was just updated.
+     * @return the same factory.
+     */
+    private static SessionFactory alignSequences(SessionFactory factory) {
+        if (!(factory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect() instanceof PostgreSQLDialect))
+            return factory;
+
+        factory.inTransaction(session -> session.doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                for (String[] sequence : ID_SEQUENCES) {
+                    statement.execute(String.format("SELECT setval('%2$s', GREATEST((SELECT COALESCE(MAX(id), 0) FROM %1$s) + %3$d, (SELECT last_value FROM %2$s)))",
+                            sequence[0], sequence[1], ID_ALLOCATION_SIZE));
+                }
+            }
+        }));
+
+        log.info("Id sequences aligned with the existing rows");
+        return factory;
+    }
+
+    /**
+     * Returns a snapshot of the connection pool metrics.
+     *
+     * @return the current pool metrics.
+     */
+    public static PoolMetrics.Snapshot poolMetrics() {
+        return factory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(ConnectionProvider.class)
+                .unwrap(PooledConnectionProvider.class)
+                .getMetrics()
+                .snapshot();
+    }
+
+    /**
+     * Returns a snapshot of the second-level and query cache statistics.
+     *
+     * @return the current cache metrics.
+     */
+    public static CacheMetrics cacheMetrics() {
+        return CacheMetrics.of(factory.getStatistics());
+    }
 
     /**
      * Closes the SessionFactory and releases any resources held by it.
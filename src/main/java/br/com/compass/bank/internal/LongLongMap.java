@@ -0,0 +1,235 @@
+package br.com.compass.bank.internal;
+
+import java.util.Arrays;
+
+/**
+ * LongLongMap is a hash map from {@code long} keys to {@code long} values without boxing.
+ * <p>
+ * Keys and values live in two parallel arrays with open addressing and linear probing, so a lookup
+ * touches one or two adjacent cache lines and the map allocates nothing once it has grown to size.
+ * The key {@code 0} marks an empty slot and cannot be stored; account IDs start at 1.
+ * </p>
+ * <p>
+ * The map is not thread-safe.
+ * </p>
+ */
+public class LongLongMap {
+
+    // Maximum fill ratio before the arrays are doubled
+    private static final double LOAD_FACTOR = 0.6;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * Creates a map sized for an expected number of entries.
+     *
+     * @param expected the expected number of entries.
+     */
+    public LongLongMap(int expected) {
+        int capacity = Integer.highestOneBit((int) Math.max(16, Math.ceil(expected / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key          the key.
+     * @param defaultValue the value returned when the key is absent.
+     * @return the value, or {@code defaultValue} if the key is absent.
+     */
+    public long get(long key, long defaultValue) {
+        if (key == 0)
+            return defaultValue;
+
+        int slot = find(key);
+        return (keys[slot] == key) ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Checks whether a key is present.
+     *
+     * @param key the key.
+     * @return true if the map holds the key.
+     */
+    public boolean containsKey(long key) {
+        return key != 0 && keys[find(key)] == key;
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key   the key, not 0.
+     * @param value the value.
+     */
+    public void put(long key, long value) {
+        int slot = find(requireKey(key));
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            if (++size > resizeAt) {
+                values[slot] = value;
+                grow();
+                return;
+            }
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Adds a delta to the value of a key, treating an absent key as 0.
+     *
+     * @param key   the key, not 0.
+     * @param delta the amount to add.
+     * @return the new value.
+     * @throws ArithmeticException if the value overflows.
+     */
+    public long add(long key, long delta) {
+        int slot = find(requireKey(key));
+        if (keys[slot] == key)
+            return values[slot] = Math.addExact(values[slot], delta);
+
+        put(key, delta);
+        return delta;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the size of the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls a visitor for every entry, in no particular order.
+     *
+     * @param visitor the visitor receiving each key and value.
+     */
+    public void forEach(Visitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++)
+            if (keys[slot] != 0)
+                visitor.visit(keys[slot], values[slot]);
+    }
+
+    /**
+     * Returns the keys of the map, sorted.
+     *
+     * @return a new array holding every key.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int i = 0;
+        for (long key : keys)
+            if (key != 0)
+                result[i++] = key;
+
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns an independent copy of the map.
+     *
+     * @return the copy.
+     */
+    public LongLongMap copy() {
+        LongLongMap copy = new LongLongMap(0);
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.mask = mask;
+        copy.size = size;
+        copy.resizeAt = resizeAt;
+        return copy;
+    }
+
+    /**
+     * Receives the entries of a map.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * Visits one entry.
+         *
+         * @param key   the key.
+         * @param value the value.
+         */
+        void visit(long key, long value);
+    }
+
+    /**
+     * Finds the slot holding a key, or the empty slot where it would be inserted.
+     *
+     * @param key the key.
+     * @return the slot index.
+     */
+    private int find(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+
+        while (keys[slot] != 0 && keys[slot] != key)
+            slot = (slot + 1) & mask;
+
+        return slot;
+    }
+
+    private static long requireKey(long key) {
+        if (key == 0)
+            throw new IllegalArgumentException("The key 0 is reserved.");
+        return key;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Doubles the arrays and reinserts every entry.
+     */
+    private void grow() {
+        long[] oldKeys = keys, oldValues = values;
+        allocate(keys.length << 1);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LongLongMap[size=" + size + ", capacity=" + keys.length + "]";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof LongLongMap map) || map.size != size)
+            return false;
+
+        for (int slot = 0; slot < keys.length; slot++)
+            if (keys[slot] != 0 && (!map.containsKey(keys[slot]) || map.get(keys[slot], 0) != values[slot]))
+                return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = 0;
+        for (int slot = 0; slot < keys.length; slot++)
+            if (keys[slot] != 0)
+                hash += keys[slot] * 31 + values[slot];
+
+        return Long.hashCode(hash);
+    }
+}
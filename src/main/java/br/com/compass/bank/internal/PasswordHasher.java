@@ -0,0 +1,239 @@
+package br.com.compass.bank.internal;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * PasswordHasher runs BCrypt hashing and verification on a dedicated, bounded worker pool.
+ * <p>
+ * BCrypt is deliberately CPU-bound, so a burst of logins would otherwise pin every caller thread.
+ * Here at most {@code threads} hashes run at once and at most {@code queueCapacity} more wait for a
+ * worker; once the queue is full, new requests are rejected with a {@link RejectedExecutionException}
+ * right away instead of piling up, which callers report as a "try again" error (back-pressure).
+ * </p>
+ * <p>
+ * The default instance is configured with the {@code bank.bcrypt.cost}, {@code bank.bcrypt.threads}
+ * and {@code bank.bcrypt.queue_capacity} system properties.
+ * </p>
+ */
+public class PasswordHasher {
+
+    /**
+     * The hasher used by the account services.
+     */
+    public static final PasswordHasher DEFAULT = new PasswordHasher (
+            Integer.getInteger("bank.bcrypt.cost", 10),
+            Integer.getInteger("bank.bcrypt.threads", Runtime.getRuntime().availableProcessors()),
+            Integer.getInteger("bank.bcrypt.queue_capacity", 64)
+    );
+
+    private final int cost;
+    private final ThreadPoolExecutor executor;
+
+    // Number of completed hash operations, and the time they spent hashing and waiting in the queue
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    // Number of requests refused because the queue was full
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a hasher.
+     *
+     * @param cost          the BCrypt work factor (log2 of the number of rounds) of new hashes.
+     * @param threads       the number of worker threads.
+     * @param queueCapacity the maximum number of requests waiting for a worker.
+     */
+    public PasswordHasher(int cost, int threads, int queueCapacity) {
+        if (cost < 4 || cost > 31)
+            throw new IllegalArgumentException("The BCrypt cost must be between 4 and 31.");
+        if (threads < 1 || queueCapacity < 1)
+            throw new IllegalArgumentException("The hashing pool needs at least one thread and one queue slot.");
+
+        AtomicInteger count = new AtomicInteger();
+        this.cost = cost;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Too many password operations in progress.");
+                });
+    }
+
+    /**
+     * Hashes a password with the configured cost.
+     *
+     * @param password the plain text password.
+     * @return the BCrypt hash.
+     * @throws RejectedExecutionException if the hashing queue is full.
+     */
+    public String hash(String password) {
+        return await(submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost))));
+    }
+
+    /**
+     * Verifies a password against a BCrypt hash, whatever the cost of that hash.
+     *
+     * @param password the plain text password.
+     * @param hash     the stored BCrypt hash.
+     * @return true if the password matches the hash.
+     * @throws RejectedExecutionException if the hashing queue is full.
+     */
+    public boolean verify(String password, String hash) {
+        return await(submit(() -> BCrypt.checkpw(password, hash)));
+    }
+
+    /**
+     * Hashes a password in the background and hands the result to a callback, if a worker is available.
+     * Meant for opportunistic work, such as upgrading a hash, that can be skipped under load.
+     * <p>
+     * The callback runs on the given executor, never on the hashing thread, so slow work such as storing
+     * the hash does not hold a worker that other logins are waiting for.
+     * </p>
+     *
+     * @param password         the plain text password.
+     * @param callbackExecutor the executor running the callback.
+     * @param callback         the callback receiving the new hash.
+     * @return true if the work was queued, false if the queue was full.
+     */
+    public boolean hashLater(String password, Executor callbackExecutor, Consumer<String> callback) {
+        try {
+            submit(() -> {
+                String hash = BCrypt.hashpw(password, BCrypt.gensalt(cost));
+                callbackExecutor.execute(() -> callback.accept(hash));
+                return null;
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a hash was computed with a lower cost than the configured one.
+     *
+     * @param hash the stored BCrypt hash, e.g. {@code $2a$10$...}.
+     * @return true if the password should be hashed again with the current cost.
+     */
+    public boolean needsRehash(String hash) {
+        // The cost is the two digits after the version prefix: $2a$10$...
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$')
+            return false;
+
+        char tens = hash.charAt(4), units = hash.charAt(5);
+        if (tens < '0' || tens > '9' || units < '0' || units > '9')
+            return false;
+
+        return (tens - '0') * 10 + (units - '0') < cost;
+    }
+
+    /**
+     * Queues a task, measuring how long it waits and how long it runs.
+     *
+     * @param task the hashing task.
+     * @param <T>  the result type.
+     * @return the future result.
+     */
+    private <T> Future<T> submit(Callable<T> task) {
+        long queued = System.nanoTime();
+
+        return executor.submit(() -> {
+            long started = System.nanoTime();
+            try {
+                return task.call();
+            } finally {
+                long finished = System.nanoTime();
+                completed.increment();
+                waitNanos.add(started - queued);
+                maxWaitNanos.accumulate(started - queued);
+                hashNanos.add(finished - started);
+                maxHashNanos.accumulate(finished - started);
+            }
+        });
+    }
+
+    /**
+     * Waits for a queued task to complete.
+     *
+     * @param future the future result.
+     * @param <T>    the result type.
+     * @return the result.
+     */
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime)
+                throw runtime;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the work factor of new hashes.
+     *
+     * @return the BCrypt cost.
+     */
+    public int cost() {
+        return cost;
+    }
+
+    /**
+     * Takes a point-in-time snapshot of the hashing metrics.
+     *
+     * @return the current {@link Snapshot}.
+     */
+    public Snapshot snapshot() {
+        long count = completed.sum();
+
+        return new Snapshot (
+                count,
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(hashNanos.sum() / count),
+                TimeUnit.NANOSECONDS.toMicros(maxHashNanos.get()),
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(waitNanos.sum() / count),
+                TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()),
+                rejected.sum(),
+                executor.getQueue().size(),
+                executor.getActiveCount()
+        );
+    }
+
+    /**
+     * Point-in-time hashing metrics.
+     *
+     * @param completed          the number of completed hash and verify operations.
+     * @param averageHashMicros  the average time spent in BCrypt, in microseconds.
+     * @param maxHashMicros      the longest time spent in BCrypt, in microseconds.
+     * @param averageWaitMicros  the average time requests waited for a worker, in microseconds.
+     * @param maxWaitMicros      the longest time a request waited for a worker, in microseconds.
+     * @param rejected           the number of requests refused because the queue was full.
+     * @param queued             the number of requests currently waiting.
+     * @param active             the number of requests currently being hashed.
+     */
+    public record Snapshot(long completed, long averageHashMicros, long maxHashMicros, long averageWaitMicros,
+                           long maxWaitMicros, long rejected, int queued, int active) {}
+}
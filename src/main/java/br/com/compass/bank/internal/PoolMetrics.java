@@ -0,0 +1,104 @@
+package br.com.compass.bank.internal;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects connection pool metrics reported by the {@link PooledConnectionProvider}.
+ * <p>
+ * Wait times are measured from the moment a caller asks the pool for a connection until
+ * the connection is handed over, so they grow as soon as the pool becomes a bottleneck.
+ * </p>
+ */
+public class PoolMetrics implements IMetricsTracker {
+
+    // Number of connections handed out by the pool
+    private final LongAdder acquired = new LongAdder();
+
+    // Total and maximum time callers waited for a connection, in nanoseconds
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    // Total time connections were held before being returned, in milliseconds
+    private final LongAdder usageMillis = new LongAdder();
+
+    // Number of callers that gave up waiting for a connection
+    private final LongAdder timeouts = new LongAdder();
+
+    // Live pool state, bound once the pool is started
+    private volatile HikariPoolMXBean pool;
+
+    /**
+     * Binds the live pool state so it can be included in snapshots.
+     *
+     * @param pool the pool management bean published by HikariCP.
+     */
+    void bind(HikariPoolMXBean pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquired.increment();
+        waitNanos.add(elapsedAcquiredNanos);
+        maxWaitNanos.accumulate(elapsedAcquiredNanos);
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+        usageMillis.add(elapsedBorrowedMillis);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    /**
+     * Takes a point-in-time snapshot of the collected metrics.
+     *
+     * @return the current {@link Snapshot}.
+     */
+    public Snapshot snapshot() {
+        long count = acquired.sum();
+        HikariPoolMXBean current = pool;
+
+        return new Snapshot (
+                count,
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(waitNanos.sum() / count),
+                TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()),
+                count == 0 ? 0 : usageMillis.sum() / count,
+                timeouts.sum(),
+                current == null ? 0 : current.getActiveConnections(),
+                current == null ? 0 : current.getIdleConnections(),
+                current == null ? 0 : current.getThreadsAwaitingConnection()
+        );
+    }
+
+    /**
+     * Immutable view of the pool metrics at a given moment.
+     *
+     * @param acquired        number of connections handed out so far.
+     * @param averageWaitMicros average time spent waiting for a connection, in microseconds.
+     * @param maxWaitMicros   longest time spent waiting for a connection, in microseconds.
+     * @param averageUsageMillis average time a connection was held, in milliseconds.
+     * @param timeouts        number of callers that timed out waiting for a connection.
+     * @param active          connections currently in use.
+     * @param idle            connections currently idle in the pool.
+     * @param pending         threads currently waiting for a connection.
+     */
+    public record Snapshot(
+            long acquired,
+            long averageWaitMicros,
+            long maxWaitMicros,
+            long averageUsageMillis,
+            long timeouts,
+            int active,
+            int idle,
+            int pending
+    ) {}
+}
@@ -0,0 +1,183 @@
+package br.com.compass.bank.internal;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.Getter;
+
+import org.hibernate.cfg.JdbcSettings;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.connections.internal.DatabaseConnectionInfoImpl;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.jdbc.connections.spi.DatabaseConnectionInfo;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * A Hibernate {@link ConnectionProvider} backed by a HikariCP connection pool.
+ * <p>
+ * The pool reads the {@code jakarta.persistence.jdbc.*} settings, or the legacy {@code hibernate.connection.*}
+ * ones, and is tuned through the
+ * {@code hibernate.pool.*} properties declared in {@code hibernate.cfg.xml}:
+ * <ul>
+ *     <li>{@value #MIN_SIZE} - minimum number of idle connections kept open.</li>
+ *     <li>{@value #MAX_SIZE} - maximum number of connections in the pool.</li>
+ *     <li>{@value #IDLE_TIMEOUT} - time, in milliseconds, an idle connection is kept before being retired.</li>
+ *     <li>{@value #CONNECTION_TIMEOUT} - time, in milliseconds, a caller waits for a connection before failing.</li>
+ *     <li>{@value #LEAK_DETECTION_THRESHOLD} - time, in milliseconds, a connection may be held before a leak is reported (0 disables it).</li>
+ * </ul>
+ * </p>
+ */
+public class PooledConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    public static final String MIN_SIZE = "hibernate.pool.min_size";
+    public static final String MAX_SIZE = "hibernate.pool.max_size";
+    public static final String IDLE_TIMEOUT = "hibernate.pool.idle_timeout";
+    public static final String CONNECTION_TIMEOUT = "hibernate.pool.connection_timeout";
+    public static final String LEAK_DETECTION_THRESHOLD = "hibernate.pool.leak_detection_threshold";
+
+    // Legacy connection settings, still used by hibernate.cfg.xml, read when the jakarta.persistence.jdbc.* ones are absent
+    private static final String LEGACY_DRIVER = "hibernate.connection.driver_class";
+    private static final String LEGACY_URL = "hibernate.connection.url";
+    private static final String LEGACY_USER = "hibernate.connection.username";
+    private static final String LEGACY_PASSWORD = "hibernate.connection.password";
+
+    /**
+     * The metrics collected from the underlying pool.
+     */
+    @Getter
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    private HikariDataSource dataSource;
+
+    /**
+     * Builds the connection pool from the Hibernate configuration values.
+     *
+     * @param settings the configuration values supplied by Hibernate.
+     */
+    @Override
+    public void configure(Map<String, Object> settings) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("bank-pool");
+
+        String driver = setting(settings, JdbcSettings.JAKARTA_JDBC_DRIVER, LEGACY_DRIVER);
+        if (driver != null)
+            config.setDriverClassName(driver);
+
+        config.setJdbcUrl(setting(settings, JdbcSettings.JAKARTA_JDBC_URL, LEGACY_URL));
+        config.setUsername(setting(settings, JdbcSettings.JAKARTA_JDBC_USER, LEGACY_USER));
+        config.setPassword(setting(settings, JdbcSettings.JAKARTA_JDBC_PASSWORD, LEGACY_PASSWORD));
+
+        // Hibernate controls transaction boundaries itself
+        config.setAutoCommit(false);
+
+        int max = number(settings, MAX_SIZE, 10);
+        config.setMaximumPoolSize(max);
+        config.setMinimumIdle(Math.min(number(settings, MIN_SIZE, 2), max));
+        config.setIdleTimeout(number(settings, IDLE_TIMEOUT, 600_000));
+        config.setConnectionTimeout(number(settings, CONNECTION_TIMEOUT, 30_000));
+        config.setLeakDetectionThreshold(number(settings, LEAK_DETECTION_THRESHOLD, 0));
+
+        config.setMetricsTrackerFactory((pool, stats) -> metrics);
+
+        dataSource = new HikariDataSource(config);
+        metrics.bind(dataSource.getHikariPoolMXBean());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public DatabaseConnectionInfo getDatabaseConnectionInfo(Dialect dialect) {
+        return new DatabaseConnectionInfoImpl (
+                dataSource.getJdbcUrl(),
+                dataSource.getDriverClassName(),
+                dialect.getVersion(),
+                String.valueOf(dataSource.isAutoCommit()),
+                dataSource.getTransactionIsolation(),
+                dataSource.getMinimumIdle(),
+                dataSource.getMaximumPoolSize()
+        );
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> type) {
+        return type.isAssignableFrom(getClass()) || type.isAssignableFrom(HikariDataSource.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> type) {
+        if (type.isAssignableFrom(getClass()))
+            return (T) this;
+        if (type.isAssignableFrom(HikariDataSource.class))
+            return (T) dataSource;
+
+        throw new UnknownUnwrapTypeException(type);
+    }
+
+    /**
+     * Closes the pool and every connection it holds.
+     */
+    @Override
+    public void stop() {
+        if (dataSource != null)
+            dataSource.close();
+    }
+
+    /**
+     * Returns the pooled {@link DataSource}, mainly for tools that need plain JDBC access.
+     *
+     * @return the pooled data source.
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Reads a text setting under its current name, falling back to its legacy name.
+     *
+     * @param settings the configuration values.
+     * @param key      the setting name.
+     * @param legacy   the legacy setting name.
+     * @return the value, or null if neither name is set.
+     */
+    private static String setting(Map<String, Object> settings, String key, String legacy) {
+        Object value = settings.getOrDefault(key, settings.get(legacy));
+        return (value == null) ? null : value.toString();
+    }
+
+    /**
+     * Reads a numeric setting, accepting both numbers and strings.
+     *
+     * @param settings     the configuration values.
+     * @param key          the setting name.
+     * @param defaultValue the value used when the setting is absent.
+     * @return the resolved value.
+     */
+    private static int number(Map<String, Object> settings, String key, int defaultValue) {
+        Object value = settings.get(key);
+        if (value == null)
+            return defaultValue;
+
+        return (value instanceof Number n) ? n.intValue() : Integer.parseInt(value.toString().trim());
+    }
+}
@@ -0,0 +1,241 @@
+package br.com.compass.bank.internal;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.LockAcquisitionException;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * RetryPolicy re-runs a unit of work that failed because of a conflicting concurrent update.
+ * <p>
+ * Optimistic lock failures, lock timeouts, deadlocks and serialization failures are retried up to
+ * a maximum number of attempts. Between attempts the caller sleeps for a random time between zero and
+ * an exponentially growing, capped delay ("full jitter"), so colliding callers spread out instead of
+ * colliding again. Any other exception is thrown right away.
+ * </p>
+ * <p>
+ * Work is only retried when it starts a {@link UnitOfWork} of its own: inside an active unit of work
+ * the failed transaction is already marked for rollback, so the failure is handed to the caller.
+ * </p>
+ * <p>
+ * The default policy reads its limits from the {@code bank.retry.max_attempts},
+ * {@code bank.retry.base_delay_ms} and {@code bank.retry.max_delay_ms} system properties.
+ * </p>
+ */
+public class RetryPolicy {
+
+    /**
+     * The policy used around the money-moving operations.
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy (
+            Integer.getInteger("bank.retry.max_attempts", 5),
+            Long.getLong("bank.retry.base_delay_ms", 5),
+            Long.getLong("bank.retry.max_delay_ms", 200)
+    );
+
+    // Number of accounts listed in the metrics snapshot, and of accounts whose retries are counted
+    private static final int HOT_ACCOUNTS = 10;
+    private static final int TRACKED_ACCOUNTS = 64;
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    // Number of calls, retried attempts and calls that failed after the last attempt
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    // Retried attempts per operation, and per account for the most contended accounts only, guarded by itself
+    private final Map<String, LongAdder> retriesByOperation = new ConcurrentHashMap<>();
+    private final Map<Long, Long> retriesByAccount = new HashMap<>();
+
+    /**
+     * Creates a retry policy.
+     *
+     * @param maxAttempts     the maximum number of attempts, including the first one.
+     * @param baseDelayMillis the backoff cap before the first retry, doubled on each following retry.
+     * @param maxDelayMillis  the upper bound of the backoff cap.
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1 || baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis)
+            throw new IllegalArgumentException("Invalid retry policy limits.");
+
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Runs the work, retrying it on conflicting concurrent updates.
+     *
+     * @param operation the operation name, used in the metrics.
+     * @param work      the work to run; it must be safe to run again after a rollback.
+     * @param accounts  the IDs of the accounts the work touches, used in the metrics.
+     * @param <T>       the result type.
+     * @return the result of the first successful attempt.
+     */
+    public <T> T execute(String operation, Supplier<T> work, Long... accounts) {
+        calls.increment();
+        boolean retryable = !UnitOfWork.isActive();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (RuntimeException e) {
+                if (!retryable || !isRetryable(e))
+                    throw e;
+
+                if (attempt == maxAttempts) {
+                    exhausted.increment();
+                    throw e;
+                }
+
+                record(operation, accounts);
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Checks whether an exception, or any of its causes, reports a conflicting concurrent update.
+     *
+     * @param e the exception thrown by the work.
+     * @return true if running the work again may succeed.
+     */
+    public static boolean isRetryable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException
+                    || cause instanceof PessimisticLockException
+                    || cause instanceof org.hibernate.PessimisticLockException
+                    || cause instanceof LockTimeoutException
+                    || cause instanceof LockAcquisitionException)
+                return true;
+
+            // Serialization failure or deadlock reported by the driver
+            if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("40"))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Records a retried attempt.
+     *
+     * @param operation the operation name.
+     * @param accounts  the IDs of the accounts involved.
+     */
+    private void record(String operation, Long... accounts) {
+        retries.increment();
+        retriesByOperation.computeIfAbsent(operation, key -> new LongAdder()).increment();
+
+        synchronized (retriesByAccount) {
+            for (Long account : accounts)
+                if (account != null)
+                    count(account);
+        }
+    }
+
+    /**
+     * Counts a retry of an account in the bounded table of contended accounts.
+     * <p>
+     * The table keeps at most {@value #TRACKED_ACCOUNTS} accounts ("space saving"): once it is full, a new account
+     * takes the place of the least retried one and inherits its count. Accounts retried more often than the
+     * evicted ones always stay in the table, and their counts are exact or slightly overestimated.
+     * Must be called while holding the table's monitor.
+     * </p>
+     *
+     * @param account the ID of the account.
+     */
+    private void count(Long account) {
+        Long count = retriesByAccount.get(account);
+        if (count != null || retriesByAccount.size() < TRACKED_ACCOUNTS) {
+            retriesByAccount.put(account, (count == null) ? 1 : count + 1);
+            return;
+        }
+
+        Map.Entry<Long, Long> least = Collections.min(retriesByAccount.entrySet(), Map.Entry.comparingByValue());
+        retriesByAccount.remove(least.getKey());
+        retriesByAccount.put(account, least.getValue() + 1);
+    }
+
+    /**
+     * Sleeps before the next attempt, for a random time up to the exponential backoff cap.
+     *
+     * @param attempt the number of the failed attempt.
+     * @param failure the failure, rethrown if the thread is interrupted while waiting.
+     */
+    private void backoff(int attempt, RuntimeException failure) {
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        if (cap == 0)
+            return;
+
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+
+    /**
+     * Takes a point-in-time snapshot of the retry metrics.
+     *
+     * @return the current {@link Snapshot}.
+     */
+    public Snapshot snapshot() {
+        Map<String, Long> operations = new LinkedHashMap<>();
+        retriesByOperation.forEach((operation, count) -> operations.put(operation, count.sum()));
+
+        Map<Long, Long> accounts;
+        synchronized (retriesByAccount) {
+            accounts = new HashMap<>(retriesByAccount);
+        }
+
+        Map<Long, Long> hottest = new LinkedHashMap<>();
+        accounts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(HOT_ACCOUNTS)
+                .forEach(entry -> hottest.put(entry.getKey(), entry.getValue()));
+
+        return new Snapshot(calls.sum(), retries.sum(), exhausted.sum(), operations, hottest);
+    }
+
+    /**
+     * Point-in-time retry metrics.
+     *
+     * @param calls              the number of calls made through the policy.
+     * @param retries            the number of attempts retried after a conflict.
+     * @param exhausted          the number of calls that still failed after the last attempt.
+     * @param retriesByOperation the number of retries per operation.
+     * @param hottestAccounts    the accounts involved in the most retries, with their retry counts, most contended first;
+     *                           counts may be overestimated once more than {@value #TRACKED_ACCOUNTS} accounts have retried.
+     */
+    public record Snapshot(long calls, long retries, long exhausted, Map<String, Long> retriesByOperation, Map<Long, Long> hottestAccounts) {
+
+        /**
+         * Returns the average number of retries per call.
+         *
+         * @return the retry rate.
+         */
+        public double retryRate() {
+            return calls == 0 ? 0 : (double) retries / calls;
+        }
+    }
+}
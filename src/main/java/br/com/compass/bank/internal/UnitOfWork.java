@@ -0,0 +1,128 @@
+package br.com.compass.bank.internal;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * UnitOfWork binds one Hibernate session and one database transaction to a business operation.
+ * <p>
+ * The outermost call to {@link #execute} opens a session, begins a transaction and binds both to the
+ * current thread; every nested call, from any repository, joins them instead of opening its own.
+ * When the outermost call returns, the session is flushed, the transaction committed and the session
+ * closed, so its connection goes back to the pool. If any call throws, the transaction is rolled back
+ * and the session closed all the same. Entities returned by a unit of work are therefore detached.
+ * </p>
+ */
+public class UnitOfWork {
+
+    // Hibernate SessionFactory to manage session creation
+    private static final SessionFactory factory = DatabaseConnection.getFactory();
+
+    // Session of the unit of work running on the current thread, if any
+    private static final ThreadLocal<Session> context = new ThreadLocal<>();
+
+    // Number of sessions currently open by units of work
+    private static final AtomicInteger open = new AtomicInteger();
+
+    // Number of sessions opened by units of work since startup
+    private static final LongAdder opened = new LongAdder();
+
+    /**
+     * Runs the work inside the current unit of work, starting one if none is active on this thread.
+     *
+     * @param work the work to run with the unit of work session.
+     * @param <T>  the result type.
+     * @return the result of the work.
+     */
+    public static <T> T execute(Function<Session, T> work) {
+        Session current = context.get();
+        if (current != null)
+            return join(current, work);
+
+        Session session = factory.openSession();
+        open.incrementAndGet();
+        opened.increment();
+        context.set(session);
+
+        try {
+            session.beginTransaction();
+            T result = work.apply(session);
+
+            if (session.getTransaction().getRollbackOnly())
+                throw new IllegalStateException("The unit of work was rolled back because a nested operation failed.");
+
+            session.getTransaction().commit(); // Flushes pending changes before committing
+            return result;
+        } catch (RuntimeException | Error e) {
+            if (session.getTransaction().isActive())
+                session.getTransaction().rollback();
+            throw e;
+        } finally {
+            context.remove();
+            session.close();
+            open.decrementAndGet();
+        }
+    }
+
+    /**
+     * Runs the work inside the current unit of work, starting one if none is active on this thread.
+     *
+     * @param work the work to run with the unit of work session.
+     */
+    public static void run(Consumer<Session> work) {
+        execute(session -> {
+            work.accept(session);
+            return null;
+        });
+    }
+
+    /**
+     * Runs nested work in an active unit of work. A failure marks the whole unit of work for rollback,
+     * even if the caller catches the exception.
+     *
+     * @param session the active session.
+     * @param work    the work to run.
+     * @param <T>     the result type.
+     * @return the result of the work.
+     */
+    private static <T> T join(Session session, Function<Session, T> work) {
+        try {
+            return work.apply(session);
+        } catch (RuntimeException | Error e) {
+            session.getTransaction().markRollbackOnly();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a unit of work is active on the current thread.
+     *
+     * @return true if the calling code runs inside a unit of work.
+     */
+    public static boolean isActive() {
+        return context.get() != null;
+    }
+
+    /**
+     * Returns the number of sessions currently open by units of work, across all threads.
+     *
+     * @return the number of open sessions.
+     */
+    public static int openSessions() {
+        return open.get();
+    }
+
+    /**
+     * Returns the number of sessions opened by units of work since startup.
+     *
+     * @return the total number of opened sessions.
+     */
+    public static long openedSessions() {
+        return opened.sum();
+    }
+}
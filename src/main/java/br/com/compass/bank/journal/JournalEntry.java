@@ -0,0 +1,177 @@
+package br.com.compass.bank.journal;
+
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.TransactionType;
+import br.com.compass.bank.repository.LedgerRecord;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * A ledger record together with its position in the {@link TransactionJournal}.
+ * <p>
+ * Entries are stored in a fixed-size binary layout of {@value #SIZE} bytes, so the entry holding a given
+ * sequence number is found by arithmetic alone:
+ * </p>
+ * <pre>
+ *  0  int   CRC32C of bytes 4 to 49
+ *  4  long  sequence number, never 0
+ * 12  byte  transaction type ordinal
+ * 13  byte  flags: 1 = has sender, 2 = has receiver, 4 = account opening
+ * 14  long  sender account ID, or the account profile of an opening
+ * 22  long  receiver account ID, or the opened account ID
+ * 30  long  amount in cents, or the opening balance
+ * 38  long  timestamp, seconds since the epoch (UTC)
+ * 46  int   timestamp, nanoseconds
+ * </pre>
+ * <p>
+ * An account opening is not a transaction: it records the profile and opening balance of an account
+ * registered in a ledger book, so the book can be rebuilt from the journal alone. Its type is stored as
+ * {@link TransactionType#DEPOSIT} and carries no meaning.
+ * New {@link TransactionType} constants must be appended to the enum, since entries store their ordinal.
+ * </p>
+ *
+ * @param sequence the sequence number of the entry, starting at 1.
+ * @param record   the ledger record, or null if the entry is an account opening.
+ */
+public record JournalEntry(long sequence, LedgerRecord record) {
+
+    /**
+     * The size of an encoded entry, in bytes.
+     */
+    public static final int SIZE = 50;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final byte HAS_SENDER = 1, HAS_RECEIVER = 2, OPENING = 4;
+
+    /**
+     * Checks whether the entry is an account opening rather than a transaction.
+     *
+     * @return true if the entry has no ledger record.
+     */
+    public boolean isOpening() {
+        return record == null;
+    }
+
+    /**
+     * Encodes an entry at an absolute offset of a buffer, writing the checksum last.
+     *
+     * @param buffer   the target buffer.
+     * @param offset   the offset of the entry.
+     * @param sequence the sequence number.
+     * @param record   the ledger record.
+     */
+    static void write(ByteBuffer buffer, int offset, long sequence, LedgerRecord record) {
+        LocalDateTime timestamp = record.timestamp();
+        byte flags = (byte) ((record.sender() != null ? HAS_SENDER : 0) | (record.receiver() != null ? HAS_RECEIVER : 0));
+
+        buffer.putLong(offset + 4, sequence)
+                .put(offset + 12, (byte) record.type().ordinal())
+                .put(offset + 13, flags)
+                .putLong(offset + 14, record.sender() != null ? record.sender() : 0)
+                .putLong(offset + 22, record.receiver() != null ? record.receiver() : 0)
+                .putLong(offset + 30, record.amount().cents())
+                .putLong(offset + 38, timestamp.toEpochSecond(ZoneOffset.UTC))
+                .putInt(offset + 46, timestamp.getNano());
+
+        buffer.putInt(offset, checksum(buffer, offset));
+    }
+
+    /**
+     * Encodes an account opening at an absolute offset of a buffer, writing the checksum last.
+     *
+     * @param buffer   the target buffer.
+     * @param offset   the offset of the entry.
+     * @param sequence the sequence number.
+     * @param account  the ID of the opened account.
+     * @param profile  the account profile, an opaque value owned by the ledger book.
+     * @param cents    the opening balance, in cents.
+     */
+    static void writeOpening(ByteBuffer buffer, int offset, long sequence, long account, long profile, long cents) {
+        LocalDateTime timestamp = LocalDateTime.now(ZoneOffset.UTC);
+
+        buffer.putLong(offset + 4, sequence)
+                .put(offset + 12, (byte) TransactionType.DEPOSIT.ordinal())
+                .put(offset + 13, OPENING)
+                .putLong(offset + 14, profile)
+                .putLong(offset + 22, account)
+                .putLong(offset + 30, cents)
+                .putLong(offset + 38, timestamp.toEpochSecond(ZoneOffset.UTC))
+                .putInt(offset + 46, timestamp.getNano());
+
+        buffer.putInt(offset, checksum(buffer, offset));
+    }
+
+    /**
+     * Decodes the entry at an absolute offset of a buffer.
+     *
+     * @param buffer the source buffer.
+     * @param offset the offset of the entry.
+     * @return the entry, or null if the slot is empty or was not completely written.
+     */
+    static JournalEntry read(ByteBuffer buffer, int offset) {
+        long sequence = buffer.getLong(offset + 4);
+        if (sequence == 0 || buffer.getInt(offset) != checksum(buffer, offset))
+            return null;
+
+        byte flags = buffer.get(offset + 13);
+        if ((flags & OPENING) != 0)
+            return new JournalEntry(sequence, null);
+
+        LedgerRecord record = new LedgerRecord (
+                TYPES[buffer.get(offset + 12)],
+                (flags & HAS_SENDER) != 0 ? buffer.getLong(offset + 14) : null,
+                (flags & HAS_RECEIVER) != 0 ? buffer.getLong(offset + 22) : null,
+                Money.ofCents(buffer.getLong(offset + 30)),
+                LocalDateTime.ofEpochSecond(buffer.getLong(offset + 38), buffer.getInt(offset + 46), ZoneOffset.UTC)
+        );
+
+        return new JournalEntry(sequence, record);
+    }
+
+    /**
+     * Hands the fields of the entry at an absolute offset of a buffer to a visitor, without decoding it into objects.
+     *
+     * @param buffer   the source buffer.
+     * @param offset   the offset of the entry.
+     * @param sequence the expected sequence number.
+     * @param visitor  the visitor.
+     * @return false if the slot does not hold a complete entry with the expected sequence number.
+     */
+    static boolean visit(ByteBuffer buffer, int offset, long sequence, TransactionJournal.Visitor visitor) {
+        if (buffer.getLong(offset + 4) != sequence || buffer.getInt(offset) != checksum(buffer, offset))
+            return false;
+
+        if ((buffer.get(offset + 13) & OPENING) != 0)
+            visitor.open(sequence, buffer.getLong(offset + 22), buffer.getLong(offset + 14), buffer.getLong(offset + 30));
+        else
+            visitor.visit(sequence, TYPES[buffer.get(offset + 12)], buffer.getLong(offset + 14), buffer.getLong(offset + 22), buffer.getLong(offset + 30));
+        return true;
+    }
+
+    /**
+     * Checks whether the slot at an absolute offset of a buffer was never written.
+     *
+     * @param buffer the buffer.
+     * @param offset the offset of the slot.
+     * @return true if the slot holds no sequence number.
+     */
+    static boolean isEmpty(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 4) == 0;
+    }
+
+    /**
+     * Computes the checksum of an encoded entry, covering every byte after the checksum field.
+     *
+     * @param buffer the buffer.
+     * @param offset the offset of the entry.
+     * @return the CRC32C checksum.
+     */
+    private static int checksum(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + 4, SIZE - 4));
+        return (int) crc.getValue();
+    }
+}
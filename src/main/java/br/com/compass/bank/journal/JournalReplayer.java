@@ -0,0 +1,163 @@
+package br.com.compass.bank.journal;
+
+import br.com.compass.bank.repository.LedgerRecord;
+import br.com.compass.bank.repository.TransactionRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JournalReplayer copies durable {@link TransactionJournal} entries into {@code t_transaction} in the background.
+ * <p>
+ * Entries are replayed in sequence order, in batches of at most {@value #BATCH_SIZE} rows per database
+ * transaction, and each row keeps its journal sequence number. The replay position is therefore read back
+ * from the ledger itself: a batch whose transaction failed is replayed again on the next run, and a batch
+ * that committed is never replayed twice.
+ * </p>
+ */
+public class JournalReplayer implements AutoCloseable {
+
+    // Maximum number of entries inserted per database transaction
+    private static final int BATCH_SIZE = 1000;
+
+    private final TransactionJournal journal;
+    private final ScheduledExecutorService executor;
+
+    // Last sequence number committed to the ledger, guarded by this
+    private long replayed;
+
+    // Number of replayed entries and of failed background runs
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile RuntimeException lastFailure;
+
+    /**
+     * Creates a replayer, resuming after the last entry already in the ledger.
+     *
+     * @param journal the journal to replay.
+     */
+    public JournalReplayer(TransactionJournal journal) {
+        this.journal = journal;
+        this.replayed = TransactionRepository.findLastJournalSequence();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Replays new entries periodically on a background thread.
+     * A failed run is counted and retried on the next one.
+     *
+     * @param interval the delay between the end of a run and the start of the next.
+     */
+    public void start(Duration interval) {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                replayPending();
+            } catch (RuntimeException e) {
+                failures.increment();
+                lastFailure = e;
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replays every durable entry not yet in the ledger.
+     *
+     * @return the number of replayed entries.
+     */
+    public synchronized long replayPending() {
+        long count = 0;
+
+        List<JournalEntry> batch;
+        while (!(batch = journal.read(replayed + 1, BATCH_SIZE)).isEmpty()) {
+            int start = 0;
+            while (start < batch.size()) {
+                // Account openings only rebuild a ledger book, the database already holds the account
+                if (batch.get(start).isOpening()) {
+                    start++;
+                    continue;
+                }
+
+                // Records with consecutive sequence numbers are saved together
+                List<LedgerRecord> records = new ArrayList<>(batch.size() - start);
+                int end = start;
+                while (end < batch.size() && !batch.get(end).isOpening())
+                    records.add(batch.get(end++).record());
+
+                try {
+                    TransactionRepository.saveJournaled(records, batch.get(start).sequence());
+                } catch (RuntimeException e) {
+                    // Another replayer may have committed part of the range, so resume from the ledger
+                    replayed = TransactionRepository.findLastJournalSequence();
+                    throw e;
+                }
+
+                entries.add(records.size());
+                count += records.size();
+                start = end;
+            }
+            replayed = batch.get(batch.size() - 1).sequence();
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the last sequence number committed to the ledger.
+     *
+     * @return the last replayed sequence number.
+     */
+    public synchronized long replayedSequence() {
+        return replayed;
+    }
+
+    /**
+     * Returns the number of entries replayed by this replayer.
+     *
+     * @return the number of replayed entries.
+     */
+    public long replayedEntries() {
+        return entries.sum();
+    }
+
+    /**
+     * Returns the number of failed background runs.
+     *
+     * @return the number of failures.
+     */
+    public long failures() {
+        return failures.sum();
+    }
+
+    /**
+     * Returns the error of the last failed background run.
+     *
+     * @return the last failure, or null if no run failed.
+     */
+    public RuntimeException lastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Stops the background runs and replays the remaining durable entries.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        replayPending();
+    }
+}
@@ -0,0 +1,531 @@
+package br.com.compass.bank.journal;
+
+import br.com.compass.bank.model.TransactionType;
+import br.com.compass.bank.repository.LedgerRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * TransactionJournal is an append-only, write-ahead log of ledger records kept in memory-mapped segment files.
+ * <p>
+ * Each record becomes a fixed-size {@link JournalEntry} with a consecutive sequence number. Entries are
+ * written straight into the mapped segment and {@link #append} returns once the entry is on disk. Writers
+ * arriving while a flush is in progress wait for it to finish and are then made durable together by a single
+ * {@link MappedByteBuffer#force()} issued by one of them (group commit), so the number of disk flushes grows
+ * with the number of concurrent batches rather than with the number of records.
+ * </p>
+ * <p>
+ * Segments are named after their first sequence number and preallocated to {@code segmentBytes}; a new one
+ * is started when the current one is full. On startup the last segment is scanned and the journal resumes
+ * after its last complete entry, discarding a torn write left by a crash.
+ * </p>
+ * <p>
+ * The journal is optional and not written by the transaction service by default. {@link JournalReplayer}
+ * copies its entries into {@code t_transaction} in the background. The segment size defaults to the
+ * {@code bank.journal.segment_bytes} system property.
+ * </p>
+ */
+public class TransactionJournal implements AutoCloseable {
+
+    // Default size of a segment file, in bytes
+    private static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int entriesPerSegment;
+
+    // First sequence number of every segment, mapped to its file
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+
+    // Append state: the segment being written, its first sequence number and the last appended sequence number
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private MappedByteBuffer segment;
+    private long segmentFirst;
+    private long lastSequence;
+    private boolean closed;
+
+    // Flush state: whether a writer is flushing, and the last sequence number known to be on disk
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushed = flushLock.newCondition();
+    private boolean flushing;
+    private volatile long durableSequence;
+
+    // Read state: the segment last mapped for reading
+    private final ReentrantLock readLock = new ReentrantLock();
+    private MappedByteBuffer reader;
+    private long readerFirst;
+
+    // Number of appended entries, of disk flushes and the largest number of entries made durable by one flush
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder forces = new LongAdder();
+    private final LongAccumulator maxBatch = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Opens or creates a journal with the segment size of the {@code bank.journal.segment_bytes} system property.
+     *
+     * @param directory the directory holding the segment files.
+     * @throws UncheckedIOException if the journal cannot be opened.
+     */
+    public TransactionJournal(Path directory) {
+        this(directory, Integer.getInteger("bank.journal.segment_bytes", DEFAULT_SEGMENT_BYTES));
+    }
+
+    /**
+     * Opens or creates a journal, recovering the position after the last complete entry.
+     *
+     * @param directory    the directory holding the segment files.
+     * @param segmentBytes the size of new segment files, in bytes.
+     * @throws UncheckedIOException if the journal cannot be opened.
+     */
+    public TransactionJournal(Path directory, int segmentBytes) {
+        if (segmentBytes < JournalEntry.SIZE)
+            throw new IllegalArgumentException("A journal segment must hold at least one entry.");
+
+        this.directory = directory;
+        this.entriesPerSegment = segmentBytes / JournalEntry.SIZE;
+
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> {
+                    String name = file.getFileName().toString();
+                    if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                        segments.put(Long.parseLong(name, SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length(), 10), file);
+                });
+            }
+
+            if (segments.isEmpty())
+                startSegment(1);
+            else
+                recover(segments.lastEntry());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the journal in " + directory, e);
+        }
+
+        this.durableSequence = lastSequence;
+    }
+
+    /**
+     * Maps the last segment and positions the journal after its last complete entry.
+     * Slots following a torn entry are cleared, so they cannot be mistaken for entries later on.
+     *
+     * @param last the first sequence number and file of the last segment.
+     * @throws IOException if the segment cannot be mapped.
+     */
+    private void recover(Map.Entry<Long, Path> last) throws IOException {
+        segmentFirst = last.getKey();
+        segment = map(last.getValue(), Files.size(last.getValue()), FileChannel.MapMode.READ_WRITE);
+
+        int capacity = segment.capacity() / JournalEntry.SIZE;
+        int count = 0;
+        while (count < capacity) {
+            JournalEntry entry = JournalEntry.read(segment, count * JournalEntry.SIZE);
+            if (entry == null || entry.sequence() != segmentFirst + count)
+                break;
+            count++;
+        }
+
+        for (int slot = count; slot < capacity && !JournalEntry.isEmpty(segment, slot * JournalEntry.SIZE); slot++)
+            segment.put(slot * JournalEntry.SIZE, new byte[JournalEntry.SIZE]);
+        segment.force();
+
+        lastSequence = segmentFirst + count - 1;
+    }
+
+    /**
+     * Appends a record and waits until it is on disk.
+     *
+     * @param record the ledger record.
+     * @return the sequence number of the new entry.
+     * @throws IllegalStateException if the journal is closed.
+     * @throws UncheckedIOException if the segment cannot be written or flushed.
+     */
+    public long append(LedgerRecord record) {
+        long sequence = write(record);
+        awaitDurable(sequence);
+        return sequence;
+    }
+
+    /**
+     * Appends a record without waiting for it to reach the disk.
+     * Callers that need the entry to be durable must pass the returned sequence number to {@link #awaitDurable}.
+     *
+     * @param record the ledger record.
+     * @return the sequence number of the new entry.
+     * @throws IllegalStateException if the journal is closed.
+     * @throws UncheckedIOException if a new segment cannot be created.
+     */
+    public long write(LedgerRecord record) {
+        return write((buffer, offset, sequence) -> JournalEntry.write(buffer, offset, sequence, record));
+    }
+
+    /**
+     * Appends an account opening without waiting for it to reach the disk.
+     * Openings are visited by {@link Visitor#open} during a {@link #scan} and read as entries without a record.
+     *
+     * @param account the ID of the opened account.
+     * @param profile the account profile, an opaque value owned by the caller.
+     * @param cents   the opening balance, in cents.
+     * @return the sequence number of the new entry.
+     * @throws IllegalStateException if the journal is closed.
+     * @throws UncheckedIOException if a new segment cannot be created.
+     */
+    public long writeOpening(long account, long profile, long cents) {
+        return write((buffer, offset, sequence) -> JournalEntry.writeOpening(buffer, offset, sequence, account, profile, cents));
+    }
+
+    /**
+     * Reserves the next sequence number and encodes an entry into its slot.
+     *
+     * @param encoder writes the entry at the slot offset.
+     * @return the sequence number of the new entry.
+     */
+    private long write(Encoder encoder) {
+        long sequence;
+
+        appendLock.lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("The journal is closed.");
+
+            sequence = lastSequence + 1;
+            int slot = (int) (sequence - segmentFirst);
+            if (slot == segment.capacity() / JournalEntry.SIZE) {
+                roll(sequence);
+                slot = 0;
+            }
+
+            encoder.encode(segment, slot * JournalEntry.SIZE, sequence);
+            lastSequence = sequence;
+        } finally {
+            appendLock.unlock();
+        }
+
+        appended.increment();
+        return sequence;
+    }
+
+    /**
+     * Flushes the full segment and starts a new one. Must be called while holding the append lock.
+     *
+     * @param first the first sequence number of the new segment.
+     */
+    private void roll(long first) {
+        segment.force();
+        forces.increment();
+
+        try {
+            startSegment(first);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create a journal segment in " + directory, e);
+        }
+    }
+
+    /**
+     * Creates and maps a new segment file.
+     *
+     * @param first the first sequence number of the segment.
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    private void startSegment(long first) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, first, SEGMENT_SUFFIX));
+
+        segment = map(file, (long) entriesPerSegment * JournalEntry.SIZE, FileChannel.MapMode.READ_WRITE);
+        segmentFirst = first;
+        lastSequence = first - 1;
+        segments.put(first, file);
+    }
+
+    /**
+     * Waits until an entry is on disk, flushing the journal if no other writer is doing it.
+     *
+     * @param sequence the sequence number of the entry.
+     * @throws UncheckedIOException if the segment cannot be flushed.
+     */
+    public void awaitDurable(long sequence) {
+        flushLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+
+                // Become the leader: flush everything appended so far on behalf of every waiting writer
+                flushing = true;
+                flushLock.unlock();
+                long target = durableSequence;
+                try {
+                    target = force();
+                } finally {
+                    flushLock.lock();
+                    flushing = false;
+                    if (target > durableSequence) {
+                        maxBatch.accumulate(target - durableSequence);
+                        durableSequence = target;
+                    }
+                    flushed.signalAll();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the current segment. Earlier segments were flushed when they were filled.
+     *
+     * @return the last sequence number that is now on disk.
+     */
+    private long force() {
+        MappedByteBuffer current;
+        long target;
+
+        appendLock.lock();
+        try {
+            current = segment;
+            target = lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+
+        current.force();
+        forces.increment();
+        return target;
+    }
+
+    /**
+     * Reads consecutive entries that are already on disk. Account openings are returned as entries without a record.
+     *
+     * @param from the sequence number of the first entry to read.
+     * @param max  the maximum number of entries to read.
+     * @return the entries in sequence order, or an empty list if there are no durable entries from {@code from} on.
+     * @throws IllegalStateException if an entry in the range is missing or corrupt.
+     */
+    public List<JournalEntry> read(long from, int max) {
+        long first = Math.max(from, 1);
+        long last = Math.min(durableSequence, first + max - 1);
+        List<JournalEntry> entries = new ArrayList<>((int) Math.max(0, last - first + 1));
+
+        readLock.lock();
+        try {
+            for (long sequence = first; sequence <= last; sequence++) {
+                if (reader == null || sequence < readerFirst || sequence - readerFirst >= reader.capacity() / JournalEntry.SIZE)
+                    openReader(sequence);
+
+                JournalEntry entry = JournalEntry.read(reader, (int) (sequence - readerFirst) * JournalEntry.SIZE);
+                if (entry == null || entry.sequence() != sequence)
+                    throw new IllegalStateException("The journal entry " + sequence + " is missing or corrupt.");
+
+                entries.add(entry);
+            }
+        } finally {
+            readLock.unlock();
+        }
+
+        return entries;
+    }
+
+    /**
+     * Visits consecutive entries that are already on disk without building entry objects.
+     * Meant for bulk recovery, where allocating a record per entry would dominate the cost.
+     *
+     * @param from    the sequence number of the first entry to visit.
+     * @param visitor the visitor called for each entry, in sequence order.
+     * @return the sequence number of the last visited entry, or {@code from - 1} if there was none.
+     * @throws IllegalStateException if an entry in the range is missing or corrupt.
+     */
+    public long scan(long from, Visitor visitor) {
+        long first = Math.max(from, 1);
+        long last = durableSequence;
+
+        readLock.lock();
+        try {
+            for (long sequence = first; sequence <= last; sequence++) {
+                if (reader == null || sequence < readerFirst || sequence - readerFirst >= reader.capacity() / JournalEntry.SIZE)
+                    openReader(sequence);
+
+                if (!JournalEntry.visit(reader, (int) (sequence - readerFirst) * JournalEntry.SIZE, sequence, visitor))
+                    throw new IllegalStateException("The journal entry " + sequence + " is missing or corrupt.");
+            }
+        } finally {
+            readLock.unlock();
+        }
+
+        return Math.max(last, first - 1);
+    }
+
+    /**
+     * Receives the fields of journal entries during a {@link #scan}.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * Visits one entry.
+         *
+         * @param sequence the sequence number of the entry.
+         * @param type     the transaction type.
+         * @param sender   the ID of the sending account, or 0 if there is none.
+         * @param receiver the ID of the receiving account, or 0 if there is none.
+         * @param cents    the amount, in cents.
+         */
+        void visit(long sequence, TransactionType type, long sender, long receiver, long cents);
+
+        /**
+         * Visits one account opening. Openings are skipped unless overridden.
+         *
+         * @param sequence the sequence number of the entry.
+         * @param account  the ID of the opened account.
+         * @param profile  the account profile written with the opening.
+         * @param cents    the opening balance, in cents.
+         */
+        default void open(long sequence, long account, long profile, long cents) {
+        }
+    }
+
+    /**
+     * Encodes an entry into a segment slot.
+     */
+    @FunctionalInterface
+    private interface Encoder {
+        void encode(ByteBuffer buffer, int offset, long sequence);
+    }
+
+    /**
+     * Maps the segment holding a sequence number for reading.
+     *
+     * @param sequence the sequence number.
+     */
+    private void openReader(long sequence) {
+        Map.Entry<Long, Path> entry = segments.floorEntry(sequence);
+        if (entry == null)
+            throw new IllegalStateException("The journal has no segment holding entry " + sequence + ".");
+
+        try {
+            reader = map(entry.getValue(), Files.size(entry.getValue()), FileChannel.MapMode.READ_ONLY);
+            readerFirst = entry.getKey();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the journal segment " + entry.getValue(), e);
+        }
+    }
+
+    /**
+     * Maps a segment file. The mapping stays valid after the channel is closed.
+     *
+     * @param file the segment file.
+     * @param size the mapped size, in bytes.
+     * @param mode the mapping mode.
+     * @return the mapped segment.
+     * @throws IOException if the file cannot be mapped.
+     */
+    private static MappedByteBuffer map(Path file, long size, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = (mode == FileChannel.MapMode.READ_ONLY)
+                ? new StandardOpenOption[] {StandardOpenOption.READ}
+                : new StandardOpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            return channel.map(mode, 0, size);
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last appended entry.
+     *
+     * @return the last sequence number, or 0 if the journal is empty.
+     */
+    public long lastSequence() {
+        appendLock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last entry known to be on disk.
+     *
+     * @return the last durable sequence number, or 0 if the journal is empty.
+     */
+    public long durableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * Flushes the journal and refuses further appends.
+     */
+    @Override
+    public void close() {
+        long last;
+
+        appendLock.lock();
+        try {
+            if (closed)
+                return;
+
+            closed = true;
+            segment.force();
+            last = lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+
+        flushLock.lock();
+        try {
+            durableSequence = Math.max(durableSequence, last);
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Takes a point-in-time snapshot of the journal metrics.
+     *
+     * @return the current {@link Snapshot}.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(appended.sum(), forces.sum(), maxBatch.get(), durableSequence, segments.size());
+    }
+
+    /**
+     * Point-in-time journal metrics.
+     *
+     * @param appended        the number of entries appended since the journal was opened.
+     * @param forces          the number of disk flushes.
+     * @param maxBatch        the largest number of entries made durable by a single flush.
+     * @param durableSequence the last sequence number known to be on disk.
+     * @param segments        the number of segment files.
+     */
+    public record Snapshot(long appended, long forces, long maxBatch, long durableSequence, int segments) {
+
+        /**
+         * Returns the average number of entries made durable per disk flush.
+         *
+         * @return the average group commit size, or 0 if nothing was flushed.
+         */
+        public double averageBatch() {
+            return forces == 0 ? 0 : (double) appended / forces;
+        }
+    }
+}
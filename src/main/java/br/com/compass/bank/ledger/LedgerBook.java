@@ -0,0 +1,405 @@
+package br.com.compass.bank.ledger;
+
+import br.com.compass.bank.exception.transaction.TransactionException;
+import br.com.compass.bank.internal.LongLongMap;
+import br.com.compass.bank.journal.TransactionJournal;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.AccountType;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.TransactionType;
+import br.com.compass.bank.repository.LedgerRecord;
+import br.com.compass.bank.service.AccountService;
+import br.com.compass.bank.service.TransactionService;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LedgerBook keeps every account balance in memory and applies deposits, withdrawals and transfers without the database.
+ * <p>
+ * Balances, in cents, live in a primitive {@link LongLongMap} keyed by account ID. A second map holds each
+ * account's profile, packed as {@code cpfKey << 2 | type.ordinal()}, which is all the transfer rules need.
+ * The rules are the ones of {@link TransactionService}, shared through its {@code check*} methods.
+ * </p>
+ * <p>
+ * The {@link TransactionJournal} is the write-ahead log. Under the book lock an operation is validated,
+ * written to the journal and applied, so journal order is application order. Its caller then waits for
+ * the entry to reach the disk outside the lock, which lets concurrent operations share one flush. If a
+ * flush fails, the book refuses further operations, since its state may be ahead of the disk.
+ * </p>
+ * <p>
+ * Registering an account journals an opening entry with its profile and opening balance, so
+ * {@link #recover} rebuilds a book from the newest {@link LedgerSnapshot} plus the journal entries written
+ * after it, or from the journal alone. Snapshots are written periodically by {@link #startSnapshots}, so recovery only replays a
+ * bounded journal tail.
+ * </p>
+ */
+public class LedgerBook implements AutoCloseable {
+
+    private final TransactionJournal journal;
+
+    // Book state, guarded by the lock: balances in cents, packed profiles, and the last applied journal sequence
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongLongMap balances;
+    private final LongLongMap profiles;
+    private long applied;
+
+    private volatile RuntimeException failure;
+    private volatile RuntimeException snapshotFailure;
+    private ScheduledExecutorService snapshots;
+
+    // Number of applied operations and of written snapshots
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder snapshotsWritten = new LongAdder();
+
+    private static final AccountType[] TYPES = AccountType.values();
+
+    private LedgerBook(TransactionJournal journal, LedgerSnapshot snapshot) {
+        this.journal = journal;
+        this.balances = snapshot.balances();
+        this.profiles = snapshot.profiles();
+        this.applied = snapshot.sequence();
+    }
+
+    /**
+     * Rebuilds a book from the newest snapshot of a directory and the journal entries written after it.
+     *
+     * @param journal   the journal of the book.
+     * @param snapshots the snapshot directory.
+     * @return the recovered book.
+     * @throws IllegalStateException if the journal no longer holds the entries following the snapshot.
+     */
+    public static LedgerBook recover(TransactionJournal journal, Path snapshots) {
+        LedgerBook book = new LedgerBook(journal, LedgerSnapshot.latest(snapshots).orElseGet(LedgerSnapshot::empty));
+
+        book.lock.lock();
+        try {
+            book.applied = journal.scan(book.applied + 1, new TransactionJournal.Visitor() {
+                @Override
+                public void visit(long sequence, TransactionType type, long sender, long receiver, long cents) {
+                    if (sender != 0)
+                        book.balances.add(sender, -cents);
+                    if (receiver != 0)
+                        book.balances.add(receiver, cents);
+                }
+
+                @Override
+                public void open(long sequence, long account, long profile, long cents) {
+                    book.apply(account, profile, cents);
+                }
+            });
+        } finally {
+            book.lock.unlock();
+        }
+
+        return book;
+    }
+
+    /**
+     * Registers an account loaded from the database.
+     *
+     * @param account the account, with its user.
+     */
+    public void register(Account account) {
+        register(account.getId(), account.getType(), AccountService.cpfKey(account.getUser().getCpf()).orElse(0), account.getBalance());
+    }
+
+    /**
+     * Registers an account, or updates its profile if it is already known.
+     * <p>
+     * A new account, or a known one whose profile changed, is journaled as an opening entry before this method
+     * returns, so it survives a recovery without a snapshot. The opening balance is only used for accounts
+     * without a balance in the book; the balances of known accounts come from the snapshot and the journal,
+     * which are more recent than any other copy. Registering a known account again with the same profile is a no-op.
+     * </p>
+     *
+     * @param id             the account ID.
+     * @param type           the account type.
+     * @param cpfKey         the owner's CPF packed by {@link AccountService#cpfKey}, or 0 if unknown.
+     * @param openingBalance the balance of an account new to the book.
+     */
+    public void register(long id, AccountType type, long cpfKey, Money openingBalance) {
+        long profile = (cpfKey << 2) | type.ordinal();
+
+        long sequence;
+        lock.lock();
+        try {
+            requireHealthy();
+            if (profiles.containsKey(id) && profiles.get(id, 0) == profile)
+                return;
+
+            sequence = journal.writeOpening(id, profile, openingBalance.cents());
+            apply(id, profile, openingBalance.cents());
+            applied = sequence;
+        } finally {
+            lock.unlock();
+        }
+
+        awaitDurable(sequence);
+    }
+
+    /**
+     * Applies an account opening. Must be called while holding the lock.
+     *
+     * @param id      the account ID.
+     * @param profile the packed profile.
+     * @param cents   the opening balance, ignored if the account already has a balance.
+     */
+    private void apply(long id, long profile, long cents) {
+        profiles.put(id, profile);
+        if (!balances.containsKey(id))
+            balances.put(id, cents);
+    }
+
+    /**
+     * Deposits an amount into an account.
+     *
+     * @param to     the ID of the account.
+     * @param amount the amount.
+     * @return the new balance.
+     * @throws TransactionException if the amount is invalid or the account does not exist.
+     */
+    public Money deposit(long to, Money amount) {
+        TransactionService.checkAmount("Deposit", amount);
+
+        long sequence, balance;
+        lock.lock();
+        try {
+            requireHealthy();
+            requireAccount(to, "The account with ID " + to + " does not exist.");
+
+            sequence = journal.write(new LedgerRecord(TransactionType.DEPOSIT, null, to, amount, LocalDateTime.now()));
+            balance = balances.add(to, amount.cents());
+            applied = sequence;
+        } finally {
+            lock.unlock();
+        }
+
+        awaitDurable(sequence);
+        return Money.ofCents(balance);
+    }
+
+    /**
+     * Withdraws an amount from an account, refusing to overdraw it.
+     *
+     * @param from   the ID of the account.
+     * @param amount the amount.
+     * @return the new balance.
+     * @throws TransactionException if the amount is invalid, the account does not exist or has insufficient funds.
+     */
+    public Money withdraw(long from, Money amount) {
+        TransactionService.checkAmount("Withdraw", amount);
+
+        long sequence, balance;
+        lock.lock();
+        try {
+            requireHealthy();
+            requireAccount(from, "The account with ID " + from + " does not exist.");
+            requireFunds(from, amount);
+
+            sequence = journal.write(new LedgerRecord(TransactionType.WITHDRAWAL, from, null, amount, LocalDateTime.now()));
+            balance = balances.add(from, -amount.cents());
+            applied = sequence;
+        } finally {
+            lock.unlock();
+        }
+
+        awaitDurable(sequence);
+        return Money.ofCents(balance);
+    }
+
+    /**
+     * Transfers an amount between two accounts.
+     *
+     * @param from   the ID of the source account.
+     * @param to     the ID of the destination account.
+     * @param amount the amount.
+     * @return the new balance of the source account.
+     * @throws TransactionException if the transfer breaks a rule or the source account has insufficient funds.
+     */
+    public Money transfer(long from, long to, Money amount) {
+        TransactionService.checkAmount("Transfer", amount);
+
+        long sequence, balance;
+        lock.lock();
+        try {
+            requireHealthy();
+            requireAccount(from, "Source account does not exist.");
+
+            long source = profiles.get(from, 0), destination = profiles.get(to, 0);
+            boolean exists = profiles.containsKey(to);
+            TransactionService.checkTransfer(from, TYPES[(int) (source & 3)], exists ? to : null, exists ? TYPES[(int) (destination & 3)] : null,
+                    exists && (source >>> 2) != 0 && (source >>> 2) == (destination >>> 2));
+            requireFunds(from, amount);
+
+            sequence = journal.write(new LedgerRecord(TransactionType.TRANSFER, from, to, amount, LocalDateTime.now()));
+            balance = balances.add(from, -amount.cents());
+            balances.add(to, amount.cents());
+            applied = sequence;
+        } finally {
+            lock.unlock();
+        }
+
+        awaitDurable(sequence);
+        return Money.ofCents(balance);
+    }
+
+    /**
+     * Returns the balance of an account.
+     *
+     * @param id the ID of the account.
+     * @return an {@link Optional} containing the balance, or an empty Optional if the account is unknown.
+     */
+    public Optional<Money> balance(long id) {
+        lock.lock();
+        try {
+            return balances.containsKey(id) ? Optional.of(Money.ofCents(balances.get(id, 0))) : Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last journal entry applied to the book.
+     *
+     * @return the last applied sequence number.
+     */
+    public long appliedSequence() {
+        lock.lock();
+        try {
+            return applied;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the book.
+     * The book is copied under the lock, and the copy is written once the journal holds every entry it includes.
+     *
+     * @param directory the snapshot directory.
+     * @return the written snapshot.
+     */
+    public LedgerSnapshot snapshot(Path directory) {
+        LedgerSnapshot snapshot;
+        lock.lock();
+        try {
+            snapshot = new LedgerSnapshot(applied, balances.copy(), profiles.copy());
+        } finally {
+            lock.unlock();
+        }
+
+        // A snapshot must never be ahead of the journal, or recovery would skip entries lost in a crash
+        journal.awaitDurable(snapshot.sequence());
+        snapshot.write(directory);
+        snapshotsWritten.increment();
+        return snapshot;
+    }
+
+    /**
+     * Writes snapshots periodically on a background thread.
+     * A failed snapshot is recorded, see {@link #lastSnapshotFailure()}, and retried on the next run.
+     *
+     * @param directory the snapshot directory.
+     * @param interval  the delay between two snapshots.
+     */
+    public synchronized void startSnapshots(Path directory, Duration interval) {
+        if (snapshots != null)
+            throw new IllegalStateException("Snapshots are already running.");
+
+        snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshots.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot(directory);
+            } catch (RuntimeException e) {
+                snapshotFailure = e;
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the error of the last failed periodic snapshot.
+     *
+     * @return the last snapshot failure, or null if no snapshot failed.
+     */
+    public RuntimeException lastSnapshotFailure() {
+        return snapshotFailure;
+    }
+
+    /**
+     * Returns the number of operations applied since the book was created, excluding recovered ones.
+     *
+     * @return the number of operations.
+     */
+    public long operations() {
+        return operations.sum();
+    }
+
+    /**
+     * Returns the number of snapshots written by this book.
+     *
+     * @return the number of snapshots.
+     */
+    public long snapshotsWritten() {
+        return snapshotsWritten.sum();
+    }
+
+    /**
+     * Stops the periodic snapshots. The journal is left open.
+     */
+    @Override
+    public synchronized void close() {
+        if (snapshots == null)
+            return;
+
+        snapshots.shutdown();
+        try {
+            snapshots.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshots = null;
+    }
+
+    private void requireHealthy() {
+        if (failure != null)
+            throw new IllegalStateException("The ledger book stopped after a journal failure.", failure);
+    }
+
+    private void requireAccount(long id, String missing) {
+        if (!profiles.containsKey(id))
+            throw new TransactionException(missing);
+    }
+
+    private void requireFunds(long id, Money amount) {
+        long available = balances.get(id, 0);
+        if (available < amount.cents())
+            throw new TransactionException("Insufficient funds. Available balance: " + Money.ofCents(available));
+    }
+
+    /**
+     * Waits until an applied operation is on disk, stopping the book if the journal cannot be flushed.
+     *
+     * @param sequence the journal sequence number of the operation.
+     */
+    private void awaitDurable(long sequence) {
+        try {
+            journal.awaitDurable(sequence);
+            operations.increment();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        }
+    }
+}
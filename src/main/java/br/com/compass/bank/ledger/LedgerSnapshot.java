@@ -0,0 +1,157 @@
+package br.com.compass.bank.ledger;
+
+import br.com.compass.bank.internal.LongLongMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * A point-in-time copy of a {@link LedgerBook}, tied to the last journal entry it includes.
+ * <p>
+ * Snapshots are written to {@code snapshot-<sequence>.bin} files in a single buffer: a header with the
+ * journal sequence number, the balances and the account profiles as pairs of {@code long}s, and a
+ * trailing CRC32C checksum. A snapshot is written to a temporary file and then atomically renamed,
+ * so a crash never leaves a partial snapshot under the final name.
+ * </p>
+ *
+ * @param sequence the sequence number of the last journal entry included.
+ * @param balances the balance of every account, in cents.
+ * @param profiles the packed profile of every account, see {@link LedgerBook}.
+ */
+public record LedgerSnapshot(long sequence, LongLongMap balances, LongLongMap profiles) {
+
+    private static final int MAGIC = 0x4C454447; // "LEDG"
+    private static final int VERSION = 1;
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    // Number of snapshot files kept, so a damaged newest snapshot can fall back to the previous one
+    private static final int RETAINED = 2;
+
+    /**
+     * Returns an empty snapshot, used when no snapshot was written yet.
+     *
+     * @return a snapshot of an empty book, before the first journal entry.
+     */
+    public static LedgerSnapshot empty() {
+        return new LedgerSnapshot(0, new LongLongMap(1024), new LongLongMap(1024));
+    }
+
+    /**
+     * Writes the snapshot and deletes older snapshots beyond the retained ones.
+     *
+     * @param directory the snapshot directory.
+     * @return the snapshot file.
+     * @throws UncheckedIOException if the snapshot cannot be written.
+     */
+    public Path write(Path directory) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 8 + 4 + balances.size() * 16 + 4 + profiles.size() * 16 + 4);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(sequence);
+        buffer.putInt(balances.size());
+        balances.forEach((id, cents) -> buffer.putLong(id).putLong(cents));
+        buffer.putInt(profiles.size());
+        profiles.forEach((id, profile) -> buffer.putLong(id).putLong(profile));
+        buffer.putInt(checksum(buffer, buffer.position()));
+        buffer.flip();
+
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            List<Path> files = list(directory);
+            for (int i = 0; i < files.size() - RETAINED; i++)
+                Files.deleteIfExists(files.get(i));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the ledger snapshot " + file, e);
+        }
+
+        return file;
+    }
+
+    /**
+     * Loads the newest readable snapshot of a directory, skipping damaged ones.
+     *
+     * @param directory the snapshot directory.
+     * @return an {@link Optional} containing the snapshot, or an empty Optional if there is none.
+     * @throws UncheckedIOException if the directory cannot be listed.
+     */
+    public static Optional<LedgerSnapshot> latest(Path directory) {
+        if (!Files.isDirectory(directory))
+            return Optional.empty();
+
+        try {
+            List<Path> files = list(directory);
+            for (int i = files.size() - 1; i >= 0; i--) {
+                Optional<LedgerSnapshot> snapshot = read(files.get(i));
+                if (snapshot.isPresent())
+                    return snapshot;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list the ledger snapshots in " + directory, e);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Reads a snapshot file.
+     *
+     * @param file the snapshot file.
+     * @return an {@link Optional} containing the snapshot, or an empty Optional if the file is damaged.
+     * @throws IOException if the file cannot be read.
+     */
+    private static Optional<LedgerSnapshot> read(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < 24 || buffer.getInt(buffer.limit() - 4) != checksum(buffer, buffer.limit() - 4))
+            return Optional.empty();
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            return Optional.empty();
+
+        long sequence = buffer.getLong();
+        return Optional.of(new LedgerSnapshot(sequence, readMap(buffer), readMap(buffer)));
+    }
+
+    private static LongLongMap readMap(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        LongLongMap map = new LongLongMap(size);
+        for (int i = 0; i < size; i++)
+            map.put(buffer.getLong(), buffer.getLong());
+
+        return map;
+    }
+
+    /**
+     * Lists the snapshot files of a directory, oldest first.
+     */
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(PREFIX) && file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, length);
+        return (int) crc.getValue();
+    }
+}
@@ -1,6 +1,8 @@
 package br.com.compass.bank.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -9,8 +11,10 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -18,7 +22,10 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.math.BigDecimal;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -26,6 +33,8 @@ import java.math.BigDecimal;
 @Getter
 @Setter
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(
         name = "t_account",
         uniqueConstraints = {
@@ -36,10 +45,11 @@ public class Account {
 
     /**
      * The unique identifier for the account.
-     * This value is automatically generated by the database.
+     * This value is drawn from a pooled sequence, so new accounts can be inserted in JDBC batches.
      */
     @Column(name = "id", unique = true, nullable = false, updatable = false)
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "t_account_seq")
+    @SequenceGenerator(name = "t_account_seq", sequenceName = "t_account_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -68,7 +78,17 @@ public class Account {
     /**
      * The balance of the account.
      */
+    @Convert(converter = MoneyConverter.class)
     @Column(name = "balance", nullable = false)
     @Builder.Default
-    private BigDecimal balance = BigDecimal.ZERO;
+    private Money balance = Money.ZERO;
+
+    /**
+     * The version of the account row, incremented on every change, including balance updates.
+     * Merging a copy loaded before a concurrent change fails instead of overwriting that change.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private Long version;
 }
@@ -0,0 +1,200 @@
+package br.com.compass.bank.model;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * An immutable amount of money, stored as a whole number of cents.
+ * <p>
+ * Arithmetic and comparisons work on a single {@code long}, so they are exact and allocate nothing
+ * beyond the result, unlike {@link BigDecimal}. Every operation checks for overflow and throws an
+ * {@link ArithmeticException} instead of wrapping around. Amounts with more than two decimal places
+ * are rejected rather than rounded.
+ * </p>
+ * <p>
+ * Amounts are stored in the existing {@code NUMERIC} columns through {@link MoneyConverter}.
+ * </p>
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Zero.
+     */
+    public static final Money ZERO = new Money(0);
+
+    // Number of decimal places of an amount
+    private static final int SCALE = 2;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    /**
+     * Creates an amount from a number of cents.
+     *
+     * @param cents the amount in cents.
+     * @return the amount.
+     */
+    public static Money ofCents(long cents) {
+        return (cents == 0) ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Creates an amount from a decimal value.
+     *
+     * @param value the decimal value, e.g. {@code 12.50}.
+     * @return the amount.
+     * @throws ArithmeticException if the value has more than two decimal places or does not fit in a {@code long} of cents.
+     */
+    public static Money of(BigDecimal value) {
+        return ofCents(value.movePointRight(SCALE).longValueExact());
+    }
+
+    /**
+     * Parses an amount such as {@code 12}, {@code 12.5}, {@code .5} or {@code -12.50} in a single pass.
+     *
+     * @param text the text to parse.
+     * @return the amount.
+     * @throws NumberFormatException if the text is not a number with at most two decimal places.
+     * @throws ArithmeticException if the amount does not fit in a {@code long} of cents.
+     */
+    public static Money parse(String text) {
+        int length = text.length();
+        int i = (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) ? 1 : 0;
+        boolean negative = i == 1 && text.charAt(0) == '-';
+
+        long units = 0;
+        int digits = 0;
+        for (; i < length && text.charAt(i) != '.'; i++, digits++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9')
+                throw new NumberFormatException("Invalid amount: " + text);
+            units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+        }
+
+        long fraction = 0;
+        int decimals = 0;
+        if (i < length) {
+            for (i++; i < length; i++, decimals++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9' || decimals == SCALE)
+                    throw new NumberFormatException("Invalid amount: " + text);
+                fraction = fraction * 10 + (c - '0');
+            }
+        }
+        if (digits + decimals == 0)
+            throw new NumberFormatException("Invalid amount: " + text);
+
+        long cents = Math.addExact(Math.multiplyExact(units, 100), decimals == 1 ? fraction * 10 : fraction);
+        return ofCents(negative ? -cents : cents);
+    }
+
+    /**
+     * Returns the amount in cents.
+     *
+     * @return the number of cents.
+     */
+    public long cents() {
+        return cents;
+    }
+
+    /**
+     * Adds an amount to this one.
+     *
+     * @param other the amount to add.
+     * @return the sum.
+     * @throws ArithmeticException if the result overflows.
+     */
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    /**
+     * Subtracts an amount from this one.
+     *
+     * @param other the amount to subtract.
+     * @return the difference.
+     * @throws ArithmeticException if the result overflows.
+     */
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    /**
+     * Returns the opposite of this amount.
+     *
+     * @return the negated amount.
+     * @throws ArithmeticException if the result overflows.
+     */
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    /**
+     * Checks whether this amount is greater than zero.
+     *
+     * @return true if the amount is positive.
+     */
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    /**
+     * Returns the sign of this amount.
+     *
+     * @return -1, 0 or 1 as the amount is negative, zero or positive.
+     */
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    /**
+     * Converts this amount to a decimal value with two decimal places.
+     *
+     * @return the decimal value.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return (other instanceof Money money) && money.cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * Formats the amount with two decimal places and no grouping, e.g. {@code -1234.50}.
+     *
+     * @return the formatted amount.
+     */
+    @Override
+    public String toString() {
+        long fraction = Math.abs(cents % 100);
+
+        StringBuilder text = new StringBuilder(24);
+        if (cents < 0)
+            text.append('-');
+
+        return text.append(Math.abs(cents / 100))
+                .append('.')
+                .append(fraction < 10 ? "0" : "")
+                .append(fraction)
+                .toString();
+    }
+}
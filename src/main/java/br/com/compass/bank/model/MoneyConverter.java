@@ -0,0 +1,27 @@
+package br.com.compass.bank.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Stores {@link Money} attributes in {@code NUMERIC} columns with two decimal places.
+ * <p>
+ * Attributes opt in with {@code @Convert(converter = MoneyConverter.class)}; the existing
+ * {@code balance} and {@code amount} columns keep their type and data.
+ * </p>
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return (money == null) ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal value) {
+        return (value == null) ? null : Money.of(value);
+    }
+}
@@ -1,14 +1,17 @@
 package br.com.compass.bank.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 import lombok.AllArgsConstructor;
@@ -17,7 +20,6 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -33,17 +35,25 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "t_transaction")
+@Table(
+        name = "t_transaction",
+        indexes = {
+                @Index(name = "idx_transaction_sender_timestamp", columnList = "sender, timestamp, id"),
+                @Index(name = "idx_transaction_receiver_timestamp", columnList = "receiver, timestamp, id")
+        }
+)
 public class Transaction {
 
     /**
      * The unique identifier for the transaction.
      * <p>
-     * This is the primary key for the transaction table.
+     * This is the primary key for the transaction table. It is drawn from a pooled sequence,
+     * allocating 50 values per round trip, so ledger inserts can be sent in JDBC batches.
      * </p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "t_transaction_seq")
+    @SequenceGenerator(name = "t_transaction_seq", sequenceName = "t_transaction_seq", allocationSize = 50)
     @Column(name = "id", unique = true, nullable = false, updatable = false)
     private Long id;
 
@@ -83,8 +93,9 @@ public class Transaction {
      * This field represents the transaction amount and must be greater than zero for valid transactions.
      * </p>
      */
+    @Convert(converter = MoneyConverter.class)
     @Column(nullable = false)
-    private BigDecimal amount;
+    private Money amount;
 
     /**
      * The timestamp when the transaction occurred.
@@ -95,4 +106,14 @@ public class Transaction {
     @Column(nullable = false)
     private LocalDateTime timestamp = LocalDateTime.now();
 
+    /**
+     * The sequence number of the journal entry this transaction was replayed from.
+     * <p>
+     * This field is null for transactions written directly to the database. The unique constraint makes
+     * a second replay of the same entry fail instead of duplicating it.
+     * </p>
+     */
+    @Column(name = "journal_sequence", unique = true)
+    private Long journalSequence;
+
 }
@@ -2,6 +2,7 @@ package br.com.compass.bank.model;
 
 import br.com.compass.bank.validation.PhoneNumber;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -9,6 +10,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 import jakarta.validation.constraints.NotBlank;
@@ -20,6 +22,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.br.CPF;
 
 import java.util.List;
@@ -34,15 +38,18 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "t_user")
 public class User {
 
     /**
      * The unique identifier for the User.
-     * This value is auto-generated and cannot be updated.
+     * This value is drawn from a pooled sequence and cannot be updated.
      */
     @Column(name = "id", unique = true, nullable = false, updatable = false)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "t_user_seq")
+    @SequenceGenerator(name = "t_user_seq", sequenceName = "t_user_seq", allocationSize = 50)
     @Id
     private Long id;
 
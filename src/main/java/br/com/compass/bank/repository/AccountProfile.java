@@ -0,0 +1,12 @@
+package br.com.compass.bank.repository;
+
+import br.com.compass.bank.model.AccountType;
+
+/**
+ * The fields of an account that the transfer rules depend on, projected without loading the account or its user.
+ *
+ * @param id   the ID of the account.
+ * @param type the type of the account.
+ * @param cpf  the formatted CPF of the account owner.
+ */
+public record AccountProfile(Long id, AccountType type, String cpf) {}
@@ -1,72 +1,240 @@
 package br.com.compass.bank.repository;
 
 import br.com.compass.bank.internal.DatabaseConnection;
+import br.com.compass.bank.internal.LongLongMap;
+import br.com.compass.bank.internal.UnitOfWork;
 import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.Money;
 import br.com.compass.bank.model.User;
 
+import org.hibernate.Cache;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.engine.spi.SessionImplementor;
 
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public class AccountRepository {
 
     // Hibernate SessionFactory to manage session creation
     private static final SessionFactory factory = DatabaseConnection.getFactory();
 
-    // ThreadLocal to store a Session for the current thread
-    private static final ThreadLocal<Session> context = new ThreadLocal<>();
+    // Maximum number of IDs bound to one IN list, well below the bind parameter limits of the drivers
+    private static final int IN_LIST_SIZE = 10_000;
+
+    // Conditional balance update, refusing to overdraw the account
+    private static final String ADJUST_BALANCE_SQL = "UPDATE t_account SET balance = balance + ?, version = version + 1 WHERE id = ? AND balance + ? >= 0";
 
     /**
-     * Gets the current Hibernate session. Creates a new one if none exists for the current thread.
+     * Finds an account by its ID.
      *
-     * @return the current Hibernate session.
+     * @param id the ID of the account to find.
+     * @return the Account with the given ID, or null if not found.
      */
-    public static Session getSession() {
-        Session session = context.get();
-        if (session == null || !session.isOpen()) {
-            session = factory.openSession();
-            context.set(session);
-        }
-
-        return session;
+    public static Account find(Long id) {
+        return UnitOfWork.execute(session -> session.get(Account.class, id));
     }
 
     /**
-     * Closes the current Hibernate session.
+     * Finds all accounts associated with a particular user.
+     *
+     * @param id the ID of the user.
+     * @return a list of accounts for the specified user.
      */
-    public static void closeSession() {
-        Session session = context.get();
-        if (session != null && session.isOpen())
-            session.close();
-
-        context.remove();
+    public static List<Account> findByUser(Long id) {
+        return UnitOfWork.execute(session -> session.createQuery("FROM Account WHERE user.id = :id", Account.class)
+                .setParameter("id", id)
+                .setCacheable(true)
+                .list());
     }
 
     /**
-     * Finds an account by its ID.
+     * Finds all accounts owned by the user with the given formatted CPF.
      *
-     * @param id the ID of the account to find.
-     * @return the Account with the given ID, or null if not found.
+     * @param cpf the formatted CPF (XXX.XXX.XXX-XX).
+     * @return a list of accounts for the user, or an empty list if no user has this CPF.
      */
-    public static Account find(Long id) {
-        Session session = getSession();
+    public static List<Account> findByCpf(String cpf) {
+        return UnitOfWork.execute(session -> session.createQuery("FROM Account a WHERE a.user.cpf = :cpf", Account.class)
+                .setParameter("cpf", cpf)
+                .setCacheable(true)
+                .list());
+    }
 
-        return session.get(Account.class, id);
+    /**
+     * Finds all accounts owned by the user with the given formatted phone number.
+     *
+     * @param phone the formatted phone number (+55 (XX) XXXXX-XXXX).
+     * @return a list of accounts for the user, or an empty list if no user has this phone number.
+     */
+    public static List<Account> findByPhone(String phone) {
+        return UnitOfWork.execute(session -> session.createQuery("FROM Account a WHERE a.user.phone = :phone", Account.class)
+                .setParameter("phone", phone)
+                .setCacheable(true)
+                .list());
     }
 
     /**
-     * Finds all accounts associated with a particular user.
+     * Finds the transfer profiles of many accounts.
+     * <p>
+     * Accounts and users are not loaded: the ID, type and owner's CPF are projected into
+     * {@link AccountProfile} records by one query per {@value #IN_LIST_SIZE} IDs.
+     * </p>
      *
-     * @param id the ID of the user.
-     * @return a list of accounts for the specified user.
+     * @param ids the IDs of the accounts.
+     * @return the profiles of the accounts that exist, keyed by account ID.
      */
-    public static List<Account> findByUser(Long id) {
-        Session session = getSession();
+    public static Map<Long, AccountProfile> findProfiles(Collection<Long> ids) {
+        return UnitOfWork.execute(session -> {
+            List<Long> remaining = new ArrayList<>(ids);
+            Map<Long, AccountProfile> profiles = new HashMap<>(remaining.size() * 2);
+
+            for (int start = 0; start < remaining.size(); start += IN_LIST_SIZE) {
+                session.createQuery("SELECT new br.com.compass.bank.repository.AccountProfile(a.id, a.type, u.cpf) FROM Account a JOIN a.user u WHERE a.id IN :ids", AccountProfile.class)
+                        .setParameter("ids", remaining.subList(start, Math.min(start + IN_LIST_SIZE, remaining.size())))
+                        .setReadOnly(true)
+                        .list()
+                        .forEach(profile -> profiles.put(profile.id(), profile));
+            }
 
-        return session.createQuery("FROM Account WHERE user.id = :id", Account.class)
+            return profiles;
+        });
+    }
+
+    /**
+     * Reads the current balance of an account without loading the entity.
+     *
+     * @param id the ID of the account.
+     * @return an {@link Optional} containing the balance, or an empty Optional if the account does not exist.
+     */
+    public static Optional<Money> findBalance(Long id) {
+        return UnitOfWork.execute(session -> session.createQuery("SELECT a.balance FROM Account a WHERE a.id = :id", Money.class)
                 .setParameter("id", id)
-                .list();
+                .uniqueResultOptional());
+    }
+
+    /**
+     * Adds an amount to an account balance directly in the database.
+     * <p>
+     * The change is applied by a single conditional {@code UPDATE}, which never lets the balance
+     * drop below zero and keeps the row locked until the surrounding unit of work ends. It also bumps
+     * the account version, so stale copies of the account can no longer be merged. The statement runs
+     * over plain JDBC because an HQL bulk update would evict the whole {@link Account} cache region;
+     * only the changed account is evicted instead, see {@link #evict}.
+     * </p>
+     *
+     * @param id the ID of the account.
+     * @param delta the amount to add, in cents; negative values debit the account.
+     * @return an {@link Optional} containing the new balance, or an empty Optional if the account
+     *         does not exist or the balance would become negative.
+     */
+    public static Optional<Money> adjustBalance(Long id, long delta) {
+        return UnitOfWork.execute(session -> {
+            int updated = session.doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(ADJUST_BALANCE_SQL)) {
+                    BigDecimal amount = BigDecimal.valueOf(delta, 2);
+                    statement.setBigDecimal(1, amount);
+                    statement.setLong(2, id);
+                    statement.setBigDecimal(3, amount);
+                    return statement.executeUpdate();
+                }
+            });
+
+            if (updated == 0)
+                return Optional.empty();
+
+            evict(session, id);
+            return findBalance(id);
+        });
+    }
+
+    /**
+     * Adds amounts to many account balances directly in the database, in one JDBC batch.
+     * <p>
+     * Each balance is changed by the same conditional {@code UPDATE} as {@link #adjustBalance}, so no
+     * balance can drop below zero. The rows are updated in ascending ID order, like the two rows of a
+     * transfer, so a batch can never deadlock with concurrent transfers. The caller's unit of work should
+     * roll back if any account is rejected, since the other changes are already applied.
+     * </p>
+     *
+     * @param deltas the amount to add to each account, in cents, keyed by account ID.
+     * @return the IDs of the accounts that do not exist or whose balance would become negative, in ascending order.
+     */
+    public static long[] adjustBalances(LongLongMap deltas) {
+        long[] ids = deltas.keys();
+
+        return UnitOfWork.execute(session -> {
+            int[] updated = session.doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(ADJUST_BALANCE_SQL)) {
+                    for (long id : ids) {
+                        BigDecimal amount = BigDecimal.valueOf(deltas.get(id, 0), 2);
+                        statement.setBigDecimal(1, amount);
+                        statement.setLong(2, id);
+                        statement.setBigDecimal(3, amount);
+                        statement.addBatch();
+                    }
+                    return statement.executeBatch();
+                }
+            });
+
+            long[] rejected = new long[ids.length];
+            int count = 0;
+            for (int i = 0; i < ids.length; i++) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched statements that did run
+                if (updated[i] == 0)
+                    rejected[count++] = ids[i];
+                else
+                    evict(session, ids[i]);
+            }
+
+            return Arrays.copyOf(rejected, count);
+        });
+    }
+
+    /**
+     * Evicts an account from the second-level cache after its row was changed outside the persistence context.
+     * <p>
+     * The entry is evicted right away and once more when the transaction completes, so a concurrent
+     * reader that cached the old row in between cannot keep serving it.
+     * </p>
+     *
+     * @param session the unit of work session that changed the row.
+     * @param id the ID of the changed account.
+     */
+    private static void evict(Session session, Long id) {
+        Cache cache = factory.getCache();
+        cache.evictEntityData(Account.class, id);
+
+        session.unwrap(SessionImplementor.class).getActionQueue()
+                .registerProcess((success, ignored) -> cache.evictEntityData(Account.class, id));
+    }
+
+    /**
+     * Recomputes every account balance from the ledger in a single set-based statement.
+     * <p>
+     * Each balance becomes the sum of the amounts the account received minus the sum of the
+     * amounts it sent, so this assumes {@code t_transaction} holds the full history of every account.
+     * Callers must evict the {@link Account} cache region once the transaction commits.
+     * </p>
+     *
+     * @param session the session whose transaction the update joins.
+     * @return the number of updated accounts.
+     */
+    public static int recomputeBalances(SharedSessionContract session) {
+        return session.createNativeMutationQuery("""
+                UPDATE t_account SET version = version + 1, balance =
+                    COALESCE((SELECT SUM(t.amount) FROM t_transaction t WHERE t.receiver = t_account.id), 0)
+                  - COALESCE((SELECT SUM(t.amount) FROM t_transaction t WHERE t.sender = t_account.id), 0)
+                """).executeUpdate();
     }
 
     /**
@@ -75,10 +243,7 @@ public class AccountRepository {
      * @param account the account to save or update.
      */
     public static void save(Account account) {
-        Session session = getSession();
-        session.beginTransaction();
-
-        try {
+        UnitOfWork.run(session -> {
             // Save or update the associated user
             User user = account.getUser();
             if (user != null) {
@@ -95,14 +260,22 @@ public class AccountRepository {
                 session.persist(account);
             else
                 session.merge(account);
+        });
+    }
 
-            session.getTransaction().commit();
-        } catch (Exception e) {
-            session.getTransaction().rollback();
-            throw e;
-        } finally {
-            session.close();
-        }
+    /**
+     * Replaces the password hash of an account.
+     * The account is updated through the persistence context, so its cached copy is refreshed as well.
+     *
+     * @param id the ID of the account.
+     * @param hash the new password hash.
+     */
+    public static void updatePassword(Long id, String hash) {
+        UnitOfWork.run(session -> {
+            Account account = session.find(Account.class, id);
+            if (account != null)
+                account.setPassword(hash);
+        });
     }
 
     /**
@@ -111,14 +284,11 @@ public class AccountRepository {
      * @param id the ID of the account to delete.
      */
     public static void delete(Long id) {
-        Session session = getSession();
-        session.beginTransaction();
-
-        Account account = session.get(Account.class, id);
-        if (account != null)
-            session.remove(account);
-
-        session.getTransaction().commit();
+        UnitOfWork.run(session -> {
+            Account account = session.get(Account.class, id);
+            if (account != null)
+                session.remove(account);
+        });
     }
 
     /**
@@ -127,9 +297,7 @@ public class AccountRepository {
      * @return a list of all accounts.
      */
     public static List<Account> list() {
-        Session session = getSession();
-
-        return session.createQuery("FROM Account", Account.class).list();
+        return UnitOfWork.execute(session -> session.createQuery("FROM Account", Account.class).list());
     }
 
     /**
@@ -0,0 +1,18 @@
+package br.com.compass.bank.repository;
+
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.TransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A raw ledger row, as read from an external statement file before it becomes a {@link br.com.compass.bank.model.Transaction}.
+ * Accounts are referenced by ID only, so importing a record never loads an entity.
+ *
+ * @param type      the type of the transaction.
+ * @param sender    the ID of the sending account, or null for deposits.
+ * @param receiver  the ID of the receiving account, or null for withdrawals.
+ * @param amount    the amount of money involved.
+ * @param timestamp when the transaction occurred.
+ */
+public record LedgerRecord(TransactionType type, Long sender, Long receiver, Money amount, LocalDateTime timestamp) {}
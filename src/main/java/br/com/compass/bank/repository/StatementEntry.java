@@ -0,0 +1,21 @@
+package br.com.compass.bank.repository;
+
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.TransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A read-only line of an account statement.
+ * <p>
+ * Entries are projected straight from {@code t_transaction} columns, so building a statement
+ * never loads the related {@link br.com.compass.bank.model.Account} or {@link br.com.compass.bank.model.User} entities.
+ * </p>
+ *
+ * @param id        the ID of the transaction.
+ * @param type      the type of the transaction.
+ * @param amount    the amount of money involved.
+ * @param timestamp when the transaction occurred.
+ * @param received  true if the statement's account received the money, false if it sent it.
+ */
+public record StatementEntry(Long id, TransactionType type, Money amount, LocalDateTime timestamp, boolean received) {}
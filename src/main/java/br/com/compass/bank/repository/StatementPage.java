@@ -0,0 +1,30 @@
+package br.com.compass.bank.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A page of an account statement, ordered from the newest to the oldest transaction.
+ *
+ * @param entries the statement entries in this page.
+ * @param next    the cursor to fetch the following page, or null if this is the last page.
+ */
+public record StatementPage(List<StatementEntry> entries, Cursor next) {
+
+    /**
+     * Position of the last transaction of a page, used as the keyset for the next page.
+     *
+     * @param timestamp the timestamp of the last transaction returned.
+     * @param id        the ID of the last transaction returned, used to break timestamp ties.
+     */
+    public record Cursor(LocalDateTime timestamp, Long id) {}
+
+    /**
+     * Checks whether there are older transactions after this page.
+     *
+     * @return true if another page can be fetched with {@link #next()}.
+     */
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -1,50 +1,53 @@
 package br.com.compass.bank.repository;
 
+import br.com.compass.bank.exception.transaction.TransactionException;
 import br.com.compass.bank.internal.DatabaseConnection;
+import br.com.compass.bank.internal.LongLongMap;
+import br.com.compass.bank.internal.UnitOfWork;
 import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.Money;
 import br.com.compass.bank.model.Transaction;
 import br.com.compass.bank.model.TransactionType;
 
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
 
-import java.math.BigDecimal;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class TransactionRepository {
 
     // Hibernate SessionFactory to manage session creation
     private static final SessionFactory factory = DatabaseConnection.getFactory();
 
-    // ThreadLocal to store a Session for the current thread
-    private static final ThreadLocal<Session> context = new ThreadLocal<>();
+    // Target table and column order of the PostgreSQL bulk import
+    private static final String COPY_SQL = "COPY t_transaction (id, type, sender, receiver, amount, timestamp) FROM STDIN WITH (FORMAT csv)";
 
-    /**
-     * Gets the current Hibernate session. Creates a new one if none exists for the current thread.
-     *
-     * @return the current Hibernate session.
-     */
-    private static Session getSession() {
-        Session session = context.get();
-        if (session == null || !session.isOpen()) {
-            session = factory.openSession();
-            context.set(session);
-        }
+    // Number of rows sent per COPY command during a bulk import
+    private static final int COPY_CHUNK_ROWS = 10_000;
 
-        return session;
-    }
-
-    /**
-     * Closes the current Hibernate session.
-     */
-    private static void closeSession() {
-        Session session = context.get();
-        if (session != null && session.isOpen())
-            session.close();
+    // Number of rows fetched per round trip when streaming an account's transactions
+    private static final int EXPORT_FETCH_SIZE = Integer.getInteger("bank.export.fetch_size", 1_000);
 
-        context.remove();
-    }
+    // Every transaction of an account in ledger order, projected without loading the related accounts
+    private static final String EXPORT_HQL = "SELECT new br.com.compass.bank.repository.LedgerRecord(t.type, t.sender.id, t.receiver.id, t.amount, t.timestamp) "
+            + "FROM Transaction t WHERE t.sender.id = :id OR t.receiver.id = :id ORDER BY t.timestamp, t.id";
 
     /**
      * Finds all transactions for a particular account, either as sender or receiver.
@@ -53,11 +56,9 @@ public class TransactionRepository {
      * @return a list of transactions for the specified account, either as sender or receiver.
      */
     public static List<Transaction> findByAccount(Account account) {
-        Session session = getSession();
-
-        return session.createQuery("FROM Transaction t WHERE t.sender = :account OR t.receiver = :account", Transaction.class)
+        return UnitOfWork.execute(session -> session.createQuery("FROM Transaction t WHERE t.sender = :account OR t.receiver = :account", Transaction.class)
                 .setParameter("account", account)
-                .list();
+                .list());
     }
 
     /**
@@ -67,11 +68,9 @@ public class TransactionRepository {
      * @return a list of transactions where the account is the sender.
      */
     public static List<Transaction> findBySender(Account account) {
-        Session session = getSession();
-
-        return session.createQuery("FROM Transaction t WHERE t.sender = :account", Transaction.class)
+        return UnitOfWork.execute(session -> session.createQuery("FROM Transaction t WHERE t.sender = :account", Transaction.class)
                 .setParameter("account", account)
-                .list();
+                .list());
     }
 
     /**
@@ -81,11 +80,139 @@ public class TransactionRepository {
      * @return a list of transactions where the account is the receiver.
      */
     public static List<Transaction> findByReceiver(Account account) {
-        Session session = getSession();
-
-        return session.createQuery("FROM Transaction t WHERE t.receiver = :account", Transaction.class)
+        return UnitOfWork.execute(session -> session.createQuery("FROM Transaction t WHERE t.receiver = :account", Transaction.class)
                 .setParameter("account", account)
-                .list();
+                .list());
+    }
+
+    /**
+     * Streams every transaction of an account, oldest first, to a consumer.
+     * <p>
+     * Rows are projected into {@link LedgerRecord}s and read through a forward-only {@link ScrollableResults}
+     * of a {@link StatelessSession}, {@link #EXPORT_FETCH_SIZE} rows per round trip, so neither the persistence
+     * context nor the result list grows with the history. The read runs in its own database transaction,
+     * which PostgreSQL requires to honor the fetch size instead of buffering the whole result.
+     * </p>
+     *
+     * @param accountId the ID of the account, as sender or receiver.
+     * @param consumer receives each record in order; it must not keep a reference to the records if memory matters.
+     * @return the number of streamed records.
+     */
+    public static long scrollByAccount(Long accountId, Consumer<LedgerRecord> consumer) {
+        try (StatelessSession session = factory.openStatelessSession()) {
+            session.beginTransaction();
+
+            try (ScrollableResults<LedgerRecord> rows = session.createQuery(EXPORT_HQL, LedgerRecord.class)
+                    .setParameter("id", accountId)
+                    .setFetchSize(EXPORT_FETCH_SIZE)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                long count = 0;
+                while (rows.next()) {
+                    consumer.accept(rows.get());
+                    count++;
+                }
+
+                session.getTransaction().commit();
+                return count;
+            } catch (RuntimeException e) {
+                session.getTransaction().rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Fetches one page of an account statement, newest transactions first.
+     * <p>
+     * Pages are addressed by keyset on {@code (timestamp, id)} rather than by offset, so every page
+     * costs the same no matter how deep into the history it is. The sender and receiver sides are
+     * queried separately, each walking its own {@code (account, timestamp)} index, and merged here.
+     * Rows are projected into {@link StatementEntry} records, so no account or user is loaded.
+     * </p>
+     *
+     * @param account the account whose statement is requested.
+     * @param after the cursor returned with the previous page, or null for the first page.
+     * @param from the inclusive lower bound of the period, or null for no lower bound.
+     * @param to the exclusive upper bound of the period, or null for no upper bound.
+     * @param size the maximum number of transactions in the page.
+     * @return the requested {@link StatementPage}.
+     */
+    public static StatementPage findStatement(Account account, StatementPage.Cursor after, LocalDateTime from, LocalDateTime to, int size) {
+        return UnitOfWork.execute(session -> {
+            List<StatementEntry> sent = findStatementSide(session, false, account, after, from, to, size + 1);
+            List<StatementEntry> received = findStatementSide(session, true, account, after, from, to, size + 1);
+
+            // Merge both sides, which are already sorted newest first
+            List<StatementEntry> merged = new ArrayList<>(Math.min(size + 1, sent.size() + received.size()));
+            int i = 0, j = 0;
+            while (merged.size() <= size && (i < sent.size() || j < received.size())) {
+                if (j == received.size() || (i < sent.size() && isNewer(sent.get(i), received.get(j))))
+                    merged.add(sent.get(i++));
+                else
+                    merged.add(received.get(j++));
+            }
+
+            if (merged.size() <= size)
+                return new StatementPage(merged, null);
+
+            List<StatementEntry> page = merged.subList(0, size);
+            StatementEntry last = page.get(size - 1);
+            return new StatementPage(page, new StatementPage.Cursor(last.timestamp(), last.id()));
+        });
+    }
+
+    /**
+     * Queries one side (sent or received) of an account statement.
+     *
+     * @param session the session used to run the query.
+     * @param received true to query the transactions received by the account, false for the ones it sent.
+     * @param account the account whose statement is requested.
+     * @param after the keyset of the previous page, or null for the first page.
+     * @param from the inclusive lower bound of the period, or null.
+     * @param to the exclusive upper bound of the period, or null.
+     * @param limit the maximum number of rows to fetch.
+     * @return the matching statement entries, newest first.
+     */
+    private static List<StatementEntry> findStatementSide(Session session, boolean received, Account account, StatementPage.Cursor after,
+                                                          LocalDateTime from, LocalDateTime to, int limit) {
+        StringBuilder hql = new StringBuilder("SELECT new br.com.compass.bank.repository.StatementEntry(t.id, t.type, t.amount, t.timestamp, ")
+                .append(received)
+                .append(") FROM Transaction t WHERE t.")
+                .append(received ? "receiver" : "sender")
+                .append(".id = :account");
+        if (after != null)
+            hql.append(" AND (t.timestamp < :timestamp OR (t.timestamp = :timestamp AND t.id < :id))");
+        if (from != null)
+            hql.append(" AND t.timestamp >= :from");
+        if (to != null)
+            hql.append(" AND t.timestamp < :to");
+        hql.append(" ORDER BY t.timestamp DESC, t.id DESC");
+
+        var query = session.createQuery(hql.toString(), StatementEntry.class)
+                .setParameter("account", account.getId())
+                .setReadOnly(true)
+                .setMaxResults(limit);
+
+        if (after != null)
+            query.setParameter("timestamp", after.timestamp()).setParameter("id", after.id());
+        if (from != null)
+            query.setParameter("from", from);
+        if (to != null)
+            query.setParameter("to", to);
+
+        return query.list();
+    }
+
+    /**
+     * Compares two statement entries by {@code (timestamp, id)}.
+     *
+     * @param first the first entry.
+     * @param second the second entry.
+     * @return true if the first entry comes before the second in a newest-first statement.
+     */
+    private static boolean isNewer(StatementEntry first, StatementEntry second) {
+        int compare = first.timestamp().compareTo(second.timestamp());
+        return compare > 0 || (compare == 0 && first.id() > second.id());
     }
 
     /**
@@ -94,77 +221,411 @@ public class TransactionRepository {
      * @param transaction the transaction to save.
      */
     public static void save(Transaction transaction) {
-        Session session = getSession();
-        session.beginTransaction();
-
-        try {
+        UnitOfWork.run(session -> {
             if (transaction.getId() == null || session.find(Transaction.class, transaction.getId()) == null)
                 session.persist(transaction);
             else
                 session.merge(transaction);
+        });
+    }
+
+    /**
+     * Inserts many transactions in a single database transaction.
+     * <p>
+     * Ids come from the pooled sequence, so Hibernate can group the inserts into JDBC batches of
+     * {@code hibernate.jdbc.batch_size} rows. The unit of work session is flushed and cleared after every
+     * batch to keep the persistence context, and therefore the heap, small regardless of the input size,
+     * so entities loaded earlier in the same unit of work become detached.
+     * </p>
+     *
+     * @param transactions the transactions to insert; the referenced accounts must already exist.
+     * @return the number of inserted transactions.
+     */
+    public static int saveAll(Iterable<Transaction> transactions) {
+        int batchSize = batchSize();
+
+        return UnitOfWork.execute(session -> {
+            int count = 0;
+            for (Transaction transaction : transactions) {
+                session.persist(transaction);
+
+                if (++count % batchSize == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+
+            return count;
+        });
+    }
+
+    /**
+     * Inserts ledger records replayed from a journal, in a single database transaction.
+     * <p>
+     * The records carry consecutive journal sequence numbers, starting at {@code firstSequence}, which are
+     * stored with each row so {@link #findLastJournalSequence()} can tell where the replay stopped.
+     * Balances are not touched: the journal only carries the ledger.
+     * </p>
+     *
+     * @param records the records, in journal order; the referenced accounts must already exist.
+     * @param firstSequence the journal sequence number of the first record.
+     * @return the number of inserted transactions.
+     */
+    public static int saveJournaled(List<LedgerRecord> records, long firstSequence) {
+        int batchSize = batchSize();
+
+        return UnitOfWork.execute(session -> {
+            for (int i = 0; i < records.size(); i++) {
+                LedgerRecord record = records.get(i);
+
+                session.persist(Transaction.builder()
+                        .sender(record.sender() == null ? null : session.getReference(Account.class, record.sender()))
+                        .receiver(record.receiver() == null ? null : session.getReference(Account.class, record.receiver()))
+                        .type(record.type())
+                        .amount(record.amount())
+                        .timestamp(record.timestamp())
+                        .journalSequence(firstSequence + i)
+                        .build());
+
+                if ((i + 1) % batchSize == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+
+            return records.size();
+        });
+    }
+
+    /**
+     * Finds the highest journal sequence number replayed into the ledger.
+     *
+     * @return the last replayed sequence number, or 0 if nothing was replayed yet.
+     */
+    public static long findLastJournalSequence() {
+        return UnitOfWork.execute(session -> session.createQuery("SELECT MAX(t.journalSequence) FROM Transaction t", Long.class)
+                .uniqueResultOptional()
+                .orElse(0L));
+    }
+
+    /**
+     * Imports ledger records in bulk, bypassing the persistence context.
+     * <p>
+     * On PostgreSQL the rows are streamed with {@code COPY ... FROM STDIN} through the driver's
+     * {@link CopyManager}, in chunks whose ids are reserved from the pooled sequence beforehand.
+     * On other databases they are inserted through a {@link StatelessSession} in JDBC batches.
+     * Once every row is in, account balances are recomputed from the ledger in one set-based
+     * statement, and the whole import commits or rolls back as a single database transaction.
+     * The stateless session is opened here rather than joined from a {@link UnitOfWork}, since a bulk
+     * import is a business operation of its own and must not fill a persistence context.
+     * </p>
+     *
+     * @param records the records to import, consumed lazily; the referenced accounts must already exist.
+     * @return the number of imported records.
+     */
+    public static long importAll(Iterator<LedgerRecord> records) {
+        try (StatelessSession session = factory.openStatelessSession()) {
+            session.setJdbcBatchSize(batchSize());
+            session.beginTransaction();
 
-            session.getTransaction().commit();
-        } catch (Exception e) {
-            session.getTransaction().rollback();
-            throw e;
-        } finally {
-            session.close();
+            try {
+                boolean postgres = session.doReturningWork(connection -> connection.isWrapperFor(PGConnection.class));
+                long count = postgres ? copy(session, records) : insert(session, records);
+
+                AccountRepository.recomputeBalances(session);
+                session.getTransaction().commit();
+
+                // Every balance may have changed, so the cached accounts are stale
+                factory.getCache().evictEntityData(Account.class);
+                return count;
+            } catch (Exception e) {
+                session.getTransaction().rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Streams ledger records into {@code t_transaction} with PostgreSQL's {@code COPY} command.
+     *
+     * @param session the stateless session whose connection and transaction are used.
+     * @param records the records to copy.
+     * @return the number of copied records.
+     */
+    private static long copy(StatelessSession session, Iterator<LedgerRecord> records) {
+        SharedSessionContractImplementor implementor = (SharedSessionContractImplementor) session;
+        IdentifierGenerator generator = (IdentifierGenerator) factory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(Transaction.class)
+                .getGenerator();
+
+        StringBuilder chunk = new StringBuilder(COPY_CHUNK_ROWS * 64);
+        long count = 0;
+
+        while (records.hasNext()) {
+            // Ids are reserved before the COPY starts, since the connection is busy while it runs
+            chunk.setLength(0);
+            for (int rows = 0; rows < COPY_CHUNK_ROWS && records.hasNext(); rows++) {
+                LedgerRecord record = records.next();
+
+                chunk.append(generator.generate(implementor, null)).append(',')
+                        .append(record.type().name()).append(',')
+                        .append(record.sender() == null ? "" : record.sender()).append(',')
+                        .append(record.receiver() == null ? "" : record.receiver()).append(',')
+                        .append(record.amount()).append(',')
+                        .append(record.timestamp()).append('\n');
+            }
+
+            count += session.doReturningWork(connection -> {
+                try {
+                    return connection.unwrap(PGConnection.class)
+                            .getCopyAPI()
+                            .copyIn(COPY_SQL, new StringReader(chunk.toString()));
+                } catch (IOException e) {
+                    throw new SQLException("Failed to stream ledger records", e);
+                }
+            });
         }
+
+        return count;
+    }
+
+    /**
+     * Inserts ledger records through a stateless session, letting Hibernate group them into JDBC batches.
+     *
+     * @param session the stateless session used for the inserts.
+     * @param records the records to insert.
+     * @return the number of inserted records.
+     */
+    private static long insert(StatelessSession session, Iterator<LedgerRecord> records) {
+        long count = 0;
+
+        while (records.hasNext()) {
+            LedgerRecord record = records.next();
+
+            session.insert(Transaction.builder()
+                    .sender(reference(record.sender()))
+                    .receiver(reference(record.receiver()))
+                    .type(record.type())
+                    .amount(record.amount())
+                    .timestamp(record.timestamp())
+                    .build());
+            count++;
+        }
+
+        // Stateless sessions do not flush, so the last partial batch has to be sent explicitly
+        ((SharedSessionContractImplementor) session).getJdbcCoordinator().executeBatch();
+        return count;
+    }
+
+    /**
+     * Builds an account stub that only carries the ID, used as a foreign key by stateless inserts.
+     * A version is set so Hibernate treats the stub as an existing (detached) account.
+     *
+     * @param id the ID of the account, or null.
+     * @return the account stub, or null if the ID is null.
+     */
+    private static Account reference(Long id) {
+        return (id == null) ? null : Account.builder().id(id).version(0L).build();
     }
 
     /**
      * Performs a withdrawal transaction on an account.
+     * <p>
+     * The balance is debited by a single conditional {@code UPDATE} and the ledger entry is written
+     * in the same database transaction, without loading the account entity.
+     * </p>
      *
      * @param from the account from which funds are withdrawn.
      * @param amount the amount to withdraw.
+     * @return the persisted withdrawal transaction.
+     * @throws TransactionException if the account does not exist or has insufficient funds.
      */
-    public static void withdraw(Account from, BigDecimal amount) {
-        Transaction transaction = Transaction.builder()
-                .sender(from)
-                .receiver(null)
-                .type(TransactionType.WITHDRAWAL)
-                .amount(amount)
-                .timestamp(LocalDateTime.now())
-                .build();
+    public static Transaction withdraw(Account from, Money amount) {
+        return UnitOfWork.execute(session -> {
+            Money balance = debit(from.getId(), amount, "The account with ID " + from.getId() + " does not exist.");
+            Transaction transaction = record(session, TransactionType.WITHDRAWAL, from.getId(), null, amount);
 
-        save(transaction);
+            from.setBalance(balance);
+            return transaction;
+        });
     }
 
     /**
      * Performs a deposit transaction on an account.
+     * <p>
+     * The balance is credited by a single {@code UPDATE} and the ledger entry is written
+     * in the same database transaction, without loading the account entity.
+     * </p>
      *
      * @param to the account to which funds are deposited.
      * @param amount the amount to deposit.
+     * @return the persisted deposit transaction.
+     * @throws TransactionException if the account does not exist.
      */
-    public static void deposit(Account to, BigDecimal amount) {
-        Transaction transaction = Transaction.builder()
-                .sender(null)
-                .receiver(to)
-                .type(TransactionType.DEPOSIT)
-                .amount(amount)
-                .timestamp(LocalDateTime.now())
-                .build();
+    public static Transaction deposit(Account to, Money amount) {
+        return UnitOfWork.execute(session -> {
+            Money balance = credit(to.getId(), amount, "The account with ID " + to.getId() + " does not exist.");
+            Transaction transaction = record(session, TransactionType.DEPOSIT, null, to.getId(), amount);
 
-        save(transaction);
+            to.setBalance(balance);
+            return transaction;
+        });
     }
 
     /**
      * Performs a transfer transaction between two accounts.
+     * <p>
+     * The debit, the credit and the ledger entry are written in a single database transaction.
+     * Each balance is changed by one {@code UPDATE}, which also locks the row; the two rows are
+     * updated in ascending ID order, so concurrent transfers touching the same accounts are
+     * serialized and can never deadlock each other.
+     * </p>
      *
      * @param from the account from which funds are withdrawn.
      * @param to the account to which funds are deposited.
      * @param amount the amount to transfer.
+     * @return the persisted transfer transaction.
+     * @throws TransactionException if one of the accounts no longer exists or the source account has insufficient funds.
      */
-    public static void transfer(Account from, Account to, BigDecimal amount) {
+    public static Transaction transfer(Account from, Account to, Money amount) {
+        return UnitOfWork.execute(session -> {
+            Money sender, receiver;
+            if (from.getId() < to.getId()) {
+                sender = debit(from.getId(), amount, "Source account does not exist.");
+                receiver = credit(to.getId(), amount, "Destination account does not exist.");
+            } else {
+                receiver = credit(to.getId(), amount, "Destination account does not exist.");
+                sender = debit(from.getId(), amount, "Source account does not exist.");
+            }
+
+            Transaction transaction = record(session, TransactionType.TRANSFER, from.getId(), to.getId(), amount);
+
+            // Keep the caller's copies in sync with the new balances
+            from.setBalance(sender);
+            to.setBalance(receiver);
+
+            return transaction;
+        });
+    }
+
+    /**
+     * Transfers amounts from one account to many accounts in a single database transaction.
+     * <p>
+     * Credits to the same receiver are summed, and every balance, the source's included, is changed by
+     * one JDBC batch of conditional updates in ascending ID order, see {@link AccountRepository#adjustBalances}.
+     * The source is therefore debited once, by the total of the batch. The ledger entries, one per item,
+     * are then inserted in JDBC batches of {@code hibernate.jdbc.batch_size} rows, flushing and clearing the
+     * unit of work session after each batch like {@link #saveAll}.
+     * </p>
+     *
+     * @param from  the source account.
+     * @param items the credits; the receivers must have passed the transfer rules.
+     * @return the new balance of the source account.
+     * @throws TransactionException if the source account has insufficient funds or an account no longer exists.
+     */
+    public static Money transferAll(Account from, List<TransferItem> items) {
+        int batchSize = batchSize();
+
+        return UnitOfWork.execute(session -> {
+            LongLongMap deltas = new LongLongMap(items.size());
+            long total = 0;
+            for (TransferItem item : items) {
+                deltas.add(item.receiver(), item.amount().cents());
+                total = Math.addExact(total, item.amount().cents());
+            }
+            deltas.add(from.getId(), -total);
+
+            long[] rejected = AccountRepository.adjustBalances(deltas);
+            if (rejected.length > 0) {
+                // Credits cannot overdraw, so a rejected receiver was deleted after validation
+                if (Arrays.binarySearch(rejected, from.getId()) < 0)
+                    throw new TransactionException("Destination account does not exist.");
+
+                Money available = AccountRepository.findBalance(from.getId())
+                        .orElseThrow(() -> new TransactionException("Source account does not exist."));
+                throw new TransactionException("Insufficient funds. Available balance: " + available);
+            }
+
+            LocalDateTime timestamp = LocalDateTime.now();
+            Account sender = session.getReference(Account.class, from.getId());
+            for (int i = 0; i < items.size(); i++) {
+                TransferItem item = items.get(i);
+
+                session.persist(Transaction.builder()
+                        .sender(sender)
+                        .receiver(session.getReference(Account.class, item.receiver()))
+                        .type(TransactionType.TRANSFER)
+                        .amount(item.amount())
+                        .timestamp(timestamp)
+                        .build());
+
+                if ((i + 1) % batchSize == 0) {
+                    session.flush();
+                    session.clear();
+                    sender = session.getReference(Account.class, from.getId());
+                }
+            }
+
+            Money balance = AccountRepository.findBalance(from.getId()).orElseThrow();
+            from.setBalance(balance);
+            return balance;
+        });
+    }
+
+    /**
+     * Subtracts an amount from an account balance, refusing to overdraw it.
+     *
+     * @param id the ID of the account.
+     * @param amount the amount to subtract.
+     * @param missing the message used when the account does not exist.
+     * @return the new balance.
+     * @throws TransactionException if the account does not exist or has insufficient funds.
+     */
+    private static Money debit(Long id, Money amount, String missing) {
+        return AccountRepository.adjustBalance(id, -amount.cents()).orElseThrow(() -> {
+            Money available = AccountRepository.findBalance(id)
+                    .orElseThrow(() -> new TransactionException(missing));
+
+            return new TransactionException("Insufficient funds. Available balance: " + available);
+        });
+    }
+
+    /**
+     * Adds an amount to an account balance.
+     *
+     * @param id the ID of the account.
+     * @param amount the amount to add.
+     * @param missing the message used when the account does not exist.
+     * @return the new balance.
+     * @throws TransactionException if the account does not exist.
+     */
+    private static Money credit(Long id, Money amount, String missing) {
+        return AccountRepository.adjustBalance(id, amount.cents())
+                .orElseThrow(() -> new TransactionException(missing));
+    }
+
+    /**
+     * Persists a ledger entry referencing the accounts by ID only.
+     *
+     * @param session the unit of work session.
+     * @param type the transaction type.
+     * @param sender the ID of the sending account, or null.
+     * @param receiver the ID of the receiving account, or null.
+     * @param amount the transaction amount.
+     * @return the persisted transaction.
+     */
+    private static Transaction record(Session session, TransactionType type, Long sender, Long receiver, Money amount) {
         Transaction transaction = Transaction.builder()
-                .sender(from)
-                .receiver(to)
-                .type(TransactionType.TRANSFER)
+                .sender(sender == null ? null : session.getReference(Account.class, sender))
+                .receiver(receiver == null ? null : session.getReference(Account.class, receiver))
+                .type(type)
                 .amount(amount)
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        save(transaction);
+        session.persist(transaction);
+        return transaction;
     }
 
     /**
@@ -173,9 +634,17 @@ public class TransactionRepository {
      * @return a list of all transactions.
      */
     public static List<Transaction> list() {
-        Session session = getSession();
+        return UnitOfWork.execute(session -> session.createQuery("FROM Transaction", Transaction.class).list());
+    }
 
-        return session.createQuery("FROM Transaction", Transaction.class).list();
+    /**
+     * Returns the configured JDBC batch size, falling back to the sequence allocation size.
+     *
+     * @return the number of statements sent per JDBC batch.
+     */
+    private static int batchSize() {
+        Integer configured = factory.unwrap(SessionFactoryImplementor.class).getSessionFactoryOptions().getJdbcBatchSize();
+        return (configured == null || configured < 1) ? 50 : configured;
     }
 
     /**
@@ -0,0 +1,12 @@
+package br.com.compass.bank.repository;
+
+import br.com.compass.bank.model.Money;
+
+/**
+ * One credit of a batch transfer, see {@link TransactionRepository#transferAll}.
+ * The receiving account is referenced by ID only, so a batch never loads the receiving entities.
+ *
+ * @param receiver the ID of the receiving account.
+ * @param amount   the amount to transfer.
+ */
+public record TransferItem(Long receiver, Money amount) {}
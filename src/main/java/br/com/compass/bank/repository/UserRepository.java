@@ -1,9 +1,9 @@
 package br.com.compass.bank.repository;
 
 import br.com.compass.bank.internal.DatabaseConnection;
+import br.com.compass.bank.internal.UnitOfWork;
 import br.com.compass.bank.model.User;
 
-import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 
 import java.util.List;
@@ -12,42 +12,13 @@ import java.util.Objects;
 /**
  * UserRepository provides CRUD operations for User entities using Hibernate.
  * It is responsible for interacting with the database to manage User data.
+ * Every operation runs in the current {@link UnitOfWork}, or in a new one if none is active.
  */
 public class UserRepository {
 
     // Hibernate SessionFactory to manage session creation
     private static final SessionFactory factory = DatabaseConnection.getFactory();
 
-    // ThreadLocal to store a Session for the current thread
-    private static final ThreadLocal<Session> context = new ThreadLocal<>();
-
-    /**
-     * Gets the current Hibernate session. Creates a new one if none exists for the current thread.
-     *
-     * @return the current Hibernate session.
-     */
-    private static Session getSession() {
-        Session session = context.get();
-        if (session == null || !session.isOpen()) {
-            session = factory.openSession();
-            context.set(session);
-        }
-
-        return session;
-    }
-
-    /**
-     * Closes the current Hibernate session.
-     * This method should be called after each operation to release resources.
-     */
-    private static void closeSession() {
-        Session session = context.get();
-        if (session != null && session.isOpen())
-            session.close();
-
-        context.remove();
-    }
-
     /**
      * Finds a user by their ID.
      *
@@ -55,9 +26,23 @@ public class UserRepository {
      * @return the User with the given ID, or null if not found.
      */
     public static User find(Long id) {
-        Session session = getSession();
+        return UnitOfWork.execute(session -> session.get(User.class, id));
+    }
 
-        return session.get(User.class, id);
+    /**
+     * Finds, in a single query, the users already registered with the given CPF or phone number.
+     * Since both columns are unique, at most two users can match.
+     *
+     * @param cpf the formatted CPF.
+     * @param phone the formatted phone number.
+     * @return the users holding the CPF or the phone number, or an empty list if both are free.
+     */
+    public static List<User> findByCpfOrPhone(String cpf, String phone) {
+        return UnitOfWork.execute(session -> session.createQuery("FROM User WHERE cpf = :cpf OR phone = :phone", User.class)
+                .setParameter("cpf", cpf)
+                .setParameter("phone", phone)
+                .setMaxResults(2)
+                .list());
     }
 
     /**
@@ -66,9 +51,7 @@ public class UserRepository {
      * @return a list of all users.
      */
     public static List<User> list() {
-        Session session = getSession();
-
-        return session.createQuery("FROM User", User.class).list();
+        return UnitOfWork.execute(session -> session.createQuery("FROM User", User.class).list());
     }
 
     /**
@@ -78,16 +61,13 @@ public class UserRepository {
      * @param user the user to save or update.
      */
     public static void save(User user) {
-        Session session = getSession();
-        session.beginTransaction();
-
-        // Check if the user exists in the database
-        if (user.getId() == null || Objects.isNull(session.find(User.class, user.getId())))
-            session.persist(user); // Insert new user
-        else
-            session.merge(user); // Update existing user
-
-        session.getTransaction().commit();
+        UnitOfWork.run(session -> {
+            // Check if the user exists in the database
+            if (user.getId() == null || Objects.isNull(session.find(User.class, user.getId())))
+                session.persist(user); // Insert new user
+            else
+                session.merge(user); // Update existing user
+        });
     }
 
     /**
@@ -96,15 +76,12 @@ public class UserRepository {
      * @param id the ID of the user to delete.
      */
     public static void delete(Long id) {
-        Session session = getSession();
-        session.beginTransaction();
-
-        // Find the user by ID and remove it
-        User user = session.get(User.class, id);
-        if (user != null)
-            session.remove(user);
-
-        session.getTransaction().commit();
+        UnitOfWork.run(session -> {
+            // Find the user by ID and remove it
+            User user = session.get(User.class, id);
+            if (user != null)
+                session.remove(user);
+        });
     }
 
     /**
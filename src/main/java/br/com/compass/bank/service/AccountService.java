@@ -1,19 +1,20 @@
 package br.com.compass.bank.service;
 
+import br.com.compass.bank.internal.PasswordHasher;
 import br.com.compass.bank.model.Account;
 import br.com.compass.bank.repository.AccountRepository;
-import br.com.compass.bank.repository.UserRepository;
-
-import org.mindrot.jbcrypt.BCrypt;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * The AccountService class provides methods to interact with accounts and perform various operations such as:
  * - Finding accounts by ID, CPF, or phone number.
- * - Formatting CPF and phone numbers into standard formats.
+ * - Formatting CPF and phone numbers into standard formats, or packing them into numeric keys.
  * - Hashing and verifying passwords using BCrypt.
  */
 public class AccountService {
@@ -38,12 +39,7 @@ public class AccountService {
      */
     public static List<Account> findByCpf(String cpf) {
         return AccountService.formatCpf(cpf)
-                .map(formattedCpf -> UserRepository.list().stream()
-                        .filter(u -> u.getCpf().equals(formattedCpf))
-                        .findFirst()
-                        .map(user -> AccountRepository.findByUser(user.getId()))
-                        .orElse(Collections.emptyList())
-                )
+                .map(AccountRepository::findByCpf)
                 .orElse(Collections.emptyList());
     }
 
@@ -55,63 +51,130 @@ public class AccountService {
      */
     public static List<Account> findByPhone(String phone) {
         return AccountService.formatPhone(phone)
-                .map(formattedPhone -> UserRepository.list().stream()
-                        .filter(u -> u.getPhone().equals(formattedPhone))
-                        .findFirst()
-                        .map(user -> AccountRepository.findByUser(user.getId()))
-                        .orElse(Collections.emptyList())
-                )
+                .map(AccountRepository::findByPhone)
                 .orElse(Collections.emptyList());
     }
 
     /**
-     * Formats a phone number into the Brazilian standard format.
+     * Formats a phone number into the Brazilian standard format (+55 (XX) XXXXX-XXXX).
+     * <p>
+     * Every non-digit character is ignored. The number must have the 11 national digits,
+     * optionally preceded by the country code 55.
+     * </p>
      *
      * @param phone the raw phone number input.
      * @return an {@link Optional} containing the formatted phone number, or an empty Optional if the input is invalid.
      */
     public static Optional<String> formatPhone(String phone) {
-        String cleaned = phone.replaceAll("[^0-9]", "");
-
-        if (cleaned.startsWith("55"))
-            cleaned = cleaned.substring(2);
-
-        return (cleaned.length() == 11)
-                ? Optional.of(String.format("+55 (%s) %s-%s",
-                    cleaned.substring(0, 2),
-                    cleaned.substring(2, 7),
-                    cleaned.substring(7)
-                ))
-                : Optional.empty();
+        char[] digits = phoneDigits(phone);
+        if (digits == null)
+            return Optional.empty();
+
+        char[] formatted = {'+', '5', '5', ' ', '(', digits[0], digits[1], ')', ' ',
+                digits[2], digits[3], digits[4], digits[5], digits[6], '-', digits[7], digits[8], digits[9], digits[10]};
+        return Optional.of(new String(formatted));
     }
 
     /**
      * Formats a CPF into the standard format (XXX.XXX.XXX-XX).
+     * Every non-digit character is ignored, and exactly 11 digits are required.
      *
      * @param cpf the raw CPF input.
      * @return an {@link Optional} containing the formatted CPF, or an empty Optional if the input is invalid.
      */
     public static Optional<String> formatCpf(String cpf) {
-        String cleaned = cpf.replaceAll("[^0-9]", "");
-
-        return (cleaned.length() == 11)
-                ? Optional.of(String.format("%s.%s.%s-%s",
-                    cleaned.substring(0, 3),
-                    cleaned.substring(3, 6),
-                    cleaned.substring(6, 9),
-                    cleaned.substring(9)
-                ))
-                : Optional.empty();
+        char[] digits = digits(cpf, 11);
+        if (digits == null || digits.length != 11)
+            return Optional.empty();
+
+        char[] formatted = {digits[0], digits[1], digits[2], '.', digits[3], digits[4], digits[5], '.',
+                digits[6], digits[7], digits[8], '-', digits[9], digits[10]};
+        return Optional.of(new String(formatted));
+    }
+
+    /**
+     * Packs the 11 digits of a CPF into a number, e.g. {@code 52998224725} for 529.982.247-25.
+     * Leading zeros are dropped, so the key must be formatted back with 11 digits.
+     * <p>
+     * The key identifies owners in memory, such as the transfer profiles of the
+     * {@link br.com.compass.bank.ledger.LedgerBook}. Database lookups use the indexed, formatted CPF.
+     * </p>
+     *
+     * @param cpf the raw or formatted CPF.
+     * @return an {@link OptionalLong} containing the numeric key, or an empty OptionalLong if the input is invalid.
+     */
+    public static OptionalLong cpfKey(String cpf) {
+        char[] digits = digits(cpf, 11);
+        return (digits == null || digits.length != 11) ? OptionalLong.empty() : OptionalLong.of(pack(digits));
+    }
+
+    /**
+     * Extracts the 11 national digits of a phone number, dropping the country code 55 if present.
+     *
+     * @param phone the raw phone number.
+     * @return the 11 digits, or null if the input is invalid.
+     */
+    private static char[] phoneDigits(String phone) {
+        char[] digits = digits(phone, 13);
+        if (digits == null)
+            return null;
+        if (digits.length == 11)
+            return digits;
+        if (digits.length == 13 && digits[0] == '5' && digits[1] == '5')
+            return Arrays.copyOfRange(digits, 2, 13);
+
+        return null;
+    }
+
+    /**
+     * Collects the ASCII digits of an input in a single pass, ignoring every other character.
+     *
+     * @param input the raw input.
+     * @param max the maximum number of digits accepted.
+     * @return the digits, or null if the input is null or has more than {@code max} digits.
+     */
+    private static char[] digits(String input, int max) {
+        if (input == null)
+            return null;
+
+        char[] digits = new char[max];
+        int count = 0;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9')
+                continue;
+            if (count == max)
+                return null;
+
+            digits[count++] = c;
+        }
+
+        return (count == max) ? digits : Arrays.copyOf(digits, count);
+    }
+
+    /**
+     * Packs decimal digits into a number.
+     *
+     * @param digits the digits, at most 18.
+     * @return the packed number.
+     */
+    private static long pack(char[] digits) {
+        long key = 0;
+        for (char digit : digits)
+            key = key * 10 + (digit - '0');
+
+        return key;
     }
 
     /**
-     * Hashes a password using the BCrypt algorithm.
+     * Hashes a password using the BCrypt algorithm, on the bounded {@link PasswordHasher} pool.
      *
      * @param password the plain text password to hash.
      * @return the hashed password.
+     * @throws RejectedExecutionException if too many password operations are already queued.
      */
     public static String hashPassword(String password) {
-        return BCrypt.hashpw(password, BCrypt.gensalt());
+        return PasswordHasher.DEFAULT.hash(password);
     }
 
     /**
@@ -120,9 +183,10 @@ public class AccountService {
      * @param originalPassword the plain text password to verify.
      * @param hashedPassword   the hashed password to compare against.
      * @return true if the password matches the hash, false otherwise.
+     * @throws RejectedExecutionException if too many password operations are already queued.
      */
     public static boolean verifyPassword(String originalPassword, String hashedPassword) {
-        return BCrypt.checkpw(originalPassword, hashedPassword);
+        return PasswordHasher.DEFAULT.verify(originalPassword, hashedPassword);
     }
 
 }
@@ -2,26 +2,32 @@ package br.com.compass.bank.service;
 
 import br.com.compass.bank.exception.account.AccountLoginException;
 import br.com.compass.bank.exception.account.AccountOpeningException;
+import br.com.compass.bank.internal.PasswordHasher;
+import br.com.compass.bank.internal.UnitOfWork;
 import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.User;
 import br.com.compass.bank.repository.AccountRepository;
+import br.com.compass.bank.repository.UserRepository;
 
-import lombok.Getter;
-import lombok.Setter;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * AuthService provides authentication and registration services for accounts.
  * It includes functionalities for registering new accounts and logging into existing ones.
+ * Logged-in accounts are tracked per session in the {@link SessionRegistry}, so many customers can be
+ * logged in at the same time.
  */
 public class AuthService {
 
-    /**
-     * Context class manages the current authenticated account.
-     * It allows storing and retrieving the currently logged-in account globally.
-     */
-    public static class Context {
-        @Getter @Setter
-        private static Account current;
-    }
+    // Stores upgraded password hashes, so the database writes never run on the hashing pool
+    private static final ExecutorService rehashWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rehash-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Registers a new account after performing validations and formatting.
@@ -31,8 +37,11 @@ public class AuthService {
      */
     public static void register(Account account) {
         // Hashes the password before storing it in the database
-        String hash = AccountService.hashPassword(account.getPassword());
-        account.setPassword(hash);
+        try {
+            account.setPassword(AccountService.hashPassword(account.getPassword()));
+        } catch (RejectedExecutionException e) {
+            throw new AccountOpeningException("The server is busy. Please try again in a moment.");
+        }
 
         // Formats and validates the phone number
         AccountService.formatPhone(account.getUser().getPhone()).ifPresentOrElse (
@@ -46,39 +55,81 @@ public class AuthService {
                 () -> { throw new AccountOpeningException("Invalid CPF format."); }
         );
 
-        // Checks if an account with the same CPF already exists
-        if (!AccountService.findByCpf(account.getUser().getCpf()).isEmpty())
-            throw new AccountOpeningException("An account has already been registered with the provided CPF.");
+        // The duplicate check and the insert share one unit of work, and therefore one session and connection
+        try {
+            UnitOfWork.run(session -> {
+                // Checks, in a single query, if the CPF or the phone number is already registered
+                List<User> registered = UserRepository.findByCpfOrPhone(account.getUser().getCpf(), account.getUser().getPhone());
+
+                if (registered.stream().anyMatch(user -> user.getCpf().equals(account.getUser().getCpf())))
+                    throw new AccountOpeningException("An account has already been registered with the provided CPF.");
 
-        // Checks if an account with the same phone number already exists
-        if (!AccountService.findByPhone(account.getUser().getPhone()).isEmpty())
-            throw new AccountOpeningException("An account has already been registered with the provided phone number.");
+                if (!registered.isEmpty())
+                    throw new AccountOpeningException("An account has already been registered with the provided phone number.");
 
-        // Saves the account in the repository, handling any exceptions
-        try {
-            AccountRepository.save(account);
+                AccountRepository.save(account);
+            });
+        } catch (AccountOpeningException e) {
+            throw e;
         } catch (Exception e) {
             throw new AccountOpeningException(e.getMessage());
         }
     }
 
     /**
-     * Authenticates an account using its ID and password.
+     * Authenticates an account using its ID and password and opens a session for it.
      *
      * @param id       the ID of the account to log into.
      * @param password the plain text password provided by the user.
+     * @return the token of the new session, used to resolve the account with {@link #current(String)}.
      * @throws AccountLoginException if the account does not exist or if the password is incorrect.
      */
-    public static void login(Long id, String password) {
+    public static String login(Long id, String password) {
         // Retrieves the account by ID, throws an exception if not found
         Account stored = AccountService.find(id)
                 .orElseThrow(() -> new AccountLoginException("Account not found."));
 
         // Verifies the password, throws an exception if incorrect
-        if (!AccountService.verifyPassword(password, stored.getPassword()))
-            throw new AccountLoginException("Incorrect password.");
+        try {
+            if (!AccountService.verifyPassword(password, stored.getPassword()))
+                throw new AccountLoginException("Incorrect password.");
+        } catch (RejectedExecutionException e) {
+            throw new AccountLoginException("The server is busy. Please try again in a moment.");
+        }
+
+        // Upgrades hashes made with a lower cost than the current one, in the background and only if the pool has room
+        if (PasswordHasher.DEFAULT.needsRehash(stored.getPassword()))
+            PasswordHasher.DEFAULT.hashLater(password, rehashWriter, hash -> AccountRepository.updatePassword(id, hash));
 
-        // Sets the current authenticated account in the context
-        Context.setCurrent(stored);
+        // Opens a session for the authenticated account
+        return SessionRegistry.DEFAULT.open(stored.getId());
+    }
+
+    /**
+     * Resolves the account authenticated in a session.
+     * <p>
+     * The account is loaded anew on every call, so each request works on its own instance and sees the
+     * current balance.
+     * </p>
+     *
+     * @param token the session token returned by {@link #login(Long, String)}.
+     * @return the authenticated account.
+     * @throws AccountLoginException if the session does not exist or has expired, or if the account no longer exists.
+     */
+    public static Account current(String token) {
+        Long id = SessionRegistry.DEFAULT.resolve(token)
+                .orElseThrow(() -> new AccountLoginException("Your session has expired. Please log in again."));
+
+        return AccountService.find(id)
+                .orElseThrow(() -> new AccountLoginException("Account not found."));
+    }
+
+    /**
+     * Ends a session.
+     *
+     * @param token the session token.
+     */
+    public static void logout(String token) {
+        SessionRegistry.DEFAULT.close(token);
     }
 }
@@ -0,0 +1,373 @@
+package br.com.compass.bank.service;
+
+import br.com.compass.bank.exception.transaction.TransactionException;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.AccountType;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.User;
+import br.com.compass.bank.repository.StatementEntry;
+import br.com.compass.bank.repository.StatementPage;
+import br.com.compass.bank.repository.TransactionRepository;
+import br.com.compass.bank.validation.InputValidator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BatchCommandService replays a file of account operations through the services, without the console.
+ * <p>
+ * The command file holds one comma-separated command per line; blank lines and lines starting with
+ * {@code #} are skipped. An account is referenced by its ID, or by the owner's CPF prefixed with
+ * {@code cpf:}, which resolves to the owner's checking account like the console transfer does.
+ * </p>
+ * <pre>
+ * open,&lt;cpf&gt;,&lt;phone&gt;,&lt;CHECKING|SAVINGS&gt;,&lt;password&gt;,&lt;name&gt;
+ * deposit,&lt;account&gt;,&lt;amount&gt;
+ * withdraw,&lt;account&gt;,&lt;amount&gt;
+ * transfer,&lt;from account&gt;,&lt;to account&gt;,&lt;amount&gt;
+ * statement,&lt;account&gt;[,&lt;size&gt;]
+ * </pre>
+ * <p>
+ * The file is streamed, and commands run on {@code parallelism} lanes of one thread each. A command goes
+ * to the lane of the account it opens, debits or reads, so commands on different accounts proceed in
+ * parallel. A transfer also waits for the previous command on its destination account, which may run
+ * in another lane, so every account sees its commands in file order, as long as the file refers to
+ * it consistently (always by ID or always by CPF). A command only ever waits for earlier commands, so
+ * lanes cannot deadlock. Results are written in file order, one {@code <line>\t<OK|ERROR>\t<detail>}
+ * line per command, with at most {@value #WINDOW_PER_LANE} commands per lane in flight, so memory use
+ * does not depend on the file size.
+ * </p>
+ */
+public class BatchCommandService {
+
+    // Maximum number of commands in flight per lane before the reader waits for the oldest result
+    private static final int WINDOW_PER_LANE = 256;
+
+    // Number of statement entries written when the command does not choose
+    private static final int STATEMENT_SIZE = 20;
+
+    // Prefix of an account reference holding the owner's CPF rather than the account ID
+    private static final String CPF_PREFIX = "cpf:";
+
+    /**
+     * Runs a command file and writes the result of every command to an output file.
+     *
+     * @param commands    the command file.
+     * @param output      the result file, replaced if it exists.
+     * @param parallelism the number of lanes running commands concurrently.
+     * @return the report of the run.
+     * @throws UncheckedIOException if a file cannot be read or written.
+     */
+    public static BatchReport run(Path commands, Path output, int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be at least 1.");
+
+        ExecutorService[] lanes = new ExecutorService[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            int lane = i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "batch-" + lane);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        long start = System.nanoTime();
+        long[] counts = new long[2];
+        ArrayDeque<Pending> window = new ArrayDeque<>();
+
+        // The last command in flight on each account, which the next command on the account waits for
+        Map<Long, Future<String>> last = new HashMap<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(commands, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            String text;
+            long line = 0;
+
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank() || text.startsWith("#"))
+                    continue;
+
+                long number = line;
+                String[] fields = text.split(",", -1);
+                for (int i = 0; i < fields.length; i++)
+                    fields[i] = fields[i].trim();
+
+                long[] keys = keys(fields);
+                Future<String> result;
+                if (keys.length == 0) {
+                    result = CompletableFuture.completedFuture(execute(number, fields));
+                } else {
+                    List<Future<String>> previous = new ArrayList<>(keys.length);
+                    for (long key : keys)
+                        if (last.containsKey(key))
+                            previous.add(last.get(key));
+
+                    result = lanes[(int) Long.remainderUnsigned(keys[0] * 0x9E3779B97F4A7C15L, parallelism)].submit(() -> {
+                        await(previous);
+                        return execute(number, fields);
+                    });
+                    for (long key : keys)
+                        last.put(key, result);
+                }
+                window.add(new Pending(result, keys));
+
+                if (window.size() >= WINDOW_PER_LANE * parallelism)
+                    write(writer, window.poll(), last, counts);
+            }
+
+            while (!window.isEmpty())
+                write(writer, window.poll(), last, counts);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to run the batch file " + commands, e);
+        } finally {
+            for (ExecutorService lane : lanes)
+                lane.shutdownNow();
+        }
+
+        return new BatchReport(counts[0], counts[1], parallelism, System.nanoTime() - start);
+    }
+
+    /**
+     * Waits for the oldest command in flight, writes its result and forgets it as the last command of its accounts.
+     */
+    private static void write(BufferedWriter writer, Pending pending, Map<Long, Future<String>> last, long[] counts) throws IOException {
+        String text;
+        try {
+            text = pending.result().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a batch command", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A batch command failed unexpectedly", e.getCause());
+        }
+
+        for (long key : pending.keys())
+            last.remove(key, pending.result());
+
+        counts[0]++;
+        if (text.contains("\tERROR\t"))
+            counts[1]++;
+
+        writer.write(text);
+        writer.newLine();
+    }
+
+    /**
+     * Waits for earlier commands, whatever their outcome.
+     */
+    private static void await(List<Future<String>> previous) throws InterruptedException {
+        for (Future<String> command : previous) {
+            try {
+                command.get();
+            } catch (ExecutionException ignored) {
+                // The failure is reported on the line of that command
+            }
+        }
+    }
+
+    /**
+     * Returns the keys of the accounts a command touches: the CPF of an opened account, or the reference of
+     * the account a command debits or reads, followed by the destination of a transfer. The first key
+     * chooses the lane running the command.
+     *
+     * @param fields the fields of the command.
+     * @return the account keys, or an empty array if the command is malformed and needs no lane.
+     */
+    private static long[] keys(String[] fields) {
+        OptionalLong first = (fields.length < 2) ? OptionalLong.empty()
+                : fields[0].equalsIgnoreCase("open") ? cpfKey(fields[1]) : key(fields[1]);
+        if (first.isEmpty())
+            return new long[0];
+
+        OptionalLong destination = (fields[0].equalsIgnoreCase("transfer") && fields.length > 2) ? key(fields[2]) : OptionalLong.empty();
+        return destination.isPresent() ? new long[] {first.getAsLong(), destination.getAsLong()} : new long[] {first.getAsLong()};
+    }
+
+    /**
+     * Maps an account reference to a key: the CPF key of a {@code cpf:} reference, the ID otherwise.
+     */
+    private static OptionalLong key(String reference) {
+        if (reference.startsWith(CPF_PREFIX))
+            return cpfKey(reference.substring(CPF_PREFIX.length()));
+
+        try {
+            return OptionalLong.of(Long.parseLong(reference));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Maps a CPF to a key. The packed CPF is complemented, so CPF keys are negative and never collide with account IDs.
+     */
+    private static OptionalLong cpfKey(String cpf) {
+        OptionalLong key = AccountService.cpfKey(cpf);
+        return key.isPresent() ? OptionalLong.of(~key.getAsLong()) : key;
+    }
+
+    /**
+     * Executes one command.
+     *
+     * @param line   the line number of the command.
+     * @param fields the fields of the command.
+     * @return the result line.
+     */
+    private static String execute(long line, String[] fields) {
+        try {
+            return line + "\tOK\t" + switch (fields[0].toLowerCase()) {
+                case "open" -> open(fields);
+                case "deposit" -> {
+                    arguments(fields, 3, 3);
+                    Account account = account(fields[1]);
+                    TransactionService.deposit(account, amount(fields[2]));
+                    yield "balance " + account.getBalance();
+                }
+                case "withdraw" -> {
+                    arguments(fields, 3, 3);
+                    Account account = account(fields[1]);
+                    TransactionService.withdraw(account, amount(fields[2]));
+                    yield "balance " + account.getBalance();
+                }
+                case "transfer" -> {
+                    arguments(fields, 4, 4);
+                    Account from = account(fields[1]);
+                    TransactionService.transfer(from, find(fields[2]).orElse(null), amount(fields[3]));
+                    yield "balance " + from.getBalance();
+                }
+                case "statement" -> {
+                    arguments(fields, 2, 3);
+                    yield statement(account(fields[1]), (fields.length == 3) ? (int) number("statement size", fields[2]) : STATEMENT_SIZE);
+                }
+                default -> throw new IllegalArgumentException("Unknown command: " + fields[0]);
+            };
+        } catch (RuntimeException e) {
+            return line + "\tERROR\t" + e.getMessage();
+        }
+    }
+
+    private static String open(String[] fields) {
+        arguments(fields, 6, 6);
+        validate(InputValidator.CPF, fields[1]);
+        validate(InputValidator.PHONE, fields[2]);
+        validate(InputValidator.PASSWORD, fields[4]);
+        validate(InputValidator.NAME, fields[5]);
+        if (!fields[3].equalsIgnoreCase("CHECKING") && !fields[3].equalsIgnoreCase("SAVINGS"))
+            throw new IllegalArgumentException("Invalid account type: " + fields[3] + ". Use CHECKING or SAVINGS.");
+
+        Account account = Account.builder()
+                .user(User.builder().cpf(fields[1]).phone(fields[2]).name(fields[5]).build())
+                .password(fields[4])
+                .type(AccountType.valueOf(fields[3].toUpperCase()))
+                .balance(Money.ZERO)
+                .build();
+        AuthService.register(account);
+
+        return "account " + account.getId();
+    }
+
+    private static String statement(Account account, int size) {
+        StatementPage page = TransactionRepository.findStatement(account, null, null, null, size);
+
+        StringBuilder result = new StringBuilder("balance ").append(account.getBalance());
+        for (StatementEntry entry : page.entries())
+            result.append("; ").append(entry.type()).append(' ')
+                    .append(entry.received() ? entry.amount() : entry.amount().negate()).append(' ')
+                    .append(entry.timestamp());
+
+        return result.toString();
+    }
+
+    /**
+     * Finds an account by ID, or the checking account of a {@code cpf:} reference (the owner's only account if it
+     * has no checking account).
+     */
+    private static Optional<Account> find(String reference) {
+        if (!reference.startsWith(CPF_PREFIX))
+            return AccountService.find(number("account ID", reference));
+
+        String cpf = reference.substring(CPF_PREFIX.length());
+        validate(InputValidator.CPF, cpf);
+        List<Account> accounts = AccountService.findByCpf(AccountService.formatCpf(cpf).orElse(cpf));
+        return accounts.stream().filter(account -> account.getType() == AccountType.CHECKING).findFirst()
+                .or(() -> accounts.stream().findFirst());
+    }
+
+    private static Account account(String reference) {
+        return find(reference).orElseThrow(() -> new TransactionException("The account " + reference + " does not exist."));
+    }
+
+    private static long number(String name, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static Money amount(String amount) {
+        try {
+            return Money.parse(amount);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid amount: " + amount);
+        }
+    }
+
+    private static void arguments(String[] fields, int min, int max) {
+        if (fields.length < min || fields.length > max)
+            throw new IllegalArgumentException("Expected " + (min == max ? String.valueOf(min - 1) : (min - 1) + " to " + (max - 1))
+                    + " arguments for " + fields[0] + ", found " + (fields.length - 1));
+    }
+
+    private static void validate(InputValidator validator, String input) {
+        Optional<Exception> error = validator.validate(input);
+        if (error.isPresent())
+            throw new IllegalArgumentException(error.get().getMessage());
+    }
+
+    /**
+     * A command in flight.
+     *
+     * @param result the future result line.
+     * @param keys   the keys of the accounts the command touches.
+     */
+    private record Pending(Future<String> result, long[] keys) {}
+
+    /**
+     * The report of a batch run.
+     *
+     * @param commands    the number of executed commands.
+     * @param failed      the number of commands that failed.
+     * @param parallelism the number of lanes.
+     * @param nanos       the duration of the run, in nanoseconds.
+     */
+    public record BatchReport(long commands, long failed, int parallelism, long nanos) {
+
+        /**
+         * Returns the throughput of the run.
+         *
+         * @return the number of commands per second.
+         */
+        public double commandsPerSecond() {
+            return (nanos == 0) ? 0 : commands * 1e9 / nanos;
+        }
+    }
+}
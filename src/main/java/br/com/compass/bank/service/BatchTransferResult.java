@@ -0,0 +1,33 @@
+package br.com.compass.bank.service;
+
+import br.com.compass.bank.model.Money;
+
+import java.util.List;
+
+/**
+ * The outcome of {@link TransactionService#transferAll}.
+ *
+ * @param transferred the number of items transferred.
+ * @param total       the amount debited from the source account.
+ * @param failures    the rejected items, in item order.
+ */
+public record BatchTransferResult(int transferred, Money total, List<Failure> failures) {
+
+    /**
+     * Checks whether every item of the batch was transferred.
+     *
+     * @return true if no item was rejected.
+     */
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * A rejected item of a batch transfer.
+     *
+     * @param index    the position of the item in the batch.
+     * @param receiver the ID of the receiving account of the item.
+     * @param reason   the error message a single transfer of the item would have raised.
+     */
+    public record Failure(int index, Long receiver, String reason) {}
+}
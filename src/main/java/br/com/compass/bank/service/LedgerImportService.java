@@ -0,0 +1,235 @@
+package br.com.compass.bank.service;
+
+import br.com.compass.bank.exception.transaction.TransactionException;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.TransactionType;
+import br.com.compass.bank.repository.LedgerRecord;
+import br.com.compass.bank.repository.TransactionRepository;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * LedgerImportService replays historical statements from other systems into the ledger.
+ * <p>
+ * Files are read as a stream, one record at a time, and handed to {@link TransactionRepository#importAll},
+ * so memory use does not depend on the file size. Two formats are supported:
+ * <ul>
+ *     <li>CSV ({@code .csv}) with the header {@code type,sender,receiver,amount,timestamp},
+ *         where an empty sender or receiver means no account.</li>
+ *     <li>NDJSON ({@code .ndjson} or {@code .jsonl}) with one object per line holding the same fields.</li>
+ * </ul>
+ * Timestamps use the ISO-8601 local date-time format (e.g. {@code 2024-01-31T10:15:30}).
+ * </p>
+ */
+public class LedgerImportService {
+
+    private static final String CSV_HEADER = "type,sender,receiver,amount,timestamp";
+
+    private static final JsonFactory json = new JsonFactory();
+
+    /**
+     * Imports a ledger file, choosing the format from its extension.
+     *
+     * @param file the CSV or NDJSON file to import.
+     * @return the number of imported transactions.
+     * @throws TransactionException if the file format is unknown, a record is invalid, or the import fails.
+     */
+    public static long importFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+
+        if (name.endsWith(".csv"))
+            return importCsv(file);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl"))
+            return importNdjson(file);
+
+        throw new TransactionException("Unsupported ledger file format: " + name);
+    }
+
+    /**
+     * Imports a CSV ledger file.
+     *
+     * @param file the CSV file to import.
+     * @return the number of imported transactions.
+     * @throws TransactionException if a record is invalid or the import fails.
+     */
+    public static long importCsv(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null || !header.trim().equalsIgnoreCase(CSV_HEADER))
+                throw new TransactionException("Invalid ledger header. Expected: " + CSV_HEADER);
+
+            return TransactionRepository.importAll(new CsvRecords(reader));
+        } catch (IOException | UncheckedIOException e) {
+            throw new TransactionException("Error reading ledger file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Imports an NDJSON ledger file.
+     *
+     * @param file the NDJSON file to import.
+     * @return the number of imported transactions.
+     * @throws TransactionException if a record is invalid or the import fails.
+     */
+    public static long importNdjson(Path file) {
+        try (JsonParser parser = json.createParser(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            return TransactionRepository.importAll(new JsonRecords(parser));
+        } catch (IOException | UncheckedIOException e) {
+            throw new TransactionException("Error reading ledger file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Builds and validates a ledger record from its raw fields.
+     *
+     * @param line      the line number, used in error messages.
+     * @param type      the transaction type name.
+     * @param sender    the sender account ID, or null/blank.
+     * @param receiver  the receiver account ID, or null/blank.
+     * @param amount    the amount.
+     * @param timestamp the ISO-8601 local date-time.
+     * @return the parsed record.
+     * @throws TransactionException if any field is invalid.
+     */
+    private static LedgerRecord record(long line, String type, String sender, String receiver, String amount, String timestamp) {
+        try {
+            LedgerRecord record = new LedgerRecord (
+                    TransactionType.valueOf(type.trim().toUpperCase()),
+                    (sender == null || sender.isBlank()) ? null : Long.valueOf(sender.trim()),
+                    (receiver == null || receiver.isBlank()) ? null : Long.valueOf(receiver.trim()),
+                    Money.parse(amount.trim()),
+                    LocalDateTime.parse(timestamp.trim())
+            );
+
+            if (!record.amount().isPositive())
+                throw new IllegalArgumentException("amount must be greater than zero");
+            if (record.sender() == null && record.receiver() == null)
+                throw new IllegalArgumentException("a sender or a receiver is required");
+
+            return record;
+        } catch (RuntimeException e) {
+            throw new TransactionException("Invalid ledger record at line " + line + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lazily parses the data lines of a CSV ledger file.
+     */
+    private static class CsvRecords implements Iterator<LedgerRecord> {
+
+        private final BufferedReader reader;
+        private String next;
+        private long line = 1;
+
+        CsvRecords(BufferedReader reader) {
+            this.reader = reader;
+            advance();
+        }
+
+        private void advance() {
+            try {
+                do {
+                    next = reader.readLine();
+                    line++;
+                } while (next != null && next.isBlank());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public LedgerRecord next() {
+            if (next == null)
+                throw new NoSuchElementException();
+
+            String[] fields = next.split(",", -1);
+            if (fields.length != 5)
+                throw new TransactionException("Invalid ledger record at line " + line + ": expected 5 fields, found " + fields.length);
+
+            LedgerRecord record = record(line, fields[0], fields[1], fields[2], fields[3], fields[4]);
+            advance();
+            return record;
+        }
+    }
+
+    /**
+     * Lazily parses the objects of an NDJSON ledger file.
+     */
+    private static class JsonRecords implements Iterator<LedgerRecord> {
+
+        private final JsonParser parser;
+        private JsonToken token;
+
+        JsonRecords(JsonParser parser) {
+            this.parser = parser;
+            advance();
+        }
+
+        private void advance() {
+            try {
+                token = parser.nextToken();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return token != null;
+        }
+
+        @Override
+        public LedgerRecord next() {
+            if (token == null)
+                throw new NoSuchElementException();
+
+            long line = parser.currentLocation().getLineNr();
+            if (token != JsonToken.START_OBJECT)
+                throw new TransactionException("Invalid ledger record at line " + line + ": expected a JSON object");
+
+            String type = null, sender = null, receiver = null, amount = null, timestamp = null;
+            try {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    String text = (value == JsonToken.VALUE_NULL) ? null : parser.getValueAsString();
+
+                    switch (field) {
+                        case "type" -> type = text;
+                        case "sender" -> sender = text;
+                        case "receiver" -> receiver = text;
+                        case "amount" -> amount = text;
+                        case "timestamp" -> timestamp = text;
+                        default -> parser.skipChildren();
+                    }
+                }
+            } catch (IOException e) {
+                throw new TransactionException("Invalid ledger record at line " + line + ": " + e.getMessage());
+            }
+
+            if (type == null || amount == null || timestamp == null)
+                throw new TransactionException("Invalid ledger record at line " + line + ": type, amount and timestamp are required");
+
+            LedgerRecord record = record(line, type, sender, receiver, amount, timestamp);
+            advance();
+            return record;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package br.com.compass.bank.service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * SessionRegistry keeps the ID of the authenticated account of every open session, keyed by an opaque token.
+ * Only the ID is held, never the {@link br.com.compass.bank.model.Account} itself, so requests sharing a session
+ * do not share a mutable entity.
+ * <p>
+ * Tokens are 256-bit random values encoded as URL-safe Base64, so they cannot be guessed from the
+ * account ID or from other tokens. A session expires once it has not been resolved for longer than the
+ * idle timeout: expired sessions are dropped when they are looked up, and swept in bulk every
+ * {@value #SWEEP_INTERVAL} opened sessions, so abandoned sessions do not accumulate.
+ * </p>
+ * <p>
+ * The default registry reads its idle timeout, in minutes, from the {@code bank.session.idle_timeout_minutes}
+ * system property.
+ * </p>
+ */
+public class SessionRegistry {
+
+    /**
+     * The registry used by the {@link AuthService}.
+     */
+    public static final SessionRegistry DEFAULT = new SessionRegistry(Duration.ofMinutes(Long.getLong("bank.session.idle_timeout_minutes", 15)));
+
+    // Number of opened sessions between two sweeps of expired sessions
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private static final SecureRandom random = new SecureRandom();
+    private static final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong opened = new AtomicLong();
+    private final long idleTimeoutNanos;
+    private final LongSupplier clock;
+
+    /**
+     * An open session and the last time it was used.
+     */
+    private static class Session {
+
+        private final long accountId;
+        private volatile long lastAccess;
+
+        Session(long accountId, long now) {
+            this.accountId = accountId;
+            this.lastAccess = now;
+        }
+    }
+
+    /**
+     * Creates a registry measuring idle time with {@link System#nanoTime()}.
+     *
+     * @param idleTimeout how long a session may go unused before it expires.
+     */
+    public SessionRegistry(Duration idleTimeout) {
+        this(idleTimeout, System::nanoTime);
+    }
+
+    /**
+     * Creates a registry with a custom clock.
+     *
+     * @param idleTimeout how long a session may go unused before it expires.
+     * @param clock       the monotonic clock, in nanoseconds.
+     */
+    SessionRegistry(Duration idleTimeout, LongSupplier clock) {
+        if (idleTimeout.isNegative() || idleTimeout.isZero())
+            throw new IllegalArgumentException("The session idle timeout must be positive.");
+
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Opens a session for an authenticated account.
+     *
+     * @param accountId the ID of the authenticated account.
+     * @return the token identifying the new session.
+     */
+    public String open(long accountId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = encoder.encodeToString(bytes);
+
+        sessions.put(token, new Session(accountId, clock.getAsLong()));
+
+        if (opened.incrementAndGet() % SWEEP_INTERVAL == 0)
+            evictExpired();
+
+        return token;
+    }
+
+    /**
+     * Resolves the account ID of a session and marks the session as used.
+     *
+     * @param token the session token.
+     * @return an {@link Optional} containing the account ID, or an empty Optional if the session does not exist or has expired.
+     */
+    public Optional<Long> resolve(String token) {
+        if (token == null)
+            return Optional.empty();
+
+        Session session = sessions.get(token);
+        if (session == null)
+            return Optional.empty();
+
+        long now = clock.getAsLong();
+        if (now - session.lastAccess > idleTimeoutNanos) {
+            sessions.remove(token, session);
+            return Optional.empty();
+        }
+
+        session.lastAccess = now;
+        return Optional.of(session.accountId);
+    }
+
+    /**
+     * Closes a session. Closing an unknown or expired session has no effect.
+     *
+     * @param token the session token.
+     */
+    public void close(String token) {
+        if (token != null)
+            sessions.remove(token);
+    }
+
+    /**
+     * Removes every expired session.
+     *
+     * @return the number of removed sessions.
+     */
+    public int evictExpired() {
+        long now = clock.getAsLong();
+        int removed = 0;
+
+        for (Iterator<Session> iterator = sessions.values().iterator(); iterator.hasNext(); ) {
+            if (now - iterator.next().lastAccess > idleTimeoutNanos) {
+                iterator.remove();
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Returns the number of sessions currently held, including expired ones not swept yet.
+     *
+     * @return the number of sessions.
+     */
+    public int size() {
+        return sessions.size();
+    }
+}
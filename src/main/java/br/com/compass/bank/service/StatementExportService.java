@@ -0,0 +1,154 @@
+package br.com.compass.bank.service;
+
+import br.com.compass.bank.exception.transaction.TransactionException;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.repository.LedgerRecord;
+import br.com.compass.bank.repository.TransactionRepository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * StatementExportService writes the full history of an account to a file, for customers and auditors.
+ * <p>
+ * Transactions are streamed from {@link TransactionRepository#scrollByAccount} and encoded straight into a
+ * fixed-size buffer that is drained to a {@link FileChannel}, so memory use does not depend on the history size.
+ * The formats are the ones read by {@link LedgerImportService}, oldest transaction first:
+ * <ul>
+ *     <li>CSV ({@code .csv}) with the header {@code type,sender,receiver,amount,timestamp}.</li>
+ *     <li>NDJSON ({@code .ndjson} or {@code .jsonl}) with one object per line holding the same fields.</li>
+ * </ul>
+ * Adding {@code .gz} to either extension (e.g. {@code statement.csv.gz}) compresses the file with gzip.
+ * </p>
+ */
+public class StatementExportService {
+
+    private static final String CSV_HEADER = "type,sender,receiver,amount,timestamp\n";
+
+    // Size of the buffer rows are encoded into, written to the file each time it fills up
+    static final int BUFFER_SIZE = 256 * 1024;
+
+    // Upper bound of an encoded row, the buffer is drained before a row could overflow it
+    private static final int MAX_ROW_SIZE = 256;
+
+    /**
+     * Exports every transaction of an account, choosing the format and compression from the file extension.
+     * An existing file is overwritten.
+     *
+     * @param account the account whose transactions are exported, as sender or receiver.
+     * @param file the CSV or NDJSON file to write, optionally ending with {@code .gz}.
+     * @return the number of exported transactions.
+     * @throws TransactionException if the file format is unknown or the file cannot be written.
+     */
+    public static long exportFile(Account account, Path file) {
+        try (RecordWriter writer = writer(file)) {
+            return TransactionRepository.scrollByAccount(account.getId(), writer);
+        } catch (IOException | UncheckedIOException e) {
+            throw new TransactionException("Error writing statement export: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens a record writer on a file, choosing the format and compression from its extension.
+     *
+     * @param file the file to write.
+     * @return the writer, which must be closed to flush the last rows.
+     * @throws IOException if the file cannot be opened.
+     * @throws TransactionException if the file format is unknown.
+     */
+    static RecordWriter writer(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        boolean gzip = name.endsWith(".gz");
+        String format = gzip ? name.substring(0, name.length() - 3) : name;
+
+        boolean ndjson;
+        if (format.endsWith(".csv"))
+            ndjson = false;
+        else if (format.endsWith(".ndjson") || format.endsWith(".jsonl"))
+            ndjson = true;
+        else
+            throw new TransactionException("Unsupported export file format: " + name);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        WritableByteChannel out = gzip ? Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)) : channel;
+        return new RecordWriter(out, ndjson);
+    }
+
+    /**
+     * Encodes ledger records as CSV or NDJSON rows into a reusable buffer, writing it to a channel whenever it fills up.
+     * Every field is plain ASCII (type names, numbers and ISO-8601 timestamps), so characters are stored as bytes directly.
+     */
+    static class RecordWriter implements Consumer<LedgerRecord>, Closeable {
+
+        private final WritableByteChannel out;
+        private final boolean ndjson;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        RecordWriter(WritableByteChannel out, boolean ndjson) {
+            this.out = out;
+            this.ndjson = ndjson;
+
+            if (!ndjson)
+                put(CSV_HEADER);
+        }
+
+        @Override
+        public void accept(LedgerRecord record) {
+            if (buffer.remaining() < MAX_ROW_SIZE)
+                drain();
+
+            if (ndjson) {
+                put("{\"type\":\"").put(record.type().name())
+                        .put("\",\"sender\":").put(record.sender() == null ? "null" : record.sender().toString())
+                        .put(",\"receiver\":").put(record.receiver() == null ? "null" : record.receiver().toString())
+                        .put(",\"amount\":\"").put(record.amount().toString())
+                        .put("\",\"timestamp\":\"").put(record.timestamp().toString())
+                        .put("\"}\n");
+            } else {
+                put(record.type().name()).put(",")
+                        .put(record.sender() == null ? "" : record.sender().toString()).put(",")
+                        .put(record.receiver() == null ? "" : record.receiver().toString()).put(",")
+                        .put(record.amount().toString()).put(",")
+                        .put(record.timestamp().toString()).put("\n");
+            }
+        }
+
+        private RecordWriter put(String text) {
+            for (int i = 0; i < text.length(); i++)
+                buffer.put((byte) text.charAt(i));
+            return this;
+        }
+
+        /**
+         * Writes the buffered rows to the channel and clears the buffer.
+         */
+        private void drain() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining())
+                    out.write(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
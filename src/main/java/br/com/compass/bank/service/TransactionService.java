@@ -1,17 +1,32 @@
 package br.com.compass.bank.service;
 
 import br.com.compass.bank.exception.transaction.TransactionException;
+import br.com.compass.bank.internal.AccountLocks;
+import br.com.compass.bank.internal.RetryPolicy;
 import br.com.compass.bank.model.Account;
 import br.com.compass.bank.model.AccountType;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.repository.AccountProfile;
 import br.com.compass.bank.repository.AccountRepository;
 import br.com.compass.bank.repository.TransactionRepository;
+import br.com.compass.bank.repository.TransferItem;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * TransactionService handles deposit, withdrawal, and transfer operations for accounts.
  * Provides validation to ensure all transactions are performed securely and accurately.
+ * Operations on the same account are serialized in-process by {@link AccountLocks#DEFAULT}, and
+ * operations that fail because of a conflicting concurrent update are retried by {@link RetryPolicy#DEFAULT}.
+ * Each attempt takes the account locks and releases them before backing off, so a retrying operation never
+ * stalls the other accounts sharing its lock stripes while it sleeps.
+ * Amounts are {@link Money} values, so validation and balance arithmetic work on plain {@code long} cents.
  */
 public class TransactionService {
 
@@ -22,22 +37,16 @@ public class TransactionService {
      * @param amount the amount to be deposited.
      * @throws TransactionException if the account does not exist or the amount is invalid.
      */
-    public static void deposit(Account to, BigDecimal amount) {
-        // Check if the account exists
-        if (AccountService.find(to.getId()).isEmpty())
-            throw new TransactionException("The account with ID " + to.getId() + " does not exist.");
-
+    public static void deposit(Account to, Money amount) {
         // Validate the deposit amount
-        if (amount.compareTo(BigDecimal.ZERO) <= 0)
-            throw new TransactionException("Deposit amount must be greater than zero.");
+        checkAmount("Deposit", amount);
 
         try {
-            // Update account balance and persist changes
-            to.setBalance(to.getBalance().add(amount));
-            AccountRepository.save(to);
-
-            // Log the deposit in the transaction repository
-            TransactionRepository.deposit(to, amount);
+            // Credit the balance in the database and log the deposit in the same transaction
+            RetryPolicy.DEFAULT.execute("deposit",
+                    () -> AccountLocks.DEFAULT.withLock(to.getId(), () -> TransactionRepository.deposit(to, amount)), to.getId());
+        } catch (TransactionException e) {
+            throw e;
         } catch (Exception e) {
             throw new TransactionException("Error during deposit: " + e.getMessage());
         }
@@ -50,26 +59,16 @@ public class TransactionService {
      * @param amount the amount to be withdrawn.
      * @throws TransactionException if the account does not exist, the amount is invalid, or funds are insufficient.
      */
-    public static void withdraw(Account from, BigDecimal amount) {
-        // Check if the account exists
-        if (AccountService.find(from.getId()).isEmpty())
-            throw new TransactionException("The account with ID " + from.getId() + " does not exist.");
-
+    public static void withdraw(Account from, Money amount) {
         // Validate the withdrawal amount
-        if (amount.compareTo(BigDecimal.ZERO) <= 0)
-            throw new TransactionException("Withdraw amount must be greater than zero.");
-
-        // Ensure sufficient funds are available
-        if (from.getBalance().compareTo(amount) < 0)
-            throw new TransactionException("Insufficient funds.");
+        checkAmount("Withdraw", amount);
 
         try {
-            // Update account balance and persist changes
-            from.setBalance(from.getBalance().subtract(amount));
-            AccountRepository.save(from);
-
-            // Log the withdrawal in the transaction repository
-            TransactionRepository.withdraw(from, amount);
+            // Debit the balance only if funds are sufficient and log the withdrawal in the same transaction
+            RetryPolicy.DEFAULT.execute("withdraw",
+                    () -> AccountLocks.DEFAULT.withLock(from.getId(), () -> TransactionRepository.withdraw(from, amount)), from.getId());
+        } catch (TransactionException e) {
+            throw e;
         } catch (Exception e) {
             throw new TransactionException("Error during withdraw: " + e.getMessage());
         }
@@ -83,53 +82,146 @@ public class TransactionService {
      * @param amount the amount to be transferred.
      * @throws TransactionException if any validation fails during the transfer process.
      */
-    public static void transfer(Account from, Account to, BigDecimal amount) {
+    public static void transfer(Account from, Account to, Money amount) {
         // Validate the transfer amount
-        if (amount.compareTo(BigDecimal.ZERO) <= 0)
-            throw new TransactionException("Transfer amount must be greater than zero.");
+        checkAmount("Transfer", amount);
+
+        // Validate the account types, the destination and the CPF rules
+        checkTransfer(from.getId(), from.getType(), to == null ? null : to.getId(), to == null ? null : to.getType(),
+                to != null && from.getUser().getCpf().equals(to.getUser().getCpf()));
+
+        try {
+            // Debit, credit and log the transfer atomically; the debit only applies if funds are sufficient
+            RetryPolicy.DEFAULT.execute("transfer",
+                    () -> AccountLocks.DEFAULT.withLocks(from.getId(), to.getId(), () -> TransactionRepository.transfer(from, to, amount)), from.getId(), to.getId());
+        } catch (TransactionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TransactionException("Error during transfer: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Transfers amounts from one account to many accounts, as in a payroll run.
+     * <p>
+     * Every item is checked against the same rules as {@link #transfer}, with the receivers' types and
+     * owners fetched by a single query, and the items are then funded in order from the source balance.
+     * The accepted items are applied by {@link TransactionRepository#transferAll} in one database
+     * transaction that debits the source once and inserts the ledger entries in JDBC batches.
+     * </p>
+     * <p>
+     * In atomic mode, any rejected item rejects the whole batch and nothing is transferred; otherwise
+     * the valid items are transferred and the others are reported. Either way, every rejected item is
+     * reported with the message a single transfer would have raised.
+     * </p>
+     *
+     * @param from   the source account.
+     * @param items  the credits, in funding order.
+     * @param atomic true to transfer all items or none, false to transfer the valid ones.
+     * @return the outcome of the batch.
+     * @throws TransactionException if the batch cannot be applied.
+     */
+    public static BatchTransferResult transferAll(Account from, List<TransferItem> items, boolean atomic) {
+        List<BatchTransferResult.Failure> failures = new ArrayList<>();
+
+        // Validate the amounts and the account rules of every item, fetching all receivers at once
+        Set<Long> receivers = new HashSet<>();
+        for (TransferItem item : items)
+            if (item.receiver() != null)
+                receivers.add(item.receiver());
+        Map<Long, AccountProfile> profiles = AccountRepository.findProfiles(receivers);
+
+        List<Integer> valid = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            TransferItem item = items.get(i);
+            AccountProfile to = (item.receiver() == null) ? null : profiles.get(item.receiver());
+
+            try {
+                checkAmount("Transfer", item.amount());
+                checkTransfer(from.getId(), from.getType(), to == null ? null : to.id(), to == null ? null : to.type(),
+                        to != null && from.getUser().getCpf().equals(to.cpf()));
+                valid.add(i);
+            } catch (TransactionException e) {
+                failures.add(new BatchTransferResult.Failure(i, item.receiver(), e.getMessage()));
+            }
+        }
 
+        if (atomic && !failures.isEmpty())
+            return new BatchTransferResult(0, Money.ZERO, failures);
+
+        try {
+            return RetryPolicy.DEFAULT.execute("transferAll", () -> AccountLocks.DEFAULT.withLock(from.getId(), () -> {
+                // Fund the valid items in order; the ones past the available balance are rejected
+                Money available = AccountRepository.findBalance(from.getId())
+                        .orElseThrow(() -> new TransactionException("Source account does not exist."));
+                List<TransferItem> accepted = new ArrayList<>(valid.size());
+                List<BatchTransferResult.Failure> rejected = new ArrayList<>(failures);
+                Money total = Money.ZERO;
+
+                for (int i : valid) {
+                    TransferItem item = items.get(i);
+                    if (item.amount().compareTo(available) > 0) {
+                        rejected.add(new BatchTransferResult.Failure(i, item.receiver(), "Insufficient funds. Available balance: " + available));
+                        continue;
+                    }
+
+                    accepted.add(item);
+                    available = available.minus(item.amount());
+                    total = total.plus(item.amount());
+                }
+
+                rejected.sort(Comparator.comparingInt(BatchTransferResult.Failure::index));
+                if (accepted.isEmpty() || (atomic && !rejected.isEmpty()))
+                    return new BatchTransferResult(0, Money.ZERO, rejected);
+
+                TransactionRepository.transferAll(from, accepted);
+                return new BatchTransferResult(accepted.size(), total, rejected);
+            }), from.getId());
+        } catch (TransactionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TransactionException("Error during batch transfer: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks that the amount of an operation is greater than zero.
+     *
+     * @param operation the operation name used in the error message, e.g. "Deposit".
+     * @param amount    the amount.
+     * @throws TransactionException if the amount is zero or negative.
+     */
+    public static void checkAmount(String operation, Money amount) {
+        if (!amount.isPositive())
+            throw new TransactionException(operation + " amount must be greater than zero.");
+    }
+
+    /**
+     * Checks the account rules of a transfer, independently of how the accounts are stored.
+     *
+     * @param fromId    the ID of the source account.
+     * @param fromType  the type of the source account.
+     * @param toId      the ID of the destination account, or null if it does not exist.
+     * @param toType    the type of the destination account, or null if it does not exist.
+     * @param sameOwner true if both accounts belong to users with the same CPF.
+     * @throws TransactionException if the transfer is not allowed.
+     */
+    public static void checkTransfer(Long fromId, AccountType fromType, Long toId, AccountType toType, boolean sameOwner) {
         // Ensure the source account is not of type "SAVINGS"
-        if (from.getType().equals(AccountType.SAVINGS))
+        if (fromType == AccountType.SAVINGS)
             throw new TransactionException("Savings accounts are not allowed to perform transfers.");
 
-        // Check if the source account has sufficient funds
-        if (from.getBalance().compareTo(amount) < 0)
-            throw new TransactionException("Insufficient funds. Available balance: " + from.getBalance());
-
         // Ensure the destination account exists
-        if (Objects.isNull(to))
+        if (Objects.isNull(toId))
             throw new TransactionException("Destination account does not exist.");
 
         // Prevent transfers to the same account
-        if (from.equals(to))
+        if (Objects.equals(fromId, toId))
             throw new TransactionException("Cannot transfer to the same account.");
 
-        // Validate the existence of source and destination accounts
-        if (AccountService.find(from.getId()).isEmpty())
-            throw new TransactionException("Source account does not exist.");
-
-        if (AccountService.find(to.getId()).isEmpty())
-            throw new TransactionException("Destination account does not exist.");
-
         // Validate CPF rules for transferring between accounts with the same CPF
-        if (from.getUser().getCpf().equals(to.getUser().getCpf()))
-            if (!(from.getType().equals(AccountType.CHECKING) && to.getType().equals(AccountType.SAVINGS)))
-                throw new TransactionException("Sender and receiver cannot have the same CPF unless transferring from a checking account to a savings account.");
-
-        try {
-            // Deduct the amount from the source account
-            from.setBalance(from.getBalance().subtract(amount));
-            AccountRepository.save(from);
-
-            // Add the amount to the destination account
-            to.setBalance(to.getBalance().add(amount));
-            AccountRepository.save(to);
-
-            // Log the transfer transaction
-            TransactionRepository.transfer(from, to, amount);
-        } catch (TransactionException e) {
-            throw new TransactionException("Error during transfer: " + e.getMessage());
-        }
+        if (sameOwner && !(fromType == AccountType.CHECKING && toType == AccountType.SAVINGS))
+            throw new TransactionException("Sender and receiver cannot have the same CPF unless transferring from a checking account to a savings account.");
     }
 
 }
@@ -6,6 +6,10 @@ import java.util.Optional;
  * Enum for validating various types of user inputs such as CPF, name, phone number, and password.
  * Each enum constant implements its own validation logic via the abstract `validate` method.
  * <p>
+ * Inputs are checked by hand-written character scanners rather than regular expressions, so a valid input
+ * is accepted without compiling a pattern or allocating anything.
+ * </p>
+ * <p>
  * Validation results are returned as an {@link Optional} containing an {@link Exception} if validation fails,
  * or an empty Optional if the input is valid.
  */
@@ -18,17 +22,45 @@ public enum InputValidator {
      * <ul>
      *     <li>Must follow the format "123.456.789-00" or "12345678900".</li>
      *     <li>Cannot be composed of repeated digits.</li>
+     *     <li>Both check digits must match the ones computed from the first nine digits.</li>
      * </ul>
      */
     CPF {
         @Override
         public Optional<Exception> validate(String input) {
-            if (input == null || !input.matches("([0-9]{3}[.]?[0-9]{3}[.]?[0-9]{3}-[0-9]{2})|([0-9]{11})"))
+            if (input == null || !isCpfFormat(input))
                 return Optional.of(new IllegalArgumentException("Invalid CPF format. Correct format: 123.456.789-00 or 12345678900"));
 
-            for (String invalid : new String[]{"00000000000", "11111111111", "22222222222", "33333333333", "44444444444",
-                    "55555555555", "66666666666", "77777777777", "88888888888", "99999999999"})
-                if (input.equals(invalid)) return Optional.of(new IllegalArgumentException("CPF cannot be composed of repeated digits."));
+            // Single pass over the digits: repeated-digit check and both check-digit sums
+            int first = -1, sum1 = 0, sum2 = 0, check1 = 0, check2 = 0, position = 0;
+            boolean repeated = true;
+            for (int i = 0; i < input.length(); i++) {
+                char c = input.charAt(i);
+                if (c < '0' || c > '9')
+                    continue;
+
+                int digit = c - '0';
+                if (first < 0)
+                    first = digit;
+                else if (digit != first)
+                    repeated = false;
+
+                if (position < 9)
+                    sum1 += digit * (10 - position);
+                if (position < 10)
+                    sum2 += digit * (11 - position);
+
+                if (position == 9)
+                    check1 = digit;
+                else if (position == 10)
+                    check2 = digit;
+                position++;
+            }
+
+            if (repeated)
+                return Optional.of(new IllegalArgumentException("CPF cannot be composed of repeated digits."));
+            if (sum1 * 10 % 11 % 10 != check1 || sum2 * 10 % 11 % 10 != check2)
+                return Optional.of(new IllegalArgumentException("Invalid CPF: the check digits do not match."));
 
             return Optional.empty();
         }
@@ -47,9 +79,9 @@ public enum InputValidator {
     NAME {
         @Override
         public Optional<Exception> validate(String input) {
-            if (input == null || input.trim().isEmpty())
+            if (input == null || isBlank(input))
                 return Optional.of(new IllegalArgumentException("Name cannot be empty."));
-            if (!input.matches("^[A-Za-zÀ-ÿ\\s]{2,50}$"))
+            if (!isName(input))
                 return Optional.of(new IllegalArgumentException("Name must contain only letters and spaces, and be between 2 and 50 characters."));
 
             return Optional.empty();
@@ -72,9 +104,8 @@ public enum InputValidator {
     PHONE {
         @Override
         public Optional<Exception> validate(String input) {
-            final String PHONE_PATTERN = "^\\+55 \\(\\d{2}\\) 9\\d{4}\\d{4}$|^\\+55\\d{11}$|^\\+55 \\(\\d{2}\\) 9\\d{4}-\\d{4}$|^55\\d{11}$";
-
-            if (input == null || !input.matches(PHONE_PATTERN))
+            if (input == null || !(hasShape(input, "+55 (dd) 9dddd-dddd") || hasShape(input, "+55 (dd) 9dddddddd")
+                    || hasShape(input, "+55ddddddddddd") || hasShape(input, "55ddddddddddd")))
                 return Optional.of(new IllegalArgumentException("Invalid phone number format. Correct formats: +55 (XX) 9XXXX-XXXX, or +55XX9XXXXXXXX"));
 
             return Optional.empty();
@@ -95,7 +126,7 @@ public enum InputValidator {
         public Optional<Exception> validate(String input) {
             if (input == null || input.length() < 8)
                 return Optional.of(new IllegalArgumentException("Password must be at least 8 characters long."));
-            if (!input.matches(".*[a-zA-Z].*") || !input.matches(".*\\d.*"))
+            if (!hasLetterAndDigit(input))
                 return Optional.of(new IllegalArgumentException("Password must include both letters and numbers."));
 
             return Optional.empty();
@@ -109,4 +140,113 @@ public enum InputValidator {
      * @return An {@link Optional} containing an {@link Exception} if validation fails, or an empty Optional if valid.
      */
     public abstract Optional<Exception> validate(String input);
+
+    /**
+     * Checks the CPF layout: 11 digits, or "XXX.XXX.XXX-XX" where the dots are optional.
+     *
+     * @param input the input to check.
+     * @return true if the input has a valid CPF layout.
+     */
+    private static boolean isCpfFormat(String input) {
+        int length = input.length();
+        if (length == 11)
+            return hasShape(input, "ddddddddddd");
+
+        // 3 digits, optional dot, 3 digits, optional dot, 3 digits, dash, 2 digits
+        int i = 0;
+        for (int group = 0; group < 3; group++) {
+            for (int j = 0; j < 3; j++, i++)
+                if (i >= length || !isDigit(input.charAt(i)))
+                    return false;
+
+            if (group < 2 && i < length && input.charAt(i) == '.')
+                i++;
+        }
+
+        return i + 3 == length && input.charAt(i) == '-' && isDigit(input.charAt(i + 1)) && isDigit(input.charAt(i + 2));
+    }
+
+    /**
+     * Checks an input against a fixed-length shape, where 'd' stands for any ASCII digit and
+     * every other character must match literally.
+     *
+     * @param input the input to check.
+     * @param shape the expected shape, e.g. "+55 (dd) 9dddd-dddd".
+     * @return true if the input matches the shape.
+     */
+    private static boolean hasShape(String input, String shape) {
+        if (input.length() != shape.length())
+            return false;
+
+        for (int i = 0; i < shape.length(); i++) {
+            char expected = shape.charAt(i), actual = input.charAt(i);
+            if (expected == 'd' ? !isDigit(actual) : expected != actual)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks that a name has 2 to 50 characters, all of them letters (including Latin-1 accented
+     * letters, À to ÿ) or whitespace.
+     *
+     * @param input the input to check.
+     * @return true if the input is a valid name.
+     */
+    private static boolean isName(String input) {
+        if (input.length() < 2 || input.length() > 50)
+            return false;
+
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            boolean letter = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '\u00C0' && c <= '\u00FF');
+            boolean space = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+            if (!letter && !space)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether an input contains at least one ASCII letter and one ASCII digit.
+     *
+     * @param input the input to check.
+     * @return true if both a letter and a digit are present.
+     */
+    private static boolean hasLetterAndDigit(String input) {
+        boolean letter = false, digit = false;
+        for (int i = 0; i < input.length() && !(letter && digit); i++) {
+            char c = input.charAt(i);
+            letter |= (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+            digit |= isDigit(c);
+        }
+
+        return letter && digit;
+    }
+
+    /**
+     * Checks whether an input is empty or made only of whitespace and control characters, like {@link String#trim()}.
+     *
+     * @param input the input to check.
+     * @return true if the input has no visible character.
+     */
+    private static boolean isBlank(String input) {
+        for (int i = 0; i < input.length(); i++)
+            if (input.charAt(i) > ' ')
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Checks whether a character is an ASCII digit, like {@code \d} in a regular expression.
+     *
+     * @param c the character to check.
+     * @return true if the character is between '0' and '9'.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 }
@@ -37,13 +37,14 @@ public class AccountLoginView {
      * After selecting an account, the user is asked to input a password. If the password is correct, the login is successful,
      * and the corresponding account view is shown. If there are errors, the user is prompted to try again.
      * </p>
+     *
+     * @return the next screen to show.
      */
-    public static void handle() {
+    public static Screen handle() {
         String cpf = ViewRenderer.readString(String.format(view, "?", "-", "CPF (e.g., 123.456.789-00)"));
         if ("0".equals(cpf)) {
             System.out.println("Login canceled.");
-            ViewRenderer.returnToMenu();
-            return;
+            return ViewRenderer.returnToMenu();
         }
 
         Optional<Exception> cpfValidation = InputValidator.CPF.validate(cpf);
@@ -57,24 +58,27 @@ public class AccountLoginView {
         boolean exists = AccountService.formatCpf(cpf).isPresent() && !accounts.isEmpty();
         if (!exists) {
             System.out.println("There's no registered accounts with provided CPF.");
-            ViewRenderer.retry(AccountLoginView::handle);
-            return;
+            return ViewRenderer.retry(AccountLoginView::handle);
+        }
+
+        Optional<Account> selected = select(accounts);
+        if (selected.isEmpty()) {
+            System.out.println("Login canceled.");
+            return ViewRenderer.returnToMenu();
         }
 
-        Account account = select(accounts);
+        Account account = selected.get();
         while (true) {
             String password = ViewRenderer.readString(String.format(view, AccountService.formatCpf(cpf).get() + " (" + account.getType().toString() + ")", "?", "Password"));
             if ("0".equals(password)) {
                 System.out.println("Login canceled.");
-                ViewRenderer.returnToMenu();
-                return;
+                return ViewRenderer.returnToMenu();
             }
 
             try {
-                AuthService.login(account.getId(), password);
+                String session = AuthService.login(account.getId(), password);
                 System.out.println("Login successful!");
-                AccountView.handle();
-                break;
+                return AccountView.handle(session);
             } catch (AccountLoginException e) {
                 System.out.println("Error: " + e.getMessage());
                 System.out.println("Please try again or type '0' to cancel.\n");
@@ -86,9 +90,9 @@ public class AccountLoginView {
      * Renders a selection screen for the user to choose an account based on their CPF.
      *
      * @param accounts List of accounts linked to the CPF.
-     * @return The chosen Account.
+     * @return The chosen Account, or empty if the user canceled.
      */
-    private static Account select(List<Account> accounts) {
+    private static Optional<Account> select(List<Account> accounts) {
         String template = """
         ╭─────────────────────────────────╮
         │        \u001B[34mSelect an Account\u001B[0m        │
@@ -105,14 +109,11 @@ public class AccountLoginView {
             try {
                 int choice = Integer.parseInt(input);
 
-                if (choice == 0) {
-                    System.out.println("Login canceled.");
-                    ViewRenderer.returnToMenu();
-                    throw new IllegalStateException();
-                }
+                if (choice == 0)
+                    return Optional.empty();
 
                 if (choice > 0 && choice <= accounts.size())
-                    return accounts.get(choice - 1);
+                    return Optional.of(accounts.get(choice - 1));
                 else
                     System.out.println("Invalid option. Please select a valid account.");
             } catch (NumberFormatException e) {
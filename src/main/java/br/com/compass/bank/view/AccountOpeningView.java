@@ -49,13 +49,14 @@ public class AccountOpeningView {
      * Each input is validated using the respective validators. If all inputs are valid, an account is created and registered.
      * If any validation fails or an error occurs during account creation, the process is halted and the user is informed.
      * </p>
+     *
+     * @return the next screen to show.
      */
-    public static void handle() {
+    public static Screen handle() {
         String cpf = ViewRenderer.readString(String.format(view, "?", "-", "-", "-", "CPF (e.g., 123.456.789-00)"));
         if ("0".equals(cpf)) {
             System.out.println("Account opening canceled.");
-            ViewRenderer.returnToMenu();
-            return;
+            return ViewRenderer.returnToMenu();
         }
 
         Optional<Exception> cpfValidation = InputValidator.CPF.validate(cpf);
@@ -68,8 +69,7 @@ public class AccountOpeningView {
         String name = ViewRenderer.readString(String.format(view, cpf, "?", "-", "-", "Name"));
         if ("0".equals(name)) {
             System.out.println("Account opening canceled.");
-            ViewRenderer.returnToMenu();
-            return;
+            return ViewRenderer.returnToMenu();
         }
 
         Optional<Exception> nameValidation = InputValidator.NAME.validate(name);
@@ -82,8 +82,7 @@ public class AccountOpeningView {
         String phone = ViewRenderer.readString(String.format(view, cpf, name, "?", "-", "Phone Number"));
         if ("0".equals(phone)) {
             System.out.println("Account opening canceled.");
-            ViewRenderer.returnToMenu();
-            return;
+            return ViewRenderer.returnToMenu();
         }
 
         Optional<Exception> phoneValidation = InputValidator.PHONE.validate(phone);
@@ -96,8 +95,7 @@ public class AccountOpeningView {
         String typeStr = ViewRenderer.readString(String.format(view, cpf, name, phone, "?", "Account Type"));
         if ("0".equals(typeStr)) {
             System.out.println("Account opening canceled.");
-            ViewRenderer.returnToMenu();
-            return;
+            return ViewRenderer.returnToMenu();
         }
 
         Optional<AccountType> accountTypeValidation = AccountType.from(typeStr);
@@ -111,8 +109,7 @@ public class AccountOpeningView {
         String password = ViewRenderer.readString(String.format(view, cpf, name, phone, type, "Password"));
         if ("0".equals(password)) {
             System.out.println("Account opening canceled.");
-            ViewRenderer.returnToMenu();
-            return;
+            return ViewRenderer.returnToMenu();
         }
 
         Optional<Exception> passwordValidation = InputValidator.PASSWORD.validate(password);
@@ -138,11 +135,11 @@ public class AccountOpeningView {
             AuthService.register(account);
             System.out.println("Account successfully created!");
             System.out.printf((done) + "%n", cpf, name, phone, type);
-            ViewRenderer.returnToMenu();
         } catch (AccountOpeningException e) {
             System.out.println("Failed to create account: " + e.getMessage());
-            ViewRenderer.returnToMenu();
         }
+
+        return ViewRenderer.returnToMenu();
     }
 
 }
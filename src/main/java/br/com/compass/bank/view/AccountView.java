@@ -1,11 +1,12 @@
 package br.com.compass.bank.view;
 
 import br.com.compass.bank.App;
+import br.com.compass.bank.exception.account.AccountLoginException;
 import br.com.compass.bank.exception.transaction.TransactionException;
 import br.com.compass.bank.model.Account;
 import br.com.compass.bank.model.AccountType;
-import br.com.compass.bank.model.Transaction;
-import br.com.compass.bank.model.TransactionType;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.repository.StatementPage;
 import br.com.compass.bank.repository.TransactionRepository;
 import br.com.compass.bank.service.AccountService;
 import br.com.compass.bank.service.AuthService;
@@ -15,9 +16,6 @@ import br.com.compass.bank.validation.InputValidator;
 import lombok.AccessLevel;
 import lombok.Setter;
 
-import java.math.BigDecimal;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Optional;
 
 /**
@@ -28,17 +26,42 @@ import java.util.Optional;
  */
 public class AccountView {
 
+    // Number of transactions shown per statement page
+    private static final int STATEMENT_PAGE_SIZE = 10;
+
+    // Token of the session opened at login
+    @Setter(AccessLevel.PRIVATE)
+    private static String session;
+
     @Setter(AccessLevel.PRIVATE)
     private static Account user;
 
+    /**
+     * Entry point of the account menu for a freshly opened session.
+     *
+     * @param token the session token returned by {@link AuthService#login(Long, String)}.
+     * @return the account menu.
+     */
+    public static Screen handle(String token) {
+        AccountView.setSession(token);
+        return AccountView::handle;
+    }
+
     /**
      * Displays the bank menu for the user and navigates between options.
      * The available options are: Deposit, Withdraw, Check Balance, Transfer, Bank Statement, and Exit.
      * Based on the selected option, the corresponding method is invoked.
-     * This method acts as the entry point for handling user interactions within the account menu.
+     * The account is resolved from the session on every visit, so an expired session leads back to the main menu.
+     *
+     * @return the screen of the selected option.
      */
-    public static void handle() {
-        AccountView.setUser(AuthService.Context.getCurrent());
+    private static Screen handle() {
+        try {
+            AccountView.setUser(AuthService.current(session));
+        } catch (AccountLoginException e) {
+            System.out.println(e.getMessage());
+            return App::menu;
+        }
 
         int option = ViewRenderer.readInteger("""
         ╭────────────────────────────────╮
@@ -53,23 +76,28 @@ public class AccountView {
         ╰────────────────────────────────╯
         >>\s""");
 
-        switch (option) {
-            case 1: deposit();
-            case 2: withdraw();
-            case 3: balance();
-            case 4: transfer();
-            case 5: statement();
-            case 0: App.menu();
-            default: ViewRenderer.retry(AccountView::handle);
-        }
+        return switch (option) {
+            case 1 -> AccountView::deposit;
+            case 2 -> AccountView::withdraw;
+            case 3 -> AccountView::balance;
+            case 4 -> AccountView::transfer;
+            case 5 -> AccountView::statement;
+            case 0 -> {
+                AuthService.logout(session);
+                yield App::menu;
+            }
+            default -> ViewRenderer.retry(AccountView::handle);
+        };
     }
 
     /**
      * Handles the deposit process by prompting the user for an amount and performing the deposit transaction.
      * It checks that the deposit amount is greater than zero and calls the appropriate service to execute the deposit.
      * If the deposit is successful, it confirms the operation to the user.
+     *
+     * @return the screen to show next, usually the account menu.
      */
-    private static void deposit() {
+    private static Screen deposit() {
         final String view = """
         ╭──────────────────────────────────╮
         │             \u001B[34mDeposit\u001B[0m              │
@@ -80,19 +108,20 @@ public class AccountView {
         ╰─────────────────────────────────╯
         >> %s:\s""";
 
-        BigDecimal amount = ViewRenderer.readBigDecimal(String.format(view, "?", "Amount"));
+        Money amount = ViewRenderer.readMoney(String.format(view, "?", "Amount"));
 
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+        if (!amount.isPositive()) {
             System.out.println("Deposit amount must be greater than zero.");
-            return;
+            return AccountView::handle;
         }
 
         try {
             TransactionService.deposit(user, amount);
             System.out.println("Successfully deposited!");
-            ViewRenderer.returnTo(AccountView::handle);
+            return ViewRenderer.returnTo(AccountView::handle);
         } catch (TransactionException e) {
             System.out.println("Unable to deposit: " + e.getMessage());
+            return AccountView::handle;
         }
     }
 
@@ -100,8 +129,10 @@ public class AccountView {
      * Handles the withdrawal process by prompting the user for an amount and performing the withdrawal transaction.
      * It checks that the withdrawal amount is greater than zero and calls the appropriate service to execute the withdrawal.
      * If the withdrawal is successful, it confirms the operation to the user.
+     *
+     * @return the screen to show next, usually the account menu.
      */
-    private static void withdraw() {
+    private static Screen withdraw() {
         final String view = """
         ╭──────────────────────────────────╮
         │             \u001B[34mWithdraw\u001B[0m             │
@@ -112,26 +143,29 @@ public class AccountView {
         ╰──────────────────────────────────╯
         >> %s:\s""";
 
-        BigDecimal amount = ViewRenderer.readBigDecimal(String.format(view, "?", "Amount"));
-        while (amount.compareTo(BigDecimal.ZERO) <= 0) {
+        Money amount = ViewRenderer.readMoney(String.format(view, "?", "Amount"));
+        while (!amount.isPositive()) {
             System.out.println("Withdraw amount must be greater than zero.");
-            amount = ViewRenderer.readBigDecimal(String.format(view, "?", "Amount"));
+            amount = ViewRenderer.readMoney(String.format(view, "?", "Amount"));
         }
 
         try {
             TransactionService.withdraw(user, amount);
             System.out.println("Successfully withdrew!");
-            ViewRenderer.returnTo(AccountView::handle);
+            return ViewRenderer.returnTo(AccountView::handle);
         } catch (TransactionException e) {
             System.out.println("Unable to withdraw: " + e.getMessage());
+            return AccountView::handle;
         }
     }
 
     /**
      * Displays the current balance of the user's account.
      * This method prints the balance in a user-friendly format to the console.
+     *
+     * @return the screen to show next, usually the account menu.
      */
-    private static void balance() {
+    private static Screen balance() {
         final String done = """
         ╭─────────────────────────────╮
         │           \u001B[34mAccount\u001B[0m           │
@@ -140,15 +174,17 @@ public class AccountView {
         """;
 
         System.out.printf((done) + "%n", user.getBalance());
-        ViewRenderer.returnTo(AccountView::handle);
+        return ViewRenderer.returnTo(AccountView::handle);
     }
 
     /**
      * Handles the transfer process by prompting the user for the recipient's account number or CPF and the amount to transfer.
      * It validates the input, checks for sufficient funds, and attempts the transfer. If the transfer is successful, it confirms the operation to the user.
      * If there is an error, such as insufficient funds or invalid account information, it will display an error message.
+     *
+     * @return the screen to show next, usually the account menu.
      */
-    private static void transfer() {
+    private static Screen transfer() {
         final String view = """
         ╭───────────────────────────────────╮
         │             \u001B[34mTransfer\u001B[0m              │
@@ -163,8 +199,7 @@ public class AccountView {
         String target = ViewRenderer.readString(String.format(view, "?", "-", "Account Number (ID) or CPF (e.g., 123.456.789-00)"));
         if ("0".equals(target)) {
             System.out.println("Transfer canceled.");
-            ViewRenderer.returnTo(AccountView::handle);
-            return;
+            return ViewRenderer.returnTo(AccountView::handle);
         }
 
         Optional<Exception> validation = InputValidator.CPF.validate(target);
@@ -174,30 +209,26 @@ public class AccountView {
                 Optional<Account> receiverById = AccountService.find(id);
                 if (receiverById.isEmpty()) {
                     System.out.println("There's no registered accounts with the provided ID.");
-                    ViewRenderer.returnTo(AccountView::handle);
-                    return;
+                    return ViewRenderer.returnTo(AccountView::handle);
                 }
 
-                BigDecimal amount = ViewRenderer.readBigDecimal("Enter the amount to send: ");
-                while (amount.compareTo(BigDecimal.ZERO) <= 0) {
+                Money amount = ViewRenderer.readMoney("Enter the amount to send: ");
+                while (!amount.isPositive()) {
                     System.out.println("Deposit amount must be greater than zero.");
-                    amount = ViewRenderer.readBigDecimal("Enter the amount to deposit: ");
+                    amount = ViewRenderer.readMoney("Enter the amount to deposit: ");
                 }
 
                 try {
                     TransactionService.transfer(user, receiverById.get(), amount);
                     System.out.println("Successfully transferred to account with ID: " + receiverById.get().getId());
-                    ViewRenderer.returnTo(AccountView::handle);
+                    return ViewRenderer.returnTo(AccountView::handle);
                 } catch (TransactionException e) {
                     System.out.println("Unable to withdraw: " + e.getMessage());
-                    ViewRenderer.returnTo(AccountView::handle);
+                    return ViewRenderer.returnTo(AccountView::handle);
                 }
-                return;
-
             } catch (NumberFormatException e) {
                 System.out.println("Invalid input. Enter a valid Account Number (ID) or CPF.");
-                ViewRenderer.returnTo(AccountView::handle);
-                return;
+                return ViewRenderer.returnTo(AccountView::handle);
             }
         }
 
@@ -207,36 +238,37 @@ public class AccountView {
 
         if (receiver.isEmpty()) {
             System.out.println("There's no registered checking accounts with the provided CPF.");
-            ViewRenderer.returnTo(AccountView::handle);
-            return;
+            return ViewRenderer.returnTo(AccountView::handle);
         }
 
-        BigDecimal amount = ViewRenderer.readBigDecimal("Enter the amount to send: ");
-        while (amount.compareTo(BigDecimal.ZERO) <= 0) {
+        Money amount = ViewRenderer.readMoney("Enter the amount to send: ");
+        while (!amount.isPositive()) {
             System.out.println("Deposit amount must be greater than zero.");
-            amount = ViewRenderer.readBigDecimal("Enter the amount to send: ");
+            amount = ViewRenderer.readMoney("Enter the amount to send: ");
         }
 
         try {
             TransactionService.transfer(user, receiver.get(), amount);
             System.out.println("Successfully transferred to checking account with CPF: " + receiver.get().getUser().getCpf());
-            ViewRenderer.returnTo(AccountView::handle);
+            return ViewRenderer.returnTo(AccountView::handle);
         } catch (TransactionException e) {
             System.out.println("Unable to withdraw: " + e.getMessage());
-            ViewRenderer.returnTo(AccountView::handle);
+            return ViewRenderer.returnTo(AccountView::handle);
         }
     }
 
     /**
-     * Displays the user's bank statement by retrieving all transactions related to their account.
+     * Displays the user's bank statement, one page of transactions at a time, newest first, or the rest of it at once.
      * If no transactions are found, a message is displayed indicating that there is no data to show.
+     *
+     * @return the screen to show next, usually the account menu.
      */
-    private static void statement() {
-        List<Transaction> transactions = TransactionRepository.findByAccount(user);
+    private static Screen statement() {
+        StatementPage page = TransactionRepository.findStatement(user, null, null, null, STATEMENT_PAGE_SIZE);
 
-        if (transactions.isEmpty()) {
+        if (page.entries().isEmpty()) {
             System.out.println("There's nothing to show here.");
-            ViewRenderer.returnTo(AccountView::handle);
+            return ViewRenderer.returnTo(AccountView::handle);
         }
 
         System.out.print("""
@@ -245,25 +277,39 @@ public class AccountView {
         ╰──────────────────────────────────────────────────╯
         """);
 
-        transactions.forEach(transaction -> {
-            String type = transaction.getType().name();
-            boolean received = transaction.getReceiver() != null && transaction.getReceiver().getId().equals(user.getId());
+        StatementRenderer renderer = new StatementRenderer(System.out);
+        while (true) {
+            renderer.render(page.entries());
+            renderer.flush();
+
+            if (!page.hasNext())
+                break;
+
+            int option = ViewRenderer.readInteger("""
+            \u001B[0m╭─────────────────────────────────╮
+            │   \u001B[32m1 - Next page\u001B[0m                 │
+            │   \u001B[36m2 - Show all\u001B[0m                  │
+            │   \u001B[33m0 - Return\u001B[0m                    │
+            ╰─────────────────────────────────╯
+            >>\s""");
+
+            if (option == 2) {
+                renderer.renderAll(user, page.next());
+                break;
+            }
+
+            if (option != 1)
+                return AccountView::handle;
 
-            System.out.println("╭──────────────────────────────────────────────────╮");
-            System.out.println("  \u001B[32m" + (received ? "Received" : "\u001B[31mSent") + "\u001B[0m" + (received ? " " : "    ")
-                    + "\u001B[33m" + type + "\u001B[0m" + (type.equals(TransactionType.WITHDRAWAL.name()) ? "    " : ("      ")) + "Date: " +
-                    transaction.getTimestamp().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")));
-            System.out.println("  Amount:" + (received ? "  " : " ") + (received
-                    ? "\u001B[32m" + transaction.getAmount() + "\u001B[0m" : "\u001B[31m" + transaction.getAmount() + "\u001B[0m"));
-            System.out.println("╰──────────────────────────────────────────────────╯");
-        });
+            page = TransactionRepository.findStatement(user, page.next(), null, null, STATEMENT_PAGE_SIZE);
+        }
 
         System.out.println("""
         ╭──────────────────────────────────────────────────╮
         │                 \u001B[33mEnd of Statement\u001B[0m                 │
         ╰──────────────────────────────────────────────────╯
         """);
-        ViewRenderer.returnTo(AccountView::handle);
+        return ViewRenderer.returnTo(AccountView::handle);
     }
 
 }
@@ -0,0 +1,21 @@
+package br.com.compass.bank.view;
+
+/**
+ * A single screen of the console interface.
+ * <p>
+ * Instead of calling the next screen directly, a screen renders itself, reads what it needs and returns the screen
+ * to show next. {@link ViewRenderer#run(Screen)} drives the screens in a loop, so the stack stays at a constant depth
+ * however long the session runs.
+ * </p>
+ */
+@FunctionalInterface
+public interface Screen {
+
+    /**
+     * Renders the screen and handles its input.
+     *
+     * @return the next screen to show, or {@code null} to close the application.
+     */
+    Screen show();
+
+}
@@ -0,0 +1,145 @@
+package br.com.compass.bank.view;
+
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.TransactionType;
+import br.com.compass.bank.repository.StatementEntry;
+import br.com.compass.bank.repository.StatementPage;
+import br.com.compass.bank.repository.TransactionRepository;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Renders statement entries as the boxed rows shown by the account view.
+ * <p>
+ * Everything that does not depend on the entry, the borders and the ANSI colored labels, is rendered once per
+ * type and direction. Rows are formatted into a reusable buffer with a shared {@link DateTimeFormatter} and handed
+ * to the output in chunks of {@link #CHUNK_SIZE} characters, so a long statement costs a few large writes instead
+ * of several synchronized prints per row.
+ * </p>
+ */
+public class StatementRenderer {
+
+    // Number of buffered characters that triggers a write to the output
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    // Number of transactions fetched per query when streaming a whole statement
+    public static final int STREAM_PAGE_SIZE = 1_000;
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    private static final String NEW_LINE = System.lineSeparator();
+    private static final String TOP = "╭──────────────────────────────────────────────────╮" + NEW_LINE;
+    private static final String BOTTOM = "\u001B[0m" + NEW_LINE + "╰──────────────────────────────────────────────────╯" + NEW_LINE;
+
+    // Border and first line up to the date, indexed by direction (sent, received) and transaction type
+    private static final String[][] HEADERS = new String[2][TransactionType.values().length];
+
+    // Start of the amount line, indexed by direction (sent, received)
+    private static final String[] AMOUNTS = {
+            NEW_LINE + "  Amount: \u001B[31m",
+            NEW_LINE + "  Amount:  \u001B[32m"
+    };
+
+    static {
+        for (TransactionType type : TransactionType.values()) {
+            String padding = (type == TransactionType.WITHDRAWAL) ? "    " : "      ";
+            HEADERS[0][type.ordinal()] = TOP + "  \u001B[32m\u001B[31mSent\u001B[0m    \u001B[33m" + type.name() + "\u001B[0m" + padding + "Date: ";
+            HEADERS[1][type.ordinal()] = TOP + "  \u001B[32mReceived\u001B[0m \u001B[33m" + type.name() + "\u001B[0m" + padding + "Date: ";
+        }
+    }
+
+    private final Appendable out;
+    private final StringBuilder buffer = new StringBuilder(CHUNK_SIZE + 512);
+
+    /**
+     * Creates a renderer writing to the given output.
+     *
+     * @param out the output that receives the rendered chunks, e.g. {@code System.out} or a {@link java.io.Writer}.
+     */
+    public StatementRenderer(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Renders a single entry, writing the buffer out once it reaches {@link #CHUNK_SIZE} characters.
+     *
+     * @param entry the statement entry to render.
+     */
+    public void render(StatementEntry entry) {
+        int direction = entry.received() ? 1 : 0;
+        buffer.append(HEADERS[direction][entry.type().ordinal()]);
+        DATE.formatTo(entry.timestamp(), buffer);
+        buffer.append(AMOUNTS[direction])
+                .append(entry.amount())
+                .append(BOTTOM);
+
+        if (buffer.length() >= CHUNK_SIZE)
+            write();
+    }
+
+    /**
+     * Renders every entry of a list, in order.
+     *
+     * @param entries the statement entries to render.
+     */
+    public void render(List<StatementEntry> entries) {
+        for (StatementEntry entry : entries)
+            render(entry);
+    }
+
+    /**
+     * Streams the statement of an account from the repository, page by page, starting after the given cursor.
+     * Only one page of entries is held in memory at a time. The output is flushed once the statement ends.
+     *
+     * @param account the account whose statement is rendered.
+     * @param after the cursor to continue from, or null to start from the newest transaction.
+     * @return the number of entries rendered.
+     */
+    public long renderAll(Account account, StatementPage.Cursor after) {
+        long rendered = 0;
+        StatementPage.Cursor cursor = after;
+
+        do {
+            StatementPage page = TransactionRepository.findStatement(account, cursor, null, null, STREAM_PAGE_SIZE);
+            render(page.entries());
+            rendered += page.entries().size();
+            cursor = page.next();
+        } while (cursor != null);
+
+        flush();
+        return rendered;
+    }
+
+    /**
+     * Writes whatever is buffered to the output and flushes it.
+     */
+    public void flush() {
+        write();
+        try {
+            if (out instanceof Flushable flushable)
+                flushable.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the statement", e);
+        }
+    }
+
+    /**
+     * Hands the buffered characters to the output and clears the buffer.
+     */
+    private void write() {
+        if (buffer.isEmpty())
+            return;
+
+        try {
+            out.append(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the statement", e);
+        }
+        buffer.setLength(0);
+    }
+
+}
@@ -1,62 +1,88 @@
 package br.com.compass.bank.view;
 
 import br.com.compass.bank.App;
+import br.com.compass.bank.model.Money;
+
+import lombok.Setter;
 
-import java.math.BigDecimal;
 import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 /**
  * The `ViewRenderer` class is responsible for rendering user interfaces for interacting with the system.
  * It provides utility methods for reading user input, displaying menus, retrying operations, and returning to the previous menu.
- * The class uses the `Scanner` object for input collection and offers a set of functions for different data types like integers, doubles, strings, and BigDecimals.
+ * The class uses the `Scanner` object for input collection and offers a set of functions for different data types like integers, doubles, strings, and amounts of money.
+ * Screens never call each other: each one returns the next {@link Screen} and {@link #run(Screen)} shows them in turn.
  */
 public class ViewRenderer {
 
-    private static final Scanner scanner = App.scanner;
+    // Source of the user input, the standard input unless replaced (e.g. by a scripted session)
+    @Setter
+    private static Scanner scanner = App.scanner;
+
+    /**
+     * Shows screens one after another, starting from the given one, until a screen returns {@code null}
+     * or the input ends. The stack depth stays the same however many screens are shown.
+     *
+     * @param first The first screen to show.
+     */
+    public static void run(Screen first) {
+        Screen screen = first;
+        try {
+            while (screen != null)
+                screen = screen.show();
+        } catch (NoSuchElementException e) {
+            // The input was closed, there's nobody left to answer the prompts
+        }
+    }
 
     /**
      * Displays a message and prompts the user to try again or return to the menu.
-     * If the user chooses to retry, the provided method will be executed again.
-     * If the user chooses to return to the menu, the main menu will be shown.
      *
      * @param message The message to display before retrying.
-     * @param method The method to be retried.
+     * @param screen The screen to be retried.
+     * @return The screen to be retried, or the main menu.
      */
-    public static void retry(String message, Runnable method) {
+    public static Screen retry(String message, Screen screen) {
         System.out.println(message);
-        retry(method);
+        return retry(screen);
     }
 
     /**
      * Prompts the user to try again or return to the menu after an operation.
-     * If the user selects option 1, the provided method is executed again.
+     * If the user selects option 1, the provided screen is shown again.
      * If option 2 is selected, the main menu is shown.
      *
-     * @param method The method to be retried.
+     * @param screen The screen to be retried.
+     * @return The screen to be retried, or the main menu.
      */
-    public static void retry(Runnable method) {
-        int option = readInteger("""
-        \u001B[0m╭─────────────────────────────────────────╮
-        │ \u001B[34m               Try again?\u001B[0m               │
-        ├─────────────────────────────────────────┤
-        │   \u001B[32m1 - Yes!\u001B[0m                              │
-        │   \u001B[33m2 - Return to the menu\u001B[0m                │
-        ╰─────────────────────────────────────────╯
-        >>\s""");
-
-        switch (option) {
-            case 1 -> method.run();
-            case 2 -> App.menu();
-            default -> retry(method);
+    public static Screen retry(Screen screen) {
+        while (true) {
+            int option = readInteger("""
+            \u001B[0m╭─────────────────────────────────────────╮
+            │ \u001B[34m               Try again?\u001B[0m               │
+            ├─────────────────────────────────────────┤
+            │   \u001B[32m1 - Yes!\u001B[0m                              │
+            │   \u001B[33m2 - Return to the menu\u001B[0m                │
+            ╰─────────────────────────────────────────╯
+            >>\s""");
+
+            switch (option) {
+                case 1 -> { return screen; }
+                case 2 -> { return App::menu; }
+                default -> { }
+            }
         }
     }
 
     /**
      * Displays an option to the user to return to the main menu.
      * Upon receiving any input, the main menu will be shown.
+     *
+     * @return The main menu.
      */
-    public static void returnToMenu() {
+    public static Screen returnToMenu() {
         System.out.print("""
         \u001B[0m╭─────────────────────────────────────────╮
         │         \u001B[33m0 - Return to the menu\u001B[0m          │
@@ -65,15 +91,16 @@ public class ViewRenderer {
 
         scanner.next();
         scanner.nextLine();
-        App.menu();
+        return App::menu;
     }
 
     /**
-     * Prompts the user to press any key to return to the previous menu, then invokes the provided menu method.
+     * Prompts the user to press any key to return to the previous menu.
      *
-     * @param menu The method to navigate back to.
+     * @param menu The screen to navigate back to.
+     * @return The given screen, once the user answered.
      */
-    public static void returnTo(Runnable menu) {
+    public static Screen returnTo(Screen menu) {
         System.out.print("""
         \u001B[0m╭─────────────────────────────╮
         │         \u001B[33m0 - Return\u001B[0m          │
@@ -82,7 +109,7 @@ public class ViewRenderer {
 
         scanner.next();
         scanner.nextLine();
-        menu.run();
+        return menu;
     }
 
     /**
@@ -92,18 +119,18 @@ public class ViewRenderer {
      * @return The integer value entered by the user.
      */
     public static int readInteger(String label) {
-        int value;
-        try {
-            System.out.print(label);
-            value = scanner.nextInt();
-            scanner.nextLine();
-        } catch (InputMismatchException e) {
-            System.out.println("Invalid option! Please try again.");
-            scanner.nextLine();
-            value = readInteger("\n>> ");
+        System.out.print(label);
+        while (true) {
+            try {
+                int value = scanner.nextInt();
+                scanner.nextLine();
+                return value;
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid option! Please try again.");
+                scanner.nextLine();
+                System.out.print("\n>> ");
+            }
         }
-
-        return value;
     }
 
     /**
@@ -114,18 +141,17 @@ public class ViewRenderer {
      */
     public static double readDouble(String label) {
         System.out.print(label);
-        String value = scanner.nextLine()
-                .replace(',', '.');
-
-        double result;
-        try {
-            result = Double.parseDouble(value);
-        } catch (NumberFormatException e) {
-            System.out.println("Invalid option! Please try again.");
-            result = readDouble("\n>> ");
+        while (true) {
+            String value = scanner.nextLine()
+                    .replace(',', '.');
+
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid option! Please try again.");
+                System.out.print("\n>> ");
+            }
         }
-
-        return result;
     }
 
     /**
@@ -140,25 +166,24 @@ public class ViewRenderer {
     }
 
     /**
-     * Reads a BigDecimal value from the user input. If the input is invalid (not a valid number), the method will prompt the user again.
-     * The method also ensures that commas are replaced with periods for decimal separation.
+     * Reads an amount of money from the user input. If the input is invalid (not a number with at most two decimal places),
+     * the method will prompt the user again. The method also ensures that commas are replaced with periods for decimal separation.
      *
      * @param label The label displayed to prompt the user for input.
-     * @return The BigDecimal value entered by the user.
+     * @return The amount entered by the user.
      */
-    public static BigDecimal readBigDecimal(String label) {
+    public static Money readMoney(String label) {
         System.out.print(label);
-        String value = scanner.nextLine().replace(',', '.');
-
-        BigDecimal result;
-        try {
-            result = new BigDecimal(value);
-        } catch (NumberFormatException e) {
-            System.out.println("Invalid amount! Please try again.");
-            result = readBigDecimal("\n>> ");
+        while (true) {
+            String value = scanner.nextLine().trim().replace(',', '.');
+
+            try {
+                return Money.parse(value);
+            } catch (NumberFormatException | ArithmeticException e) {
+                System.out.println("Invalid amount! Please try again.");
+                System.out.print("\n>> ");
+            }
         }
-
-        return result;
     }
 
 }
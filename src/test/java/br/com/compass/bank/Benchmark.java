@@ -0,0 +1,26 @@
+package br.com.compass.bank;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an opt-in throughput measurement.
+ * <p>
+ * Benchmarks only run with {@code -Dbank.benchmark=true} and print what they measured. They never
+ * assert on timings, which depend on the machine, so the regular build stays deterministic; the
+ * behaviour they exercise is covered by regular tests.
+ * </p>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Test
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "bank.benchmark", matches = "true")
+public @interface Benchmark {
+}
@@ -0,0 +1,106 @@
+package br.com.compass.bank;
+
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.AccountType;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.User;
+import br.com.compass.bank.repository.AccountRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test fixture creating users and accounts in the database shared by every test class.
+ * <p>
+ * CPFs and phone numbers come from one sequence, so they never collide with each other, whichever
+ * test classes run in the same JVM and in whichever order.
+ * </p>
+ */
+public final class TestAccounts {
+
+    // First nine CPF digits of the generated users, well apart from the CPFs written out in the tests
+    private static final int CPF_BASE = 310_000_000;
+
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    private TestAccounts() {
+    }
+
+    /**
+     * Builds an unused, valid CPF, with its check digits.
+     *
+     * @return the formatted CPF (XXX.XXX.XXX-XX).
+     */
+    public static String cpf() {
+        int[] digits = new int[11];
+        String base = String.format("%09d", CPF_BASE + sequence.incrementAndGet());
+        for (int i = 0; i < 9; i++)
+            digits[i] = base.charAt(i) - '0';
+
+        for (int check = 9; check < 11; check++) {
+            int sum = 0;
+            for (int i = 0; i < check; i++)
+                sum += digits[i] * (check + 1 - i);
+            digits[check] = sum * 10 % 11 % 10;
+        }
+
+        return String.format("%d%d%d.%d%d%d.%d%d%d-%d%d", Arrays.stream(digits).boxed().toArray());
+    }
+
+    /**
+     * Builds an unused mobile phone number.
+     *
+     * @return the formatted phone number (+55 (XX) XXXXX-XXXX).
+     */
+    public static String phone() {
+        int n = sequence.incrementAndGet();
+        return String.format("+55 (19) 9%04d-%04d", n / 10_000 % 10_000, n % 10_000);
+    }
+
+    /**
+     * Builds a user with an unused CPF and phone number, without saving it.
+     *
+     * @param name the name of the user.
+     * @return the new user, with an empty account list.
+     */
+    public static User user(String name) {
+        return User.builder()
+                .name(name)
+                .cpf(cpf())
+                .phone(phone())
+                .accounts(new ArrayList<>())
+                .build();
+    }
+
+    /**
+     * Saves a checking account for a new user.
+     *
+     * @param name    the name of the user.
+     * @param balance the opening balance.
+     * @return the saved account.
+     */
+    public static Account open(String name, Money balance) {
+        return open(user(name), AccountType.CHECKING, balance);
+    }
+
+    /**
+     * Saves an account for a user, saving the user as well if it is new.
+     *
+     * @param user    the owner of the account.
+     * @param type    the account type.
+     * @param balance the opening balance.
+     * @return the saved account.
+     */
+    public static Account open(User user, AccountType type, Money balance) {
+        Account account = Account.builder()
+                .user(user)
+                .password("hash")
+                .type(type)
+                .balance(balance)
+                .build();
+
+        AccountRepository.save(account);
+        return account;
+    }
+}
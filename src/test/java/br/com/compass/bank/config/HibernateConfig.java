@@ -6,6 +6,7 @@ import br.com.compass.bank.model.User;
 import lombok.Getter;
 
 import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
 
 /**
@@ -21,6 +22,9 @@ public class HibernateConfig {
         try {
             factory = new Configuration()
                     .configure("hibernate.cfg.xml")
+                    // Closing a factory closes its JCache manager, which is shared with DatabaseConnection
+                    .setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false")
+                    .setProperty(AvailableSettings.USE_QUERY_CACHE, "false")
                     .addAnnotatedClass(User.class)
                     .addAnnotatedClass(Account.class)
                     .buildSessionFactory();
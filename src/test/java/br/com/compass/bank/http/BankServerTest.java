@@ -0,0 +1,205 @@
+package br.com.compass.bank.http;
+
+import br.com.compass.bank.Benchmark;
+import br.com.compass.bank.TestAccounts;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BankServerTest {
+
+    private static final int LOAD_ACCOUNTS = 8;
+    private static final int LOAD_THREADS = 32;
+    private static final int LOAD_REQUESTS_PER_THREAD = 100;
+
+    private static final HttpClient client = HttpClient.newHttpClient();
+    private static BankServer server;
+
+    @BeforeAll
+    static void start() {
+        server = BankServer.start(new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    @Test
+    void testEndpoints() throws Exception {
+        String payer = TestAccounts.cpf(), payee = TestAccounts.cpf();
+        long id = register(payer, TestAccounts.phone());
+        long other = register(payee, TestAccounts.phone());
+        String token = login(id);
+
+        assertEquals("{\"balance\":\"100.00\"}", post("/api/deposit", token, "{\"amount\": \"100\"}").body());
+        assertEquals("{\"balance\":\"70.00\"}", post("/api/withdraw", token, "{\"amount\": 30}").body());
+        assertEquals("{\"balance\":\"50.00\"}", post("/api/transfer", token, "{\"to\": \"" + other + "\", \"amount\": \"20.00\"}").body());
+        assertEquals("{\"balance\":\"45.00\"}", post("/api/transfer", token, "{\"toCpf\": \"" + payee + "\", \"amount\": \"5.00\"}").body());
+
+        // The statement is paged newest first, following the returned cursor
+        HttpResponse<String> first = get("/api/statement?size=3", token);
+        assertEquals(200, first.statusCode());
+        assertEquals(List.of("-5.00", "-20.00", "-30.00"), field(first.body(), "amount"));
+        String next = field(first.body(), "next").get(0);
+
+        HttpResponse<String> second = get("/api/statement?size=3&after=" + next, token);
+        assertEquals(List.of("100.00"), field(second.body(), "amount"));
+        assertTrue(second.body().endsWith("\"next\":null}"), second.body());
+
+        // Errors carry the status and the message the console would print
+        assertError(401, "Missing bearer token.", post("/api/deposit", null, "{\"amount\": 1}"));
+        assertError(401, "Your session has expired. Please log in again.", post("/api/deposit", "nope", "{\"amount\": 1}"));
+        assertError(401, "Incorrect password.", post("/api/login", null, "{\"id\": " + id + ", \"password\": \"wrong123\"}"));
+        assertError(400, "The field amount is required.", post("/api/deposit", token, "{}"));
+        assertError(400, "The field amount must be an amount with at most two decimal places.", post("/api/deposit", token, "{\"amount\": \"1.005\"}"));
+        assertError(400, "The request body is not valid JSON.", post("/api/deposit", token, "{\"amount\": "));
+        assertError(422, "Deposit amount must be greater than zero.", post("/api/deposit", token, "{\"amount\": 0}"));
+        assertError(422, "Insufficient funds. Available balance: 45.00", post("/api/withdraw", token, "{\"amount\": 45.01}"));
+        assertError(422, "Destination account does not exist.", post("/api/transfer", token, "{\"to\": " + Long.MAX_VALUE + ", \"amount\": 1}"));
+        assertError(400, "The field to must be an account ID.", post("/api/transfer", token, "{\"to\": \"" + payee + "\", \"amount\": 1}"));
+        assertError(400, "Provide either the field to, an account ID, or the field toCpf, a CPF.", post("/api/transfer", token, "{\"to\": " + other + ", \"toCpf\": \"" + payee + "\", \"amount\": 1}"));
+        assertError(422, "An account has already been registered with the provided CPF.", post("/api/register", null, registration(payer, TestAccounts.phone())));
+        assertError(400, "Invalid CPF: the check digits do not match.", post("/api/register", null, registration("529.982.247-26", TestAccounts.phone())));
+        assertError(405, "Method not allowed. Use GET.", post("/api/statement", token, "{}"));
+        assertError(404, "Not found.", get("/api/deposit/more", token));
+
+        BankServer.Snapshot snapshot = server.snapshot();
+        assertTrue(snapshot.requests() >= 20);
+        assertTrue(snapshot.errors() >= 15);
+    }
+
+    @Test
+    void testLoad() throws Exception {
+        List<String> tokens = openLoadAccounts();
+        load(tokens);
+
+        // Every deposit of every client landed exactly once
+        HttpResponse<String> response = post("/api/deposit", tokens.get(0), "{\"amount\": \"0.01\"}");
+        int deposits = (LOAD_THREADS / LOAD_ACCOUNTS) * (LOAD_REQUESTS_PER_THREAD - LOAD_REQUESTS_PER_THREAD / 4);
+        assertEquals("{\"balance\":\"" + deposits + ".01\"}", response.body());
+    }
+
+    @Benchmark
+    void benchmarkLoad() throws Exception {
+        List<String> tokens = openLoadAccounts();
+
+        long start = System.nanoTime();
+        long[] latencies = load(tokens);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("HTTP API with %d clients (%s): %,.0f requests/s, latency p50 %d us, p99 %d us, max %d us%n",
+                LOAD_THREADS, server.snapshot().virtualThreads() ? "virtual threads" : "bounded thread pool",
+                latencies.length / seconds, percentile(latencies, 50), percentile(latencies, 99), latencies[latencies.length - 1] / 1_000);
+    }
+
+    private static List<String> openLoadAccounts() throws IOException, InterruptedException {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < LOAD_ACCOUNTS; i++) {
+            long id = register(TestAccounts.cpf(), TestAccounts.phone());
+            tokens.add(login(id));
+        }
+        return tokens;
+    }
+
+    /**
+     * Runs the load clients, each depositing on one of the accounts and reading its statement every fourth request.
+     *
+     * @return the latency of every request, in nanoseconds.
+     */
+    private static long[] load(List<String> tokens) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(LOAD_THREADS);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        for (int t = 0; t < LOAD_THREADS; t++) {
+            String token = tokens.get(t % LOAD_ACCOUNTS);
+            futures.add(clients.submit(() -> {
+                long[] latencies = new long[LOAD_REQUESTS_PER_THREAD];
+                for (int i = 0; i < LOAD_REQUESTS_PER_THREAD; i++) {
+                    long sent = System.nanoTime();
+                    HttpResponse<String> response = (i % 4 == 3) ? get("/api/statement?size=10", token) : post("/api/deposit", token, "{\"amount\": \"1.00\"}");
+                    latencies[i] = System.nanoTime() - sent;
+                    assertEquals(200, response.statusCode(), response.body());
+                }
+                return latencies;
+            }));
+        }
+
+        long[] latencies = new long[LOAD_THREADS * LOAD_REQUESTS_PER_THREAD];
+        for (int t = 0; t < LOAD_THREADS; t++)
+            System.arraycopy(futures.get(t).get(), 0, latencies, t * LOAD_REQUESTS_PER_THREAD, LOAD_REQUESTS_PER_THREAD);
+        clients.shutdown();
+        return latencies;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1_000;
+    }
+
+    private static long register(String cpf, String phone) throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/api/register", null, registration(cpf, phone));
+        assertEquals(200, response.statusCode(), response.body());
+        return Long.parseLong(field(response.body(), "id").get(0));
+    }
+
+    private static String registration(String cpf, String phone) {
+        return "{\"name\": \"Api Client\", \"cpf\": \"" + cpf + "\", \"phone\": \"" + phone + "\", \"password\": \"secret123\", \"type\": \"checking\"}";
+    }
+
+    private static String login(long id) throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/api/login", null, "{\"id\": " + id + ", \"password\": \"secret123\"}");
+        assertEquals(200, response.statusCode(), response.body());
+        return field(response.body(), "token").get(0);
+    }
+
+    private static HttpResponse<String> post(String path, String token, String body) throws IOException, InterruptedException {
+        return send(request(path, token).POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private static HttpResponse<String> get(String path, String token) throws IOException, InterruptedException {
+        return send(request(path, token).GET());
+    }
+
+    private static HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.address().getPort() + path));
+        return (token == null) ? builder : builder.header("Authorization", "Bearer " + token);
+    }
+
+    private static HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void assertError(int status, String message, HttpResponse<String> response) {
+        assertEquals(status, response.statusCode(), response.body());
+        assertEquals("{\"error\":\"" + message + "\"}", response.body());
+    }
+
+    /**
+     * Extracts every value of a field from a flat JSON response, good enough for the bodies of this API.
+     */
+    private static List<String> field(String body, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":\"?([^\",}]*)\"?").matcher(body);
+        List<String> values = new ArrayList<>();
+        while (matcher.find())
+            values.add(matcher.group(1));
+        return values;
+    }
+}
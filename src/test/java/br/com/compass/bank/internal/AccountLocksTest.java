@@ -0,0 +1,174 @@
+package br.com.compass.bank.internal;
+
+import br.com.compass.bank.Benchmark;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLocksTest {
+
+    private static final int THREADS = 16;
+    private static final int ACCOUNTS = 1000;
+    private static final int OPERATIONS = 800;
+
+    /**
+     * Cumulative distribution of a Zipfian (s = 1) choice among the accounts, so a few accounts are very hot.
+     */
+    private static final double[] ZIPF = new double[ACCOUNTS];
+
+    static {
+        double sum = 0;
+        for (int i = 0; i < ACCOUNTS; i++)
+            ZIPF[i] = sum += 1.0 / (i + 1);
+        for (int i = 0; i < ACCOUNTS; i++)
+            ZIPF[i] /= sum;
+    }
+
+    private static long uniform() {
+        return ThreadLocalRandom.current().nextLong(ACCOUNTS);
+    }
+
+    private static long zipfian() {
+        int index = Arrays.binarySearch(ZIPF, ThreadLocalRandom.current().nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, ACCOUNTS - 1);
+    }
+
+    /**
+     * Runs transfers between two random accounts, each holding its locks for a simulated database
+     * transaction, and returns the achieved throughput in operations per second.
+     */
+    private static double load(AccountLocks locks, LongSupplier accounts) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            futures.add(executor.submit(() -> {
+                long from = accounts.getAsLong(), to = accounts.getAsLong();
+                return locks.withLocks(from, to, () -> {
+                    try {
+                        Thread.sleep(1); // simulated database round trip
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                });
+            }));
+        }
+
+        for (Future<?> future : futures)
+            future.get();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        return OPERATIONS / seconds;
+    }
+
+    @Test
+    void testStripesSizeIsRoundedToPowerOfTwo() {
+        assertEquals(1024, new AccountLocks(1000).stripes());
+        assertEquals(1, new AccountLocks(1).stripes());
+        assertThrows(IllegalArgumentException.class, () -> new AccountLocks(0));
+    }
+
+    @Test
+    void testTransfersAreMutuallyExclusiveAndNeverDeadlock() throws Exception {
+        AccountLocks locks = new AccountLocks(8); // few stripes, so many pairs share or cross stripes
+        long[] balances = new long[64];
+        Arrays.fill(balances, 1000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 10_000; i++) {
+                    int from = random.nextInt(balances.length), to = random.nextInt(balances.length);
+                    locks.withLocks((long) from, (long) to, () -> {
+                        // Unsynchronized read-modify-write, only safe under the account locks
+                        balances[from] -= 1;
+                        balances[to] += 1;
+                        return null;
+                    });
+                }
+            }));
+        }
+
+        for (Future<?> future : futures)
+            future.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(1000L * balances.length, Arrays.stream(balances).sum());
+    }
+
+    @Test
+    void testCrossedPairsNeverDeadlock() throws Exception {
+        AccountLocks locks = new AccountLocks(1024);
+        long first = 1, second = 2;
+        assertNotEquals(locks.stripe(first), locks.stripe(second));
+
+        // Both stripes are always taken in the same order, whichever account comes first
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> forward = executor.submit(() -> {
+            for (int i = 0; i < 100_000; i++)
+                locks.withLocks(first, second, () -> null);
+        });
+        Future<?> backward = executor.submit(() -> {
+            for (int i = 0; i < 100_000; i++)
+                locks.withLocks(second, first, () -> null);
+        });
+
+        forward.get(30, TimeUnit.SECONDS);
+        backward.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    void testUnrelatedAccountsDoNotBlockEachOther() throws Exception {
+        AccountLocks locks = new AccountLocks(1024);
+        long busy = 1, free = 2;
+        assertNotEquals(locks.stripe(busy), locks.stripe(free));
+
+        CountDownLatch held = new CountDownLatch(1), release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> holder = executor.submit(() -> locks.withLock(busy, () -> {
+            held.countDown();
+            try {
+                return release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertTrue(held.await(30, TimeUnit.SECONDS));
+
+        // Another account's stripe is free while the first one is held
+        assertEquals("done", executor.submit(() -> locks.withLock(free, () -> "done")).get(30, TimeUnit.SECONDS));
+
+        release.countDown();
+        holder.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Benchmark
+    void benchmarkThroughputWithStripes() throws Exception {
+        double global = load(new AccountLocks(1), AccountLocksTest::uniform);
+        double uniform = load(new AccountLocks(1024), AccountLocksTest::uniform);
+        double skewed = load(new AccountLocks(1024), AccountLocksTest::zipfian);
+
+        System.out.printf("Account locks with %d threads: global %.0f ops/s, striped uniform %.0f ops/s, striped zipfian %.0f ops/s%n",
+                THREADS, global, uniform, skewed);
+    }
+
+}
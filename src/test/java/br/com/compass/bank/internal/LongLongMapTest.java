@@ -0,0 +1,69 @@
+package br.com.compass.bank.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongMapTest {
+
+    @Test
+    void testMatchesHashMapThroughGrowth() {
+        LongLongMap map = new LongLongMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(50_000);
+            long delta = random.nextInt(2_000) - 1_000;
+            if (random.nextBoolean()) {
+                map.put(key, delta);
+                expected.put(key, delta);
+            } else {
+                assertEquals(expected.merge(key, delta, Long::sum), map.add(key, delta));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key, Long.MIN_VALUE)));
+        assertEquals(Long.MIN_VALUE, map.get(50_001, Long.MIN_VALUE));
+        assertFalse(map.containsKey(0));
+
+        long[] keys = map.keys();
+        assertEquals(expected.size(), keys.length);
+        for (int i = 1; i < keys.length; i++)
+            assertTrue(keys[i - 1] < keys[i]);
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        LongLongMap map = new LongLongMap(16);
+        map.put(1, 100);
+        map.put(-7, 5);
+
+        LongLongMap copy = map.copy();
+        assertEquals(map, copy);
+        assertEquals(map.hashCode(), copy.hashCode());
+
+        copy.add(1, 1);
+        copy.put(2, 0);
+        assertEquals(100, map.get(1, 0));
+        assertFalse(map.containsKey(2));
+        assertNotEquals(map, copy);
+    }
+
+    @Test
+    void testRejectsReservedKeyAndOverflow() {
+        LongLongMap map = new LongLongMap(16);
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> map.add(0, 1));
+
+        map.put(3, Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> map.add(3, 1));
+        assertEquals(Long.MAX_VALUE, map.get(3, 0));
+    }
+
+}
@@ -0,0 +1,73 @@
+package br.com.compass.bank.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    @Test
+    void testHashAndVerifyWithConfiguredCost() {
+        PasswordHasher hasher = new PasswordHasher(4, 2, 8);
+
+        String hash = hasher.hash("secret123");
+
+        assertTrue(hash.startsWith("$2a$04$"), hash);
+        assertTrue(hasher.verify("secret123", hash));
+        assertFalse(hasher.verify("wrong", hash));
+
+        PasswordHasher.Snapshot snapshot = hasher.snapshot();
+        assertEquals(3, snapshot.completed());
+        assertEquals(0, snapshot.rejected());
+    }
+
+    @Test
+    void testNeedsRehashBelowTargetCost() {
+        PasswordHasher hasher = new PasswordHasher(6, 1, 1);
+
+        assertTrue(hasher.needsRehash("$2a$04$abcdefghijklmnopqrstuu"));
+        assertFalse(hasher.needsRehash("$2a$06$abcdefghijklmnopqrstuu"));
+        assertFalse(hasher.needsRehash("$2a$12$abcdefghijklmnopqrstuu"));
+        assertFalse(hasher.needsRehash("not-a-bcrypt-hash"));
+        assertFalse(hasher.needsRehash(null));
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(12, 1, 1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        // One hash runs and one waits in the queue, so the pool is saturated
+        assertTrue(hasher.hashLater("first", Runnable::run, hash -> done.countDown()));
+        assertTrue(hasher.hashLater("second", Runnable::run, hash -> done.countDown()));
+
+        assertThrows(RejectedExecutionException.class, () -> hasher.hash("third"));
+        assertFalse(hasher.hashLater("fourth", Runnable::run, hash -> fail("Should have been rejected")));
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        PasswordHasher.Snapshot snapshot = hasher.snapshot();
+        assertEquals(2, snapshot.rejected());
+        assertTrue(snapshot.averageHashMicros() > 0);
+        assertTrue(snapshot.maxWaitMicros() > 0, "The queued hash should have waited for the running one");
+    }
+
+    @Test
+    void testLaterHashCallbackRunsOffTheHashingPool() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(4, 1, 1);
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "writer"));
+        CompletableFuture<String> thread = new CompletableFuture<>();
+
+        assertTrue(hasher.hashLater("secret123", writer, hash -> thread.complete(Thread.currentThread().getName())));
+
+        assertEquals("writer", thread.get(30, TimeUnit.SECONDS));
+        writer.shutdown();
+    }
+
+}
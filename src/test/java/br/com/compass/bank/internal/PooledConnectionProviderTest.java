@@ -0,0 +1,113 @@
+package br.com.compass.bank.internal;
+
+import org.hibernate.cfg.JdbcSettings;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledConnectionProviderTest {
+
+    private static final int THREADS = 32;
+    private static final int REQUESTS = 640;
+
+    private static PooledConnectionProvider provider(int size) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put(JdbcSettings.JAKARTA_JDBC_DRIVER, "org.h2.Driver");
+        settings.put(JdbcSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1");
+        settings.put(JdbcSettings.JAKARTA_JDBC_USER, "sa");
+        settings.put(JdbcSettings.JAKARTA_JDBC_PASSWORD, "");
+        settings.put(PooledConnectionProvider.MIN_SIZE, "1");
+        settings.put(PooledConnectionProvider.MAX_SIZE, String.valueOf(size));
+
+        PooledConnectionProvider provider = new PooledConnectionProvider();
+        provider.configure(settings);
+        return provider;
+    }
+
+    /**
+     * Runs a fixed number of requests, each holding a connection for a simulated round trip,
+     * and returns the achieved throughput in requests per second.
+     */
+    private static double load(PooledConnectionProvider provider) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(executor.submit(() -> {
+                Connection connection = provider.getConnection();
+                try (Statement statement = connection.createStatement();
+                     ResultSet result = statement.executeQuery("SELECT 1")) {
+                    result.next();
+                    Thread.sleep(2); // simulated network round trip
+                } finally {
+                    provider.closeConnection(connection);
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> future : futures)
+            future.get();
+
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        return REQUESTS / (elapsed / 1_000_000_000.0);
+    }
+
+    @Test
+    void testThroughputScalesWithPoolSize() throws Exception {
+        int[] sizes = {1, 4, 16};
+        double[] throughput = new double[sizes.length];
+
+        for (int i = 0; i < sizes.length; i++) {
+            PooledConnectionProvider provider = provider(sizes[i]);
+            try {
+                throughput[i] = load(provider);
+                PoolMetrics.Snapshot metrics = provider.getMetrics().snapshot();
+
+                assertEquals(REQUESTS, metrics.acquired());
+                assertEquals(0, metrics.timeouts());
+            } finally {
+                provider.stop();
+            }
+        }
+
+        // Only a coarse gain is asserted, the steps in between depend on the machine
+        assertTrue(throughput[sizes.length - 1] >= 2 * throughput[0],
+                "Throughput should grow with the pool size: " + Arrays.toString(throughput));
+    }
+
+    @Test
+    void testMetricsReportPoolState() throws Exception {
+        PooledConnectionProvider provider = provider(2);
+        try {
+            Connection connection = provider.getConnection();
+            PoolMetrics.Snapshot busy = provider.getMetrics().snapshot();
+            assertEquals(1, busy.active());
+
+            provider.closeConnection(connection);
+            PoolMetrics.Snapshot released = provider.getMetrics().snapshot();
+            assertEquals(0, released.active());
+            assertEquals(1, released.acquired());
+        } finally {
+            provider.stop();
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package br.com.compass.bank.internal;
+
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.exception.LockAcquisitionException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    @Test
+    void testRetriesConflictsUntilSuccess() {
+        RetryPolicy policy = new RetryPolicy(5, 1, 4);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = policy.execute("transfer", () -> {
+            if (attempts.incrementAndGet() < 3)
+                throw new OptimisticLockException("conflict");
+            return "done";
+        }, 1L, 2L);
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+
+        RetryPolicy.Snapshot snapshot = policy.snapshot();
+        assertEquals(1, snapshot.calls());
+        assertEquals(2, snapshot.retries());
+        assertEquals(0, snapshot.exhausted());
+        assertEquals(2.0, snapshot.retryRate());
+        assertEquals(2L, snapshot.retriesByOperation().get("transfer"));
+        assertEquals(2L, snapshot.hottestAccounts().get(1L));
+    }
+
+    @Test
+    void testAccountCountsStayBoundedAndKeepTheHottest() {
+        RetryPolicy policy = new RetryPolicy(2, 0, 0);
+
+        // One hot account among ten thousand that retry once each
+        for (long account = 1; account <= 10_000; account++) {
+            long other = 100_000 + account;
+            policy.execute("transfer", conflictOnce(), 42L, other);
+        }
+
+        RetryPolicy.Snapshot snapshot = policy.snapshot();
+        assertEquals(10_000, snapshot.retries());
+        assertEquals(10, snapshot.hottestAccounts().size());
+        assertEquals(42L, snapshot.hottestAccounts().keySet().iterator().next());
+        assertEquals(10_000L, snapshot.hottestAccounts().get(42L));
+    }
+
+    private static Supplier<String> conflictOnce() {
+        AtomicInteger attempts = new AtomicInteger();
+        return () -> {
+            if (attempts.incrementAndGet() == 1)
+                throw new OptimisticLockException("conflict");
+            return "done";
+        };
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        RetryPolicy policy = new RetryPolicy(3, 0, 0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(LockAcquisitionException.class, () -> policy.execute("withdraw", () -> {
+            attempts.incrementAndGet();
+            throw new LockAcquisitionException("deadlock", new SQLException("deadlock detected", "40P01"));
+        }, 7L));
+
+        assertEquals(3, attempts.get());
+        assertEquals(1, policy.snapshot().exhausted());
+    }
+
+    @Test
+    void testDoesNotRetryOtherFailures() {
+        RetryPolicy policy = new RetryPolicy(5, 0, 0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> policy.execute("deposit", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Insufficient funds");
+        }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(0, policy.snapshot().retries());
+    }
+
+    @Test
+    void testDoesNotRetryInsideActiveUnitOfWork() {
+        RetryPolicy policy = new RetryPolicy(5, 0, 0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(OptimisticLockException.class, () -> UnitOfWork.run(session -> policy.execute("deposit", () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockException("conflict");
+        })));
+
+        assertEquals(1, attempts.get());
+    }
+
+}
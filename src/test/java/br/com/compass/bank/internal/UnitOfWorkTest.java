@@ -0,0 +1,71 @@
+package br.com.compass.bank.internal;
+
+import br.com.compass.bank.TestAccounts;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.repository.AccountRepository;
+import br.com.compass.bank.service.TransactionService;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnitOfWorkTest {
+
+    private static Account first;
+    private static Account second;
+
+    @BeforeAll
+    static void setup() {
+        first = TestAccounts.open("Unit Of Work", Money.parse("100.00"));
+        second = TestAccounts.open("Unit Of Work", Money.parse("100.00"));
+    }
+
+    @Test
+    void testNestedCallsShareOneSession() {
+        Session outer = UnitOfWork.execute(session -> {
+            assertSame(session, UnitOfWork.execute(nested -> nested));
+            assertEquals(1, UnitOfWork.openSessions());
+            return session;
+        });
+
+        assertFalse(outer.isOpen());
+        assertFalse(UnitOfWork.isActive());
+        assertEquals(0, UnitOfWork.openSessions());
+    }
+
+    @Test
+    void testTransferUsesOneSession() {
+        long before = UnitOfWork.openedSessions();
+
+        TransactionService.transfer(first, second, Money.ofCents(100));
+
+        assertEquals(1, UnitOfWork.openedSessions() - before);
+        assertEquals(0, UnitOfWork.openSessions());
+    }
+
+    @Test
+    void testFailureRollsBackEveryNestedCall() {
+        Money balance = AccountRepository.findBalance(first.getId()).orElseThrow();
+
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.run(session -> {
+            AccountRepository.adjustBalance(first.getId(), 1000);
+            throw new IllegalStateException("boom");
+        }));
+
+        // A nested failure caught by the caller still dooms the unit of work
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.run(session -> {
+            AccountRepository.adjustBalance(first.getId(), 1000);
+            try {
+                UnitOfWork.run(nested -> { throw new IllegalArgumentException("nested"); });
+            } catch (IllegalArgumentException ignored) {
+            }
+        }));
+
+        assertEquals(balance, AccountRepository.findBalance(first.getId()).orElseThrow());
+        assertEquals(0, UnitOfWork.openSessions());
+    }
+
+}
@@ -0,0 +1,237 @@
+package br.com.compass.bank.journal;
+
+import br.com.compass.bank.Benchmark;
+import br.com.compass.bank.TestAccounts;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.Transaction;
+import br.com.compass.bank.model.TransactionType;
+import br.com.compass.bank.repository.LedgerRecord;
+import br.com.compass.bank.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionJournalTest {
+
+    private static final int THREADS = 16;
+    private static final int SEGMENT_BYTES = 100 * JournalEntry.SIZE;
+
+    private static Account first;
+    private static Account second;
+
+    private static LedgerRecord transfer(long cents) {
+        return new LedgerRecord(TransactionType.TRANSFER, first.getId(), second.getId(), Money.ofCents(cents), LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_456_000));
+    }
+
+    @BeforeAll
+    static void setup() {
+        first = TestAccounts.open("Journal Tester", Money.ZERO);
+        second = TestAccounts.open("Journal Tester", Money.ZERO);
+    }
+
+    @Test
+    void testEntriesSurviveReopenAcrossSegments(@TempDir Path dir) {
+        try (TransactionJournal journal = new TransactionJournal(dir, SEGMENT_BYTES)) {
+            for (int i = 1; i <= 250; i++)
+                assertEquals(i, journal.append(transfer(i)));
+            assertEquals(3, journal.snapshot().segments());
+        }
+
+        try (TransactionJournal journal = new TransactionJournal(dir, SEGMENT_BYTES)) {
+            assertEquals(250, journal.lastSequence());
+
+            List<JournalEntry> entries = journal.read(95, 10);
+            assertEquals(10, entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                assertEquals(95 + i, entries.get(i).sequence());
+                assertEquals(transfer(95 + i), entries.get(i).record());
+            }
+
+            assertEquals(251, journal.append(new LedgerRecord(TransactionType.DEPOSIT, null, first.getId(), Money.ofCents(1), LocalDateTime.now())));
+            assertNull(journal.read(251, 1).get(0).record().sender());
+            assertTrue(journal.read(252, 10).isEmpty());
+        }
+    }
+
+    @Test
+    void testOpeningsAreKeptApartFromTransactions(@TempDir Path dir) {
+        try (TransactionJournal journal = new TransactionJournal(dir, SEGMENT_BYTES)) {
+            journal.writeOpening(41, 7, 1_000);
+            journal.write(transfer(5));
+            journal.awaitDurable(journal.writeOpening(42, 9, 0));
+
+            List<JournalEntry> entries = journal.read(1, 10);
+            assertEquals(List.of(true, false, true), entries.stream().map(JournalEntry::isOpening).toList());
+            assertEquals(transfer(5), entries.get(1).record());
+
+            List<String> visited = new ArrayList<>();
+            assertEquals(3, journal.scan(1, new TransactionJournal.Visitor() {
+                @Override
+                public void visit(long sequence, TransactionType type, long sender, long receiver, long cents) {
+                    visited.add(sequence + " " + type + " " + cents);
+                }
+
+                @Override
+                public void open(long sequence, long account, long profile, long cents) {
+                    visited.add(sequence + " open " + account + " " + profile + " " + cents);
+                }
+            }));
+            assertEquals(List.of("1 open 41 7 1000", "2 TRANSFER 5", "3 open 42 9 0"), visited);
+        }
+    }
+
+    @Test
+    void testTornEntryIsDiscardedOnRecovery(@TempDir Path dir) throws IOException {
+        try (TransactionJournal journal = new TransactionJournal(dir, SEGMENT_BYTES)) {
+            for (int i = 1; i <= 10; i++)
+                journal.append(transfer(i));
+        }
+
+        // Corrupt the amount of the last entry, as if the process died halfway through writing it
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), 9L * JournalEntry.SIZE + 30);
+        }
+
+        try (TransactionJournal journal = new TransactionJournal(dir, SEGMENT_BYTES)) {
+            assertEquals(9, journal.lastSequence());
+            assertEquals(10, journal.append(transfer(1000)));
+            assertEquals(Money.ofCents(1000), journal.read(10, 1).get(0).record().amount());
+        }
+    }
+
+    @Test
+    void testConcurrentWritersAreGroupCommitted(@TempDir Path dir) throws Exception {
+        int perThread = 500;
+        Set<Long> sequences = ConcurrentHashMap.newKeySet();
+
+        try (TransactionJournal journal = new TransactionJournal(dir)) {
+            run(THREADS, perThread, i -> sequences.add(journal.append(transfer(i + 1))));
+
+            TransactionJournal.Snapshot snapshot = journal.snapshot();
+            assertEquals(THREADS * perThread, sequences.size());
+            assertEquals(THREADS * perThread, journal.durableSequence());
+            assertEquals(THREADS * perThread, snapshot.appended());
+            assertTrue(snapshot.forces() < snapshot.appended(), "Every append was flushed on its own: " + snapshot);
+        }
+    }
+
+    @Test
+    void testReplayCopiesEntriesIntoLedgerOnce(@TempDir Path dir) throws Exception {
+        try (TransactionJournal journal = new TransactionJournal(dir, SEGMENT_BYTES)) {
+            long start = TransactionRepository.findLastJournalSequence();
+            for (int i = 1; i <= 1500; i++)
+                journal.append(transfer(i));
+
+            try (JournalReplayer replayer = new JournalReplayer(journal)) {
+                assertEquals(start, replayer.replayedSequence());
+                assertEquals(1500, replayer.replayPending());
+                assertEquals(0, replayer.replayPending());
+            }
+
+            // A new replayer resumes from the ledger, so nothing is inserted twice
+            journal.append(transfer(7));
+            try (JournalReplayer replayer = new JournalReplayer(journal)) {
+                replayer.start(Duration.ofMillis(10));
+                for (int i = 0; i < 500 && replayer.replayedSequence() < 1501; i++)
+                    Thread.sleep(10);
+
+                assertEquals(1501, replayer.replayedSequence());
+                assertEquals(1, replayer.replayedEntries());
+                assertEquals(0, replayer.failures());
+            }
+        }
+
+        List<Transaction> replayed = TransactionRepository.findBySender(first).stream()
+                .filter(transaction -> transaction.getJournalSequence() != null)
+                .toList();
+        assertEquals(1501, replayed.size());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_456_000), replayed.get(0).getTimestamp());
+    }
+
+    /**
+     * Runs an operation from many threads at once.
+     */
+    private static void run(int threads, int perThread, Consumer<Integer> operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++)
+                    operation.accept(offset + i);
+            }));
+        }
+
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+    }
+
+    /**
+     * Writes ledger records from many threads and returns the throughput and the 99th percentile latency.
+     */
+    private static double[] load(int perThread, Consumer<LedgerRecord> write) throws Exception {
+        long[] latencies = new long[THREADS * perThread];
+
+        long start = System.nanoTime();
+        run(THREADS, perThread, i -> {
+            long begin = System.nanoTime();
+            write.accept(transfer(i + 1));
+            latencies[i] = System.nanoTime() - begin;
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        return new double[] {latencies.length / seconds, latencies[(int) (latencies.length * 0.99)] / 1e3};
+    }
+
+    @Benchmark
+    void benchmarkJournalAgainstDirectLedgerWrites(@TempDir Path dir) throws Exception {
+        Consumer<LedgerRecord> database = record -> TransactionRepository.save(Transaction.builder()
+                .sender(first)
+                .receiver(second)
+                .type(record.type())
+                .amount(record.amount())
+                .timestamp(record.timestamp())
+                .build());
+
+        try (TransactionJournal journal = new TransactionJournal(dir)) {
+            // Warm-up round
+            load(50, database);
+            load(50, journal::append);
+
+            double[] direct = load(100, database);
+            double[] journaled = load(100, journal::append);
+
+            System.out.printf("Ledger writes with %d threads: database %.0f ops/s (p99 %.0f us), journal %.0f ops/s (p99 %.0f us)%n",
+                    THREADS, direct[0], direct[1], journaled[0], journaled[1]);
+        }
+    }
+
+}
@@ -0,0 +1,236 @@
+package br.com.compass.bank.ledger;
+
+import br.com.compass.bank.Benchmark;
+import br.com.compass.bank.exception.transaction.TransactionException;
+import br.com.compass.bank.journal.TransactionJournal;
+import br.com.compass.bank.model.AccountType;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.TransactionType;
+import br.com.compass.bank.repository.LedgerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerBookTest {
+
+    private static final int RECOVERY_TRANSACTIONS = 10_000_000;
+    private static final int RECOVERY_ACCOUNTS = 10_000;
+
+    private static final long ALICE = 52998224725L, BOB = 11144477735L;
+
+    /**
+     * Opens a book over a fresh journal with Alice's checking and savings accounts and Bob's checking account.
+     */
+    private static LedgerBook book(TransactionJournal journal, Path snapshots) {
+        LedgerBook book = LedgerBook.recover(journal, snapshots);
+        book.register(1, AccountType.CHECKING, ALICE, Money.parse("100.00"));
+        book.register(2, AccountType.SAVINGS, ALICE, Money.parse("50.00"));
+        book.register(3, AccountType.CHECKING, BOB, Money.ZERO);
+        return book;
+    }
+
+    private static String error(Runnable operation) {
+        return assertThrows(TransactionException.class, operation::run).getMessage();
+    }
+
+    @Test
+    void testOperationsFollowTransactionServiceRules(@TempDir Path dir) {
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("journal")); LedgerBook book = book(journal, dir.resolve("snapshots"))) {
+            assertEquals(Money.parse("125.50"), book.deposit(1, Money.parse("25.50")));
+            assertEquals(Money.parse("115.50"), book.withdraw(1, Money.parse("10.00")));
+            assertEquals(Money.parse("95.50"), book.transfer(1, 3, Money.parse("20.00")));
+
+            // Checking to savings of the same owner is the only transfer allowed between the same CPF
+            assertEquals(Money.parse("85.50"), book.transfer(1, 2, Money.parse("10.00")));
+            assertEquals(Optional.of(Money.parse("60.00")), book.balance(2));
+
+            assertEquals("Deposit amount must be greater than zero.", error(() -> book.deposit(1, Money.ZERO)));
+            assertEquals("Savings accounts are not allowed to perform transfers.", error(() -> book.transfer(2, 3, Money.parse("1.00"))));
+            assertEquals("Destination account does not exist.", error(() -> book.transfer(1, 99, Money.parse("1.00"))));
+            assertEquals("Cannot transfer to the same account.", error(() -> book.transfer(1, 1, Money.parse("1.00"))));
+            assertEquals("Insufficient funds. Available balance: 85.50", error(() -> book.withdraw(1, Money.parse("85.51"))));
+            assertEquals("The account with ID 99 does not exist.", error(() -> book.deposit(99, Money.parse("1.00"))));
+
+            book.register(4, AccountType.SAVINGS, BOB, Money.ZERO);
+            assertTrue(error(() -> book.transfer(1, 4, Money.ZERO)).startsWith("Transfer amount"));
+            book.register(5, AccountType.CHECKING, ALICE, Money.ZERO);
+            assertTrue(error(() -> book.transfer(1, 5, Money.parse("1.00"))).startsWith("Sender and receiver cannot have the same CPF"));
+
+            // Only the five openings and the successful operations were journaled
+            assertEquals(9, journal.durableSequence());
+            assertEquals(9, book.appliedSequence());
+
+            // Registering a known account with the same profile journals nothing
+            book.register(1, AccountType.CHECKING, ALICE, Money.ZERO);
+            assertEquals(9, journal.lastSequence());
+            assertEquals(Optional.of(Money.parse("85.50")), book.balance(1));
+        }
+    }
+
+    @Test
+    void testRecoveryFromJournalAlone(@TempDir Path dir) {
+        Path snapshots = dir.resolve("snapshots");
+
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("journal")); LedgerBook book = book(journal, snapshots)) {
+            book.deposit(3, Money.parse("5.00"));
+            book.transfer(1, 3, Money.parse("30.00"));
+            book.register(4, AccountType.CHECKING, BOB, Money.parse("12.00"));
+        }
+
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("journal")); LedgerBook recovered = LedgerBook.recover(journal, snapshots)) {
+            assertEquals(journal.lastSequence(), recovered.appliedSequence());
+            assertEquals(Optional.of(Money.parse("70.00")), recovered.balance(1));
+            assertEquals(Optional.of(Money.parse("50.00")), recovered.balance(2));
+            assertEquals(Optional.of(Money.parse("35.00")), recovered.balance(3));
+            assertEquals(Optional.of(Money.parse("12.00")), recovered.balance(4));
+
+            // Profiles came back with the openings, so the transfer rules still apply
+            assertTrue(error(() -> recovered.transfer(2, 3, Money.parse("1.00"))).startsWith("Savings accounts"));
+            assertTrue(error(() -> recovered.transfer(3, 4, Money.parse("1.00"))).startsWith("Sender and receiver cannot have the same CPF"));
+            assertEquals(Money.parse("69.00"), recovered.transfer(1, 4, Money.parse("1.00")));
+
+            // Registering again after recovery keeps the recovered balance
+            recovered.register(1, AccountType.CHECKING, ALICE, Money.parse("100.00"));
+            assertEquals(Optional.of(Money.parse("69.00")), recovered.balance(1));
+        }
+    }
+
+    @Test
+    void testRecoveryFromSnapshotAndJournalTail(@TempDir Path dir) throws Exception {
+        Path snapshots = dir.resolve("snapshots");
+        List<Money> expected = new ArrayList<>();
+
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("journal")); LedgerBook book = book(journal, snapshots)) {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 500; i++) {
+                        try {
+                            switch (random.nextInt(3)) {
+                                case 0 -> book.deposit(1 + random.nextInt(3), Money.ofCents(1 + random.nextInt(1000)));
+                                case 1 -> book.withdraw(1 + random.nextInt(3), Money.ofCents(1 + random.nextInt(1000)));
+                                default -> book.transfer(random.nextBoolean() ? 1 : 3, random.nextBoolean() ? 2 : 3, Money.ofCents(1 + random.nextInt(1000)));
+                            }
+                        } catch (TransactionException ignored) {
+                            // Rejected operations are not journaled
+                        }
+                    }
+                }));
+
+                if (t == 4)
+                    book.snapshot(snapshots);
+            }
+            for (Future<?> future : futures)
+                future.get();
+            executor.shutdown();
+
+            for (long id = 1; id <= 3; id++)
+                expected.add(book.balance(id).orElseThrow());
+        }
+
+        try (Stream<Path> files = Files.list(snapshots)) {
+            assertEquals(1, files.count());
+        }
+
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("journal"))) {
+            LedgerBook recovered = LedgerBook.recover(journal, snapshots);
+            assertEquals(journal.lastSequence(), recovered.appliedSequence());
+            for (long id = 1; id <= 3; id++)
+                assertEquals(expected.get((int) id - 1), recovered.balance(id).orElseThrow());
+
+            // Rules still apply after recovery, since profiles are part of the snapshot
+            assertTrue(error(() -> recovered.transfer(2, 3, Money.parse("1.00"))).startsWith("Savings accounts"));
+        }
+    }
+
+    @Test
+    void testPeriodicSnapshotsKeepTheNewestTwo(@TempDir Path dir) throws Exception {
+        Path snapshots = dir.resolve("snapshots");
+
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("journal")); LedgerBook book = book(journal, snapshots)) {
+            book.startSnapshots(snapshots, Duration.ofMillis(20));
+            for (int i = 0; i < 50 && book.snapshotsWritten() < 4; i++) {
+                book.deposit(3, Money.ofCents(100));
+                Thread.sleep(10);
+            }
+
+            assertTrue(book.snapshotsWritten() >= 4, "Only " + book.snapshotsWritten() + " snapshots were written");
+            assertNull(book.lastSnapshotFailure());
+        }
+
+        try (Stream<Path> files = Files.list(snapshots)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void testRecoveryReplaysEveryJournaledTransaction(@TempDir Path dir) throws IOException {
+        recover(dir, 100_000);
+    }
+
+    @Benchmark
+    void benchmarkRecovery(@TempDir Path dir) throws IOException {
+        double seconds = recover(dir, RECOVERY_TRANSACTIONS);
+
+        System.out.printf("Ledger recovery: %,d transactions in %.2f s (%,.0f transactions/s)%n",
+                RECOVERY_TRANSACTIONS, seconds, RECOVERY_TRANSACTIONS / seconds);
+    }
+
+    /**
+     * Journals the opening of every account and a number of deposits, recovers a book from the journal
+     * alone and checks the recovered balances.
+     *
+     * @return the recovery time, in seconds.
+     */
+    private static double recover(Path dir, int transactions) throws IOException {
+        Path journalDir = dir.resolve("journal");
+        long[] expected = new long[RECOVERY_ACCOUNTS + 1];
+
+        try (TransactionJournal journal = new TransactionJournal(journalDir)) {
+            LocalDateTime now = LocalDateTime.now();
+            Money amount = Money.ofCents(125);
+            LedgerRecord[] deposits = new LedgerRecord[RECOVERY_ACCOUNTS + 1];
+            for (int id = 1; id <= RECOVERY_ACCOUNTS; id++) {
+                deposits[id] = new LedgerRecord(TransactionType.DEPOSIT, null, (long) id, amount, now);
+                journal.writeOpening(id, AccountType.CHECKING.ordinal(), 1_000);
+                expected[id] = 1_000;
+            }
+
+            for (int i = 0; i < transactions; i++) {
+                int id = 1 + (i % RECOVERY_ACCOUNTS);
+                journal.write(deposits[id]);
+                expected[id] += 125;
+            }
+        }
+
+        long start = System.nanoTime();
+        try (TransactionJournal journal = new TransactionJournal(journalDir)) {
+            LedgerBook book = LedgerBook.recover(journal, dir.resolve("snapshots"));
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            assertEquals(RECOVERY_ACCOUNTS + transactions, book.appliedSequence());
+            for (int id = 1; id <= RECOVERY_ACCOUNTS; id += 997)
+                assertEquals(Money.ofCents(expected[id]), book.balance(id).orElseThrow());
+            assertEquals(Money.ofCents(expected[1] - 25), book.withdraw(1, Money.ofCents(25)));
+            return seconds;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package br.com.compass.bank.model;
+
+import br.com.compass.bank.Benchmark;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private static final int ITERATIONS = 2_000_000;
+
+    @Test
+    void testParseAndFormat() {
+        assertEquals("12.50", Money.parse("12.5").toString());
+        assertEquals("0.05", Money.parse(".05").toString());
+        assertEquals("-1234.01", Money.parse("-1234.01").toString());
+        assertEquals("7.00", Money.parse("+7").toString());
+        assertEquals("-0.50", Money.ofCents(-50).toString());
+        assertEquals(Money.ZERO, Money.parse("0.00"));
+
+        for (String invalid : List.of("", ".", "-", "1.234", "1,50", "1e3", "12.5a", " 1"))
+            assertThrows(NumberFormatException.class, () -> Money.parse(invalid), invalid);
+    }
+
+    @Test
+    void testMatchesBigDecimal() {
+        List<String> amounts = List.of("0", "0.01", "1", "19.99", "1000.00", "-42.10", "92233720368547758.07");
+        for (String amount : amounts) {
+            BigDecimal decimal = new BigDecimal(amount);
+            Money money = Money.parse(amount);
+
+            assertEquals(0, decimal.compareTo(money.toBigDecimal()), amount);
+            assertEquals(money, Money.of(decimal), amount);
+            assertEquals(decimal.signum(), money.signum(), amount);
+        }
+
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1.005")));
+        assertEquals(Money.ofCents(150), Money.of(new BigDecimal("1.500")));
+    }
+
+    @Test
+    void testArithmeticIsOverflowChecked() {
+        Money max = Money.ofCents(Long.MAX_VALUE);
+
+        assertEquals(Money.parse("10.25"), Money.parse("7.75").plus(Money.parse("2.50")));
+        assertEquals(Money.parse("-0.01"), Money.ZERO.minus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MIN_VALUE).negate());
+        assertThrows(ArithmeticException.class, () -> Money.parse("92233720368547758.08"));
+    }
+
+    @Test
+    void testConverterRoundTrip() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertEquals(new BigDecimal("19.90"), converter.convertToDatabaseColumn(Money.parse("19.9")));
+        assertEquals(Money.parse("19.90"), converter.convertToEntityAttribute(new BigDecimal("19.9")));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    /**
+     * Applies alternating deposits and withdrawals to a balance, validating each amount and refusing
+     * overdrafts, and returns the achieved throughput in operations per second.
+     */
+    private static double moneyThroughput(Money[] amounts) {
+        Money balance = Money.ZERO;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Money amount = amounts[i & 7];
+            if (!amount.isPositive())
+                fail();
+            if ((i & 1) == 0)
+                balance = balance.plus(amount);
+            else if (balance.compareTo(amount) >= 0)
+                balance = balance.minus(amount);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertTrue(balance.signum() >= 0);
+        return ITERATIONS / seconds;
+    }
+
+    private static double decimalThroughput(BigDecimal[] amounts) {
+        BigDecimal balance = BigDecimal.ZERO;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            BigDecimal amount = amounts[i & 7];
+            if (amount.compareTo(BigDecimal.ZERO) <= 0)
+                fail();
+            if ((i & 1) == 0)
+                balance = balance.add(amount);
+            else if (balance.compareTo(amount) >= 0)
+                balance = balance.subtract(amount);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertTrue(balance.signum() >= 0);
+        return ITERATIONS / seconds;
+    }
+
+    @Benchmark
+    void benchmarkMoneyAgainstBigDecimal() {
+        String[] values = {"10.00", "0.99", "250.50", "1.05", "75.25", "3.10", "1200.00", "42.42"};
+        Money[] money = new Money[values.length];
+        BigDecimal[] decimals = new BigDecimal[values.length];
+        for (int i = 0; i < values.length; i++) {
+            money[i] = Money.parse(values[i]);
+            decimals[i] = new BigDecimal(values[i]);
+        }
+
+        // Warm-up round
+        moneyThroughput(money);
+        decimalThroughput(decimals);
+
+        double before = decimalThroughput(decimals);
+        double after = moneyThroughput(money);
+
+        System.out.printf("Balance updates: BigDecimal %,.0f ops/s, Money %,.0f ops/s (%.1fx)%n", before, after, after / before);
+    }
+
+}
@@ -0,0 +1,70 @@
+package br.com.compass.bank.repository;
+
+import br.com.compass.bank.TestAccounts;
+import br.com.compass.bank.internal.CacheMetrics;
+import br.com.compass.bank.internal.DatabaseConnection;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.service.TransactionService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountCacheTest {
+
+    private static final String REGION = Account.class.getName();
+
+    private static Account account;
+
+    @BeforeAll
+    static void setup() {
+        account = TestAccounts.open("Cache Tester", Money.parse("100.00"));
+    }
+
+    @Test
+    void testRepeatedFindIsServedFromCache() {
+        AccountRepository.find(account.getId()); // warms the region
+        long hits = DatabaseConnection.cacheMetrics().region(REGION).hits();
+
+        for (int i = 0; i < 10; i++)
+            assertEquals(account.getId(), AccountRepository.find(account.getId()).getId());
+
+        CacheMetrics.Region region = DatabaseConnection.cacheMetrics().region(REGION);
+        assertEquals(hits + 10, region.hits());
+        assertTrue(region.hitRatio() > 0);
+    }
+
+    @Test
+    void testBalanceWritesEvictTheCachedAccount() {
+        Money before = AccountRepository.find(account.getId()).getBalance();
+
+        TransactionService.deposit(account, Money.parse("7.25"));
+        assertEquals(before.plus(Money.parse("7.25")), AccountRepository.find(account.getId()).getBalance());
+
+        TransactionService.withdraw(account, Money.parse("2.25"));
+        assertEquals(before.plus(Money.parse("5.00")), AccountRepository.find(account.getId()).getBalance());
+    }
+
+    @Test
+    void testLookupByCpfUsesQueryCache() {
+        AccountRepository.findByCpf(account.getUser().getCpf());
+        long hits = DatabaseConnection.cacheMetrics().queryHits();
+
+        assertEquals(1, AccountRepository.findByCpf(account.getUser().getCpf()).size());
+        assertEquals(hits + 1, DatabaseConnection.cacheMetrics().queryHits());
+    }
+
+    @Test
+    void testCachedLookupByCpfSeesDirectBalanceUpdates() {
+        Account owner = TestAccounts.open("Cache Tester", Money.parse("100.00"));
+        String cpf = owner.getUser().getCpf();
+        assertEquals(Money.parse("100.00"), AccountRepository.findByCpf(cpf).get(0).getBalance()); // caches the query
+
+        assertEquals(Optional.of(Money.parse("112.50")), AccountRepository.adjustBalance(owner.getId(), 1250));
+        assertEquals(Money.parse("112.50"), AccountRepository.findByCpf(cpf).get(0).getBalance());
+    }
+
+}
@@ -0,0 +1,172 @@
+package br.com.compass.bank.repository;
+
+import br.com.compass.bank.Benchmark;
+import br.com.compass.bank.TestAccounts;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.Transaction;
+import br.com.compass.bank.model.TransactionType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRepositoryTest {
+
+    private static final int STATEMENT_ROWS = 2_000;
+    private static final int STATEMENT_READS = 50;
+
+    private static Account first;
+    private static Account second;
+
+    @BeforeAll
+    static void setup() {
+        first = TestAccounts.open("Statement Tester", Money.ZERO);
+        second = TestAccounts.open("Statement Tester", Money.ZERO);
+
+        // 15 deposits into the first account and 10 transfers from it to the second one
+        for (int i = 0; i < 15; i++)
+            TransactionRepository.deposit(first, Money.ofCents((100 + i) * 100L));
+        for (int i = 0; i < 10; i++)
+            TransactionRepository.transfer(first, second, Money.ofCents(100));
+    }
+
+    @Test
+    void testStatementPagesCoverHistoryNewestFirst() {
+        List<StatementEntry> all = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+
+        StatementPage page = TransactionRepository.findStatement(first, null, null, null, 10);
+        while (true) {
+            all.addAll(page.entries());
+            sizes.add(page.entries().size());
+            if (!page.hasNext())
+                break;
+            page = TransactionRepository.findStatement(first, page.next(), null, null, 10);
+        }
+
+        assertEquals(List.of(10, 10, 5), sizes);
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < all.size(); i++) {
+            assertTrue(ids.add(all.get(i).id()), "Transaction returned twice");
+            if (i > 0) {
+                StatementEntry previous = all.get(i - 1), current = all.get(i);
+                int compare = previous.timestamp().compareTo(current.timestamp());
+                assertTrue(compare > 0 || (compare == 0 && previous.id() > current.id()), "Statement is out of order");
+            }
+        }
+    }
+
+    @Test
+    void testStatementRespectsPeriod() {
+        StatementPage future = TransactionRepository.findStatement(first, null, LocalDateTime.now().plusDays(1), null, 10);
+        assertTrue(future.entries().isEmpty());
+        assertFalse(future.hasNext());
+
+        StatementPage received = TransactionRepository.findStatement(second, null, LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1), 50);
+        assertEquals(10, received.entries().size());
+        assertFalse(received.hasNext());
+    }
+
+    @Test
+    void testProjectionMatchesEntityStatement() {
+        List<Transaction> entities = TransactionRepository.findByAccount(first);
+        List<StatementEntry> entries = TransactionRepository.findStatement(first, null, null, null, 100).entries();
+
+        assertEquals(entities.size(), entries.size());
+        for (StatementEntry entry : entries) {
+            Transaction transaction = entities.stream()
+                    .filter(t -> t.getId().equals(entry.id()))
+                    .findFirst()
+                    .orElseThrow();
+
+            assertEquals(transaction.getType(), entry.type());
+            assertEquals(transaction.getAmount(), entry.amount());
+            assertEquals(transaction.getReceiver() != null && transaction.getReceiver().getId().equals(first.getId()), entry.received());
+        }
+    }
+
+    @Benchmark
+    void benchmarkProjectionAgainstEntityStatement() {
+        Account owner = TestAccounts.open("Statement Tester", Money.ZERO);
+        List<Transaction> history = new ArrayList<>(STATEMENT_ROWS);
+        for (int i = 0; i < STATEMENT_ROWS; i++)
+            history.add(deposit(owner));
+        TransactionRepository.saveAll(history);
+
+        // Warms both paths up before measuring
+        for (int i = 0; i < 5; i++) {
+            TransactionRepository.findByAccount(owner);
+            TransactionRepository.findStatement(owner, null, null, null, STATEMENT_ROWS);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < STATEMENT_READS; i++)
+            assertEquals(STATEMENT_ROWS, TransactionRepository.findByAccount(owner).size());
+        double entityMillis = (System.nanoTime() - start) / 1e6 / STATEMENT_READS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < STATEMENT_READS; i++)
+            assertEquals(STATEMENT_ROWS, TransactionRepository.findStatement(owner, null, null, null, STATEMENT_ROWS).entries().size());
+        double projectionMillis = (System.nanoTime() - start) / 1e6 / STATEMENT_READS;
+
+        System.out.printf("Statement of %,d transactions: findByAccount %.2f ms, findStatement %.2f ms (%.1fx)%n",
+                STATEMENT_ROWS, entityMillis, projectionMillis, entityMillis / projectionMillis);
+    }
+
+    private static Transaction deposit(Account to) {
+        return Transaction.builder()
+                .receiver(to)
+                .type(TransactionType.DEPOSIT)
+                .amount(Money.ofCents(100))
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void testBulkIngestStoresEveryRow() {
+        Account target = TestAccounts.open("Statement Tester", Money.ZERO);
+
+        int bulk = 2_000;
+        List<Transaction> batch = new ArrayList<>(bulk);
+        for (int i = 0; i < bulk; i++)
+            batch.add(deposit(target));
+
+        assertEquals(bulk, TransactionRepository.saveAll(batch));
+        assertEquals(bulk, batch.stream().map(Transaction::getId).distinct().count(), "Every row needs its own id");
+
+        StatementPage page = TransactionRepository.findStatement(target, null, null, null, bulk + 1);
+        assertEquals(bulk, page.entries().size());
+    }
+
+    @Benchmark
+    void benchmarkBulkIngestAgainstRowByRowInserts() {
+        Account target = TestAccounts.open("Statement Tester", Money.ZERO);
+
+        int single = 200;
+        long start = System.nanoTime();
+        for (int i = 0; i < single; i++)
+            TransactionRepository.save(deposit(target));
+        double singleRate = single / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        int bulk = 2_000;
+        List<Transaction> batch = new ArrayList<>(bulk);
+        for (int i = 0; i < bulk; i++)
+            batch.add(deposit(target));
+
+        start = System.nanoTime();
+        TransactionRepository.saveAll(batch);
+        double bulkRate = bulk / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        System.out.printf("Ledger inserts: row by row %,.0f rows/s, batched %,.0f rows/s (%.1fx)%n",
+                singleRate, bulkRate, bulkRate / singleRate);
+    }
+
+}
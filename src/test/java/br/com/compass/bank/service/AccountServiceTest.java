@@ -0,0 +1,106 @@
+package br.com.compass.bank.service;
+
+import br.com.compass.bank.Benchmark;
+import br.com.compass.bank.TestAccounts;
+import br.com.compass.bank.internal.UnitOfWork;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.repository.AccountRepository;
+import br.com.compass.bank.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountServiceTest {
+
+    // The regex based formatters used before, kept to check output parity
+    private static final Function<String, Optional<String>> LEGACY_CPF = cpf -> {
+        String cleaned = cpf.replaceAll("[^0-9]", "");
+        return (cleaned.length() == 11)
+                ? Optional.of(String.format("%s.%s.%s-%s", cleaned.substring(0, 3), cleaned.substring(3, 6), cleaned.substring(6, 9), cleaned.substring(9)))
+                : Optional.empty();
+    };
+    private static final Function<String, Optional<String>> LEGACY_PHONE = phone -> {
+        String cleaned = phone.replaceAll("[^0-9]", "");
+        if (cleaned.startsWith("55"))
+            cleaned = cleaned.substring(2);
+        return (cleaned.length() == 11)
+                ? Optional.of(String.format("+55 (%s) %s-%s", cleaned.substring(0, 2), cleaned.substring(2, 7), cleaned.substring(7)))
+                : Optional.empty();
+    };
+
+    // The lookup used before, loading every user and filtering them in memory
+    private static final Function<String, List<Account>> LEGACY_FIND_BY_CPF = cpf -> UserRepository.list().stream()
+            .filter(u -> u.getCpf().equals(cpf))
+            .findFirst()
+            .map(user -> AccountRepository.findByUser(user.getId()))
+            .orElse(Collections.emptyList());
+
+    @Test
+    void testFormatCpfMatchesLegacyFormatter() {
+        List<String> cpfs = List.of("529.982.247-25", "52998224725", "529 982 247 25", "abc529.982.247-25xyz",
+                "529.982.247-2", "529.982.247-255", "", "...-", "012.345.678-90");
+        for (String cpf : cpfs)
+            assertEquals(LEGACY_CPF.apply(cpf), AccountService.formatCpf(cpf), cpf);
+    }
+
+    @Test
+    void testFormatPhoneMatchesLegacyFormatter() {
+        List<String> phones = List.of("+55 (11) 98765-4321", "+5511987654321", "5511987654321", "11987654321",
+                "(21) 99999-0000", "+55 (11) 9876-4321", "+55 (11) 98765-43210", "", "phone");
+        for (String phone : phones)
+            assertEquals(LEGACY_PHONE.apply(phone), AccountService.formatPhone(phone), phone);
+    }
+
+    @Test
+    void testNationalPhoneWithAreaCode55IsKept() {
+        // The old formatter always stripped a leading 55, so 11-digit numbers from area code 55 were rejected
+        assertEquals(Optional.of("+55 (55) 98765-4321"), AccountService.formatPhone("(55) 98765-4321"));
+        assertEquals(Optional.of("+55 (55) 98765-4321"), AccountService.formatPhone("+55 (55) 98765-4321"));
+    }
+
+    @Test
+    void testCpfKey() {
+        assertEquals(OptionalLong.of(52998224725L), AccountService.cpfKey("529.982.247-25"));
+        assertEquals(OptionalLong.of(12345678909L), AccountService.cpfKey("123.456.789-09"));
+        assertEquals(OptionalLong.of(1234567890L), AccountService.cpfKey("012.345.678-90"));
+        assertEquals(AccountService.cpfKey("52998224725"), AccountService.cpfKey("529.982.247-25"));
+        assertTrue(AccountService.cpfKey("529.982.247-2").isEmpty());
+        assertTrue(AccountService.cpfKey(null).isEmpty());
+        assertTrue(AccountService.formatPhone(null).isEmpty());
+    }
+
+    @Benchmark
+    void benchmarkLookupByCpf() {
+        // A scaled-down registry; raise bank.benchmark.users to get closer to production sizes
+        int users = Integer.getInteger("bank.benchmark.users", 20_000);
+        List<String> cpfs = new ArrayList<>(users);
+        UnitOfWork.run(session -> {
+            for (int i = 0; i < users; i++)
+                cpfs.add(TestAccounts.open("Lookup Tester", Money.ZERO).getUser().getCpf());
+        });
+
+        // Each CPF is looked up once, so the indexed lookups are not served by the query cache
+        int indexed = Math.min(users, 1_000), scanned = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < indexed; i++)
+            assertEquals(1, AccountService.findByCpf(cpfs.get(i)).size());
+        double indexedMicros = (System.nanoTime() - start) / 1e3 / indexed;
+
+        start = System.nanoTime();
+        for (int i = 0; i < scanned; i++)
+            assertEquals(1, LEGACY_FIND_BY_CPF.apply(cpfs.get(users - 1 - i)).size());
+        double scannedMicros = (System.nanoTime() - start) / 1e3 / scanned;
+
+        System.out.printf("Lookup by CPF among %,d users: indexed query %,.0f us, full scan %,.0f us (%.0fx)%n",
+                users, indexedMicros, scannedMicros, scannedMicros / indexedMicros);
+    }
+
+}
@@ -0,0 +1,103 @@
+package br.com.compass.bank.service;
+
+import br.com.compass.bank.exception.account.AccountLoginException;
+import br.com.compass.bank.exception.account.AccountOpeningException;
+import br.com.compass.bank.internal.PasswordHasher;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.AccountType;
+import br.com.compass.bank.model.User;
+import br.com.compass.bank.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthServiceTest {
+
+    private static Account account(String cpf, String phone) {
+        User user = User.builder()
+                .name("Jane Doe")
+                .cpf(cpf)
+                .phone(phone)
+                .build();
+
+        return Account.builder()
+                .user(user)
+                .password("secret123")
+                .type(AccountType.CHECKING)
+                .build();
+    }
+
+    @BeforeAll
+    static void setup() {
+        AuthService.register(account("52998224725", "5511987650001"));
+    }
+
+    @Test
+    void testFindByNormalizedCpfAndPhone() {
+        List<Account> byCpf = AccountService.findByCpf("529.982.247-25");
+        List<Account> byPhone = AccountService.findByPhone("+55 (11) 98765-0001");
+
+        assertEquals(1, byCpf.size());
+        assertEquals(1, byPhone.size());
+        assertEquals(byCpf.get(0).getId(), byPhone.get(0).getId());
+        assertTrue(AccountService.findByCpf("111.444.777-35").isEmpty());
+    }
+
+    @Test
+    void testRegisterRejectsDuplicateCpf() {
+        AccountOpeningException e = assertThrows(AccountOpeningException.class,
+                () -> AuthService.register(account("529.982.247-25", "5511987650002")));
+
+        assertTrue(e.getMessage().contains("CPF"));
+    }
+
+    @Test
+    void testRegisterRejectsDuplicatePhone() {
+        AccountOpeningException e = assertThrows(AccountOpeningException.class,
+                () -> AuthService.register(account("111.444.777-35", "+55 (11) 98765-0001")));
+
+        assertTrue(e.getMessage().contains("phone number"));
+    }
+
+    @Test
+    void testLoginOpensSessionUntilLogout() {
+        Account account = AccountService.findByCpf("529.982.247-25").get(0);
+
+        assertThrows(AccountLoginException.class, () -> AuthService.login(account.getId(), "wrong-password"));
+
+        String first = AuthService.login(account.getId(), "secret123");
+        String second = AuthService.login(account.getId(), "secret123");
+        assertEquals(account.getId(), AuthService.current(first).getId());
+        assertEquals(account.getId(), AuthService.current(second).getId());
+        assertNotSame(AuthService.current(first), AuthService.current(second)); // each request gets its own instance
+
+        AuthService.logout(first);
+        assertThrows(AccountLoginException.class, () -> AuthService.current(first));
+        assertEquals(account.getId(), AuthService.current(second).getId());
+    }
+
+    @Test
+    void testLoginUpgradesLowCostHash() throws InterruptedException {
+        Account account = account("400.000.000-01", "+55 (61) 90000-0001");
+        account.setPassword(BCrypt.hashpw("secret123", BCrypt.gensalt(4)));
+        AccountRepository.save(account);
+
+        AuthService.login(account.getId(), "secret123");
+
+        // The hash is upgraded in the background after the login succeeds
+        String expected = String.format("$2a$%02d$", PasswordHasher.DEFAULT.cost());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!AccountRepository.find(account.getId()).getPassword().startsWith(expected) && System.nanoTime() < deadline)
+            Thread.sleep(20);
+
+        String stored = AccountRepository.find(account.getId()).getPassword();
+        assertTrue(stored.startsWith(expected), stored);
+        assertNotNull(AuthService.current(AuthService.login(account.getId(), "secret123")));
+    }
+
+}
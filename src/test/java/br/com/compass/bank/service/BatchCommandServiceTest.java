@@ -0,0 +1,96 @@
+package br.com.compass.bank.service;
+
+import br.com.compass.bank.TestAccounts;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCommandServiceTest {
+
+    private static final int THROUGHPUT_COMMANDS = 2_000;
+
+    @Test
+    void testCommandsRunInFileOrderPerAccount(@TempDir Path dir) throws IOException {
+        String alice = TestAccounts.cpf(), bob = TestAccounts.cpf();
+        Path commands = Files.write(dir.resolve("commands.csv"), List.of(
+                "# Replay of a small script",
+                "open," + alice + "," + TestAccounts.phone() + ",CHECKING,secret123,Batch Alice",
+                "open," + bob + "," + TestAccounts.phone() + ",checking,secret123,Batch Bob",
+                "",
+                "deposit,cpf:" + alice + ",100.00",
+                "withdraw,cpf:" + alice + ",30",
+                "transfer,cpf:" + alice + ",cpf:" + bob + ",20.00",
+                "withdraw,cpf:" + alice + ",60",
+                "statement,cpf:" + alice + ",2",
+                "deposit,cpf:" + alice + ",abc",
+                "fly,1",
+                "deposit,1",
+                "deposit,not-an-account,1.00",
+                "open," + alice + "," + TestAccounts.phone() + ",CHECKING,secret123,Batch Alice",
+                "deposit," + alice + ",1.00",
+                "deposit,cpf:529.982.247-26,1.00"));
+        Path output = dir.resolve("results.tsv");
+
+        BatchCommandService.BatchReport report = BatchCommandService.run(commands, output, 4);
+
+        List<String> results = Files.readAllLines(output);
+        assertEquals(14, results.size());
+        assertEquals(14, report.commands());
+        assertEquals(8, report.failed());
+
+        assertTrue(results.get(0).startsWith("2\tOK\taccount "), results.get(0));
+        assertTrue(results.get(1).startsWith("3\tOK\taccount "), results.get(1));
+        assertEquals("5\tOK\tbalance 100.00", results.get(2));
+        assertEquals("6\tOK\tbalance 70.00", results.get(3));
+        assertEquals("7\tOK\tbalance 50.00", results.get(4));
+        assertEquals("8\tERROR\tInsufficient funds. Available balance: 50.00", results.get(5));
+        assertTrue(results.get(6).matches("9\tOK\tbalance 50\\.00; TRANSFER -20\\.00 \\S+; WITHDRAWAL -30\\.00 \\S+"), results.get(6));
+        assertEquals("10\tERROR\tInvalid amount: abc", results.get(7));
+        assertEquals("11\tERROR\tUnknown command: fly", results.get(8));
+        assertEquals("12\tERROR\tExpected 2 arguments for deposit, found 1", results.get(9));
+        assertEquals("13\tERROR\tInvalid account ID: not-an-account", results.get(10));
+        assertEquals("14\tERROR\tAn account has already been registered with the provided CPF.", results.get(11));
+
+        // A CPF only addresses an account with the cpf: prefix
+        assertEquals("15\tERROR\tInvalid account ID: " + alice, results.get(12));
+        assertEquals("16\tERROR\tInvalid CPF: the check digits do not match.", results.get(13));
+
+        long bobId = Long.parseLong(results.get(1).substring(results.get(1).lastIndexOf(' ') + 1));
+        assertEquals(Money.parse("20.00"), AccountRepository.findBalance(bobId).orElseThrow());
+    }
+
+    @Test
+    void testThroughput(@TempDir Path dir) throws IOException {
+        List<String> accounts = new ArrayList<>();
+        List<String> opening = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            accounts.add(TestAccounts.cpf());
+            opening.add("open," + accounts.get(i) + "," + TestAccounts.phone() + ",CHECKING,secret123,Batch Payee");
+        }
+        BatchCommandService.run(Files.write(dir.resolve("open.csv"), opening), dir.resolve("open.tsv"), 1);
+
+        List<String> lines = new ArrayList<>(THROUGHPUT_COMMANDS);
+        for (int i = 0; i < THROUGHPUT_COMMANDS; i++)
+            lines.add((i % 5 == 4 ? "statement,cpf:" : "deposit,cpf:") + accounts.get(i % accounts.size()) + (i % 5 == 4 ? ",5" : ",1.00"));
+        Path commands = Files.write(dir.resolve("commands.csv"), lines);
+
+        for (int parallelism : new int[] {1, 4}) {
+            BatchCommandService.BatchReport report = BatchCommandService.run(commands, dir.resolve("results-" + parallelism + ".tsv"), parallelism);
+            assertEquals(THROUGHPUT_COMMANDS, report.commands());
+            assertEquals(0, report.failed());
+        }
+
+        // Each run deposited 1.00 on 200 lines per account
+        List<String> statement = Files.readAllLines(dir.resolve("results-4.tsv"));
+        assertTrue(statement.get(statement.size() - 1).contains("\tOK\tbalance 400.00;"), statement.get(statement.size() - 1));
+    }
+}
@@ -0,0 +1,69 @@
+package br.com.compass.bank.service;
+
+import br.com.compass.bank.TestAccounts;
+import br.com.compass.bank.exception.transaction.TransactionException;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerImportServiceTest {
+
+    private static Account first;
+    private static Account second;
+
+    private static Money balance(Account account) {
+        return AccountRepository.findBalance(account.getId()).orElseThrow();
+    }
+
+    @BeforeAll
+    static void setup() {
+        first = TestAccounts.open("Import Tester", Money.ZERO);
+        second = TestAccounts.open("Import Tester", Money.ZERO);
+    }
+
+    @Test
+    void testImportCsvAndNdjsonRecomputesBalances(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("history.csv");
+        StringBuilder content = new StringBuilder("type,sender,receiver,amount,timestamp\n");
+        for (int i = 0; i < 120; i++)
+            content.append("DEPOSIT,,").append(first.getId()).append(",10.00,2023-01-01T10:00:").append(String.format("%02d", i % 60)).append('\n');
+        content.append("TRANSFER,").append(first.getId()).append(',').append(second.getId()).append(",200.00,2023-02-01T10:00:00\n");
+        Files.writeString(csv, content);
+
+        Path ndjson = dir.resolve("history.ndjson");
+        Files.writeString(ndjson, """
+                {"type":"WITHDRAWAL","sender":%d,"receiver":null,"amount":50.25,"timestamp":"2023-03-01T08:30:00"}
+                {"type":"DEPOSIT","receiver":%d,"amount":"0.25","timestamp":"2023-03-02T08:30:00"}
+                """.formatted(second.getId(), second.getId()));
+
+        assertEquals(121, LedgerImportService.importFile(csv));
+        assertEquals(2, LedgerImportService.importFile(ndjson));
+
+        assertEquals(Money.parse("1000.00"), balance(first));
+        assertEquals(Money.parse("150.00"), balance(second));
+    }
+
+    @Test
+    void testInvalidRecordRollsBackWholeImport(@TempDir Path dir) throws IOException {
+        Money before = balance(first);
+
+        Path csv = dir.resolve("broken.csv");
+        Files.writeString(csv, "type,sender,receiver,amount,timestamp\n"
+                + "DEPOSIT,," + first.getId() + ",10.00,2023-01-01T10:00:00\n"
+                + "DEPOSIT,," + first.getId() + ",-1,2023-01-01T10:00:00\n");
+
+        TransactionException e = assertThrows(TransactionException.class, () -> LedgerImportService.importFile(csv));
+        assertTrue(e.getMessage().contains("line 3"), e.getMessage());
+        assertEquals(before, balance(first));
+    }
+
+}
@@ -0,0 +1,124 @@
+package br.com.compass.bank.service;
+
+import br.com.compass.bank.Benchmark;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRegistryTest {
+
+    private static final int SESSIONS = 50_000;
+    private static final int THREADS = 16;
+    private static final int LOOKUPS_PER_THREAD = 200_000;
+
+    @Test
+    void testOpenResolveAndClose() {
+        SessionRegistry registry = new SessionRegistry(Duration.ofMinutes(15));
+
+        String first = registry.open(1);
+        String second = registry.open(1);
+
+        assertNotEquals(first, second);
+        assertEquals(1L, registry.resolve(first).orElseThrow());
+
+        registry.close(first);
+        assertTrue(registry.resolve(first).isEmpty());
+        assertTrue(registry.resolve(second).isPresent());
+        assertTrue(registry.resolve("forged-token").isEmpty());
+        assertTrue(registry.resolve(null).isEmpty());
+    }
+
+    @Test
+    void testIdleSessionsExpire() {
+        AtomicLong clock = new AtomicLong();
+        SessionRegistry registry = new SessionRegistry(Duration.ofSeconds(10), clock::get);
+
+        String active = registry.open(1);
+        String idle = registry.open(2);
+
+        clock.set(Duration.ofSeconds(8).toNanos());
+        assertTrue(registry.resolve(active).isPresent()); // using a session keeps it alive
+
+        clock.set(Duration.ofSeconds(12).toNanos());
+        assertTrue(registry.resolve(active).isPresent());
+        assertTrue(registry.resolve(idle).isEmpty());
+
+        registry.open(3);
+        clock.set(Duration.ofSeconds(30).toNanos());
+        assertEquals(2, registry.evictExpired());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void testConcurrentLookupsResolveTheirOwnAccount() throws Exception {
+        SessionRegistry registry = new SessionRegistry(Duration.ofMinutes(15));
+        String[] tokens = open(registry, 10_000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 10_000; i++) {
+                    int account = random.nextInt(tokens.length);
+                    assertEquals((long) account, registry.resolve(tokens[account]).orElseThrow());
+                }
+            }));
+        }
+
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+        assertEquals(tokens.length, registry.size());
+    }
+
+    @Benchmark
+    void benchmarkLookupUnderManyConcurrentSessions() throws Exception {
+        SessionRegistry registry = new SessionRegistry(Duration.ofMinutes(15));
+        String[] tokens = open(registry, SESSIONS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < LOOKUPS_PER_THREAD; i++)
+                    registry.resolve(tokens[random.nextInt(SESSIONS)]);
+            }));
+        }
+
+        for (Future<?> future : futures)
+            future.get();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        double nanosPerLookup = (double) elapsed / (THREADS * LOOKUPS_PER_THREAD);
+        System.out.printf("Session lookup with %d sessions and %d threads: %.0f ns/lookup, %.1f M lookups/s%n",
+                SESSIONS, THREADS, nanosPerLookup, 1e3 / nanosPerLookup);
+    }
+
+    /**
+     * Opens one session per account ID, from 0 to count - 1, and checks that every token is unique.
+     */
+    private static String[] open(SessionRegistry registry, int count) {
+        String[] tokens = new String[count];
+        for (int i = 0; i < count; i++)
+            tokens[i] = registry.open(i);
+
+        assertEquals(count, new HashSet<>(List.of(tokens)).size());
+        return tokens;
+    }
+
+}
@@ -0,0 +1,177 @@
+package br.com.compass.bank.service;
+
+import br.com.compass.bank.Benchmark;
+import br.com.compass.bank.TestAccounts;
+import br.com.compass.bank.exception.transaction.TransactionException;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.TransactionType;
+import br.com.compass.bank.repository.LedgerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementExportServiceTest {
+
+    // Several times the export fetch size, so the scroll goes back to the database
+    private static final int DATABASE_ROWS = 5_000;
+    private static final int DATABASE_BENCHMARK_ROWS = 50_000;
+    private static final int BENCHMARK_ROWS = 10_000_000;
+
+    // Rows are longer than 16 bytes, so each checkpoint writes more than a buffer
+    private static final int CHECKPOINT_ROWS = StatementExportService.BUFFER_SIZE / 16;
+    private static final int CHECKPOINTS = 10;
+
+    @Test
+    void testExportsCsvAndGzippedNdjsonInLedgerOrder(@TempDir Path dir) throws IOException {
+        Account owner = TestAccounts.open("Export Tester", Money.ZERO);
+        Account other = TestAccounts.open("Export Tester", Money.ZERO);
+        long a = owner.getId(), b = other.getId();
+
+        Files.writeString(dir.resolve("history.csv"), "type,sender,receiver,amount,timestamp\n"
+                + "DEPOSIT,," + a + ",100.00,2024-01-31T10:15:30\n"
+                + "DEPOSIT,," + b + ",7.00,2024-01-31T10:15:31\n"
+                + "WITHDRAWAL," + a + ",,12.50,2024-02-01T08:00:01\n"
+                + "TRANSFER," + b + "," + a + ",5.00,2024-01-31T11:00:01\n"
+                + "TRANSFER," + a + "," + b + ",20.00,2024-02-02T09:30:15.250\n");
+        LedgerImportService.importFile(dir.resolve("history.csv"));
+
+        Path csv = dir.resolve("statement.csv");
+        assertEquals(4, StatementExportService.exportFile(owner, csv));
+        assertEquals(List.of(
+                "type,sender,receiver,amount,timestamp",
+                "DEPOSIT,," + a + ",100.00,2024-01-31T10:15:30",
+                "TRANSFER," + b + "," + a + ",5.00,2024-01-31T11:00:01",
+                "WITHDRAWAL," + a + ",,12.50,2024-02-01T08:00:01",
+                "TRANSFER," + a + "," + b + ",20.00,2024-02-02T09:30:15.250"), Files.readAllLines(csv));
+
+        Path ndjson = dir.resolve("statement.ndjson.gz");
+        assertEquals(4, StatementExportService.exportFile(owner, ndjson));
+        List<String> lines = readGzip(ndjson);
+        assertEquals(4, lines.size());
+        assertEquals("{\"type\":\"DEPOSIT\",\"sender\":null,\"receiver\":" + a + ",\"amount\":\"100.00\",\"timestamp\":\"2024-01-31T10:15:30\"}", lines.get(0));
+        assertEquals("{\"type\":\"WITHDRAWAL\",\"sender\":" + a + ",\"receiver\":null,\"amount\":\"12.50\",\"timestamp\":\"2024-02-01T08:00:01\"}", lines.get(2));
+
+        // The other side of the transfers sees the same rows from its own statement
+        Path replay = dir.resolve("replay.csv");
+        assertEquals(3, StatementExportService.exportFile(other, replay));
+        assertTrue(Files.readString(replay).contains("DEPOSIT,," + b + ",7.00,2024-01-31T10:15:31\n"));
+    }
+
+    @Test
+    void testRejectsUnknownFormat(@TempDir Path dir) {
+        Account owner = TestAccounts.open("Export Tester", Money.ZERO);
+        assertThrows(TransactionException.class, () -> StatementExportService.exportFile(owner, dir.resolve("statement.xlsx")));
+        assertFalse(Files.exists(dir.resolve("statement.xlsx")));
+    }
+
+    @Test
+    void testDatabaseExportStreamsEveryRow(@TempDir Path dir) throws IOException {
+        Account owner = TestAccounts.open("Export Tester", Money.ZERO);
+        importDeposits(dir, owner, DATABASE_ROWS);
+
+        for (String name : List.of("statement.csv", "statement.ndjson", "statement.csv.gz"))
+            assertEquals(DATABASE_ROWS, StatementExportService.exportFile(owner, dir.resolve(name)));
+
+        assertEquals(DATABASE_ROWS + 1, Files.readAllLines(dir.resolve("statement.csv")).size());
+        assertEquals(DATABASE_ROWS, Files.readAllLines(dir.resolve("statement.ndjson")).size());
+        assertEquals(Files.readAllLines(dir.resolve("statement.csv")), readGzip(dir.resolve("statement.csv.gz")));
+    }
+
+    @Test
+    void testRowsReachTheFileWhileExporting(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("statement.csv");
+        LocalDateTime start = LocalDateTime.of(2000, 1, 1, 0, 0, 1);
+        Money amount = Money.parse("12.34");
+
+        // The writer only holds one buffer: the file grows between checkpoints instead of all at once on close
+        long written = 0;
+        try (StatementExportService.RecordWriter writer = StatementExportService.writer(file)) {
+            for (int i = 0; i < CHECKPOINT_ROWS * CHECKPOINTS; i++) {
+                writer.accept(new LedgerRecord(TransactionType.TRANSFER, 1L, 2L + i % 1_000, amount, start.plusSeconds(i)));
+                if ((i + 1) % CHECKPOINT_ROWS == 0) {
+                    long size = Files.size(file);
+                    assertTrue(size > written, "Nothing was written over the " + CHECKPOINT_ROWS + " rows before row " + (i + 1));
+                    written = size;
+                }
+            }
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            assertEquals("type,sender,receiver,amount,timestamp", reader.readLine());
+            assertEquals("TRANSFER,1,2,12.34,2000-01-01T00:00:01", reader.readLine());
+            assertEquals(CHECKPOINT_ROWS * CHECKPOINTS - 1, reader.lines().count());
+        }
+    }
+
+    @Benchmark
+    void benchmarkDatabaseExport(@TempDir Path dir) throws IOException {
+        Account owner = TestAccounts.open("Export Tester", Money.ZERO);
+        importDeposits(dir, owner, DATABASE_BENCHMARK_ROWS);
+
+        for (String name : List.of("statement.csv", "statement.ndjson", "statement.csv.gz")) {
+            long begin = System.nanoTime();
+            StatementExportService.exportFile(owner, dir.resolve(name));
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            System.out.printf("Export of %,d database rows to %s: %,.0f rows/s, %,d bytes%n",
+                    DATABASE_BENCHMARK_ROWS, name, DATABASE_BENCHMARK_ROWS / seconds, Files.size(dir.resolve(name)));
+        }
+    }
+
+    @Benchmark
+    void benchmarkTenMillionRows(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("statement.csv");
+        LocalDateTime start = LocalDateTime.of(2000, 1, 1, 0, 0, 1);
+        Money amount = Money.parse("12.34");
+        Runtime runtime = Runtime.getRuntime();
+
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long peak = 0;
+        long begin = System.nanoTime();
+
+        try (StatementExportService.RecordWriter writer = StatementExportService.writer(file)) {
+            for (int i = 0; i < BENCHMARK_ROWS; i++) {
+                writer.accept(new LedgerRecord(TransactionType.TRANSFER, 1L, 2L + i % 1_000, amount, start.plusSeconds(i)));
+                if (i % 1_000_000 == 0)
+                    peak = Math.max(peak, runtime.totalMemory() - runtime.freeMemory());
+            }
+        }
+
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("Export of %,d rows to CSV: %,.0f rows/s, %,d MB written, heap %d MB before, %d MB after, %d MB sampled peak%n",
+                BENCHMARK_ROWS, BENCHMARK_ROWS / seconds, Files.size(file) >> 20, heapBefore >> 20, heapAfter >> 20, peak >> 20);
+    }
+
+    /**
+     * Imports one deposit per row for an account, seven seconds apart.
+     */
+    private static void importDeposits(Path dir, Account owner, int rows) throws IOException {
+        StringBuilder history = new StringBuilder("type,sender,receiver,amount,timestamp\n");
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0, 1);
+        for (int i = 0; i < rows; i++)
+            history.append("DEPOSIT,,").append(owner.getId()).append(",1.00,").append(start.plusSeconds(i * 7L)).append('\n');
+
+        Files.writeString(dir.resolve("history.csv"), history);
+        LedgerImportService.importFile(dir.resolve("history.csv"));
+    }
+
+    private static List<String> readGzip(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package br.com.compass.bank.service;
+
+import br.com.compass.bank.Benchmark;
+import br.com.compass.bank.TestAccounts;
+import br.com.compass.bank.exception.transaction.TransactionException;
+import br.com.compass.bank.internal.DatabaseConnection;
+import br.com.compass.bank.internal.RetryPolicy;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.AccountType;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.Transaction;
+import br.com.compass.bank.model.User;
+import br.com.compass.bank.repository.AccountRepository;
+import br.com.compass.bank.repository.TransactionRepository;
+import br.com.compass.bank.repository.TransferItem;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionServiceTest {
+
+    private static final int ACCOUNTS = 8;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 100;
+    private static final Money INITIAL_BALANCE = Money.parse("1000.00");
+
+    private static final int BATCH_RECEIVERS = 1_000;
+    private static final int BATCH_ITEMS = 10_000;
+    private static final int LOOP_ITEMS = 500;
+
+    private static final List<Account> accounts = new ArrayList<>();
+
+    @BeforeAll
+    static void setup() {
+        for (int i = 0; i < ACCOUNTS; i++)
+            accounts.add(TestAccounts.open("Stress Tester", INITIAL_BALANCE));
+    }
+
+    @Test
+    void testConcurrentTransfersDoNotLoseUpdates() throws Exception {
+        // Other tests move money in and out, so compare against the total at the start of the run
+        Money initialTotal = Money.ZERO;
+        for (Account account : accounts)
+            initialTotal = initialTotal.plus(AccountRepository.findBalance(account.getId()).orElseThrow());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    Money amount = Money.ofCents(random.nextInt(1, 500) * 10L);
+
+                    try {
+                        TransactionService.transfer(accounts.get(from), accounts.get(to), amount);
+                    } catch (TransactionException e) {
+                        assertTrue(e.getMessage().startsWith("Insufficient funds"), e.getMessage());
+                        rejected.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+
+        Money total = Money.ZERO;
+        for (Account account : accounts) {
+            Account stored = AccountService.find(account.getId()).orElseThrow();
+
+            // Every balance must be explained by the ledger entries written alongside it
+            Money expected = INITIAL_BALANCE;
+            for (Transaction transaction : TransactionRepository.findByAccount(stored)) {
+                if (transaction.getReceiver() != null && transaction.getReceiver().getId().equals(stored.getId()))
+                    expected = expected.plus(transaction.getAmount());
+                if (transaction.getSender() != null && transaction.getSender().getId().equals(stored.getId()))
+                    expected = expected.minus(transaction.getAmount());
+            }
+
+            assertEquals(expected, stored.getBalance(), "Ledger and balance diverged for account " + stored.getId());
+            assertTrue(stored.getBalance().signum() >= 0, "Account " + stored.getId() + " was overdrawn");
+            total = total.plus(stored.getBalance());
+        }
+
+        assertEquals(initialTotal, total, "Money was created or destroyed");
+        assertTrue(rejected.get() < THREADS * TRANSFERS_PER_THREAD, "Every transfer was rejected");
+    }
+
+    @Test
+    void testBatchTransferReportsEachRejectedItem() {
+        // The payer also owns a savings account, the only same-CPF receiver allowed
+        User payer = TestAccounts.user("Payroll Payer");
+        Account source = Account.builder().user(payer).password("hash").type(AccountType.CHECKING).balance(Money.parse("100.00")).build();
+        Account savings = Account.builder().user(payer).password("hash").type(AccountType.SAVINGS).balance(Money.ZERO).build();
+        payer.getAccounts().addAll(List.of(source, savings));
+        AccountRepository.save(source);
+
+        Account receiver = TestAccounts.open("Payroll Receiver", Money.ZERO);
+        List<TransferItem> items = List.of(
+                new TransferItem(receiver.getId(), Money.parse("30.00")),
+                new TransferItem(Long.MAX_VALUE, Money.parse("1.00")),
+                new TransferItem(savings.getId(), Money.parse("20.00")),
+                new TransferItem(null, Money.parse("1.00")),
+                new TransferItem(receiver.getId(), Money.ZERO),
+                new TransferItem(receiver.getId(), Money.parse("40.00")),
+                new TransferItem(source.getId(), Money.parse("1.00")),
+                new TransferItem(receiver.getId(), Money.parse("50.00")));
+
+        // In atomic mode, one rejected item leaves every balance untouched
+        BatchTransferResult atomic = TransactionService.transferAll(source, items, true);
+        assertEquals(0, atomic.transferred());
+        assertEquals(Money.parse("100.00"), AccountRepository.findBalance(source.getId()).orElseThrow());
+
+        BatchTransferResult result = TransactionService.transferAll(source, items, false);
+        assertEquals(atomic.failures().subList(0, 4), result.failures().subList(0, 4));
+        assertEquals(List.of(1, 3, 4, 6, 7), result.failures().stream().map(BatchTransferResult.Failure::index).toList());
+        assertEquals("Destination account does not exist.", result.failures().get(0).reason());
+        assertEquals("Destination account does not exist.", result.failures().get(1).reason());
+        assertEquals("Transfer amount must be greater than zero.", result.failures().get(2).reason());
+        assertEquals("Cannot transfer to the same account.", result.failures().get(3).reason());
+        assertEquals("Insufficient funds. Available balance: 10.00", result.failures().get(4).reason());
+
+        assertEquals(3, result.transferred());
+        assertEquals(Money.parse("90.00"), result.total());
+        assertEquals(Money.parse("10.00"), source.getBalance());
+        assertEquals(Money.parse("10.00"), AccountRepository.findBalance(source.getId()).orElseThrow());
+        assertEquals(Money.parse("90.00").minus(Money.parse("20.00")), AccountRepository.findBalance(receiver.getId()).orElseThrow());
+        assertEquals(Money.parse("20.00"), AccountRepository.findBalance(savings.getId()).orElseThrow());
+        assertEquals(3, TransactionRepository.findBySender(source).size());
+    }
+
+    @Test
+    void testBatchTransferDebitsSourceOnceAndBatchesInserts() {
+        List<Account> receivers = receivers();
+        Account source = TestAccounts.open("Payroll Payer", Money.parse("1000000.00"));
+        long version = AccountRepository.find(source.getId()).getVersion();
+
+        List<TransferItem> items = new ArrayList<>(BATCH_ITEMS);
+        for (int i = 0; i < BATCH_ITEMS; i++)
+            items.add(new TransferItem(receivers.get(i % BATCH_RECEIVERS).getId(), Money.ofCents(100 + i % 7)));
+
+        Statistics statistics = DatabaseConnection.getFactory().getStatistics();
+        long statements = statistics.getPrepareStatementCount();
+        BatchTransferResult result = TransactionService.transferAll(source, items, true);
+        long prepared = statistics.getPrepareStatementCount() - statements;
+
+        assertTrue(result.isComplete(), result.failures().toString());
+        assertEquals(BATCH_ITEMS, result.transferred());
+
+        // The source row is updated once for the whole batch, and the ledger rows are inserted in JDBC batches
+        assertEquals(version + 1, AccountRepository.find(source.getId()).getVersion());
+        assertTrue(prepared < BATCH_ITEMS / 10, prepared + " statements were prepared for " + BATCH_ITEMS + " transfers");
+        assertEquals(BATCH_ITEMS, TransactionRepository.findBySender(source).size());
+
+        // Every receiver got exactly the items addressed to it, and the source was debited once by the total
+        Money total = Money.ZERO;
+        for (int i = 0; i < BATCH_RECEIVERS; i++) {
+            Money expected = Money.ZERO;
+            for (int k = i; k < BATCH_ITEMS; k += BATCH_RECEIVERS)
+                expected = expected.plus(items.get(k).amount());
+
+            Money balance = AccountRepository.findBalance(receivers.get(i).getId()).orElseThrow();
+            assertEquals(expected, balance);
+            total = total.plus(balance);
+        }
+        assertEquals(total, result.total());
+        assertEquals(Money.parse("1000000.00").minus(total), AccountRepository.findBalance(source.getId()).orElseThrow());
+    }
+
+    @Benchmark
+    void benchmarkBatchTransferAgainstLoop() {
+        List<Account> receivers = receivers();
+        Account source = TestAccounts.open("Payroll Payer", Money.parse("1000000.00"));
+
+        List<TransferItem> items = new ArrayList<>(BATCH_ITEMS);
+        for (int i = 0; i < BATCH_ITEMS; i++)
+            items.add(new TransferItem(receivers.get(i % BATCH_RECEIVERS).getId(), Money.ofCents(100 + i % 7)));
+
+        // Warm up both paths, then time a loop of single transfers against one batch
+        TransactionService.transferAll(source, items.subList(0, 100), true);
+        for (int i = 0; i < 20; i++)
+            TransactionService.transfer(source, receivers.get(i), Money.ofCents(100));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOP_ITEMS; i++)
+            TransactionService.transfer(AccountService.find(source.getId()).orElseThrow(), AccountService.find(receivers.get(i).getId()).orElseThrow(), items.get(i).amount());
+        double loop = LOOP_ITEMS / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        TransactionService.transferAll(source, items, true);
+        double batch = BATCH_ITEMS / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("Payroll transfers: loop %,.0f items/s, %,d-item batch %,.0f items/s (%.1fx)%n", loop, BATCH_ITEMS, batch, batch / loop);
+    }
+
+    /**
+     * Opens the receiving accounts of a payroll batch.
+     */
+    private static List<Account> receivers() {
+        List<Account> receivers = new ArrayList<>(BATCH_RECEIVERS);
+        for (int i = 0; i < BATCH_RECEIVERS; i++)
+            receivers.add(TestAccounts.open("Payroll Receiver", Money.ZERO));
+        return receivers;
+    }
+
+    @Test
+    void testDepositAndWithdrawUpdateBalanceInDatabase() {
+        Account account = accounts.get(0);
+        Money before = AccountRepository.findBalance(account.getId()).orElseThrow();
+
+        TransactionService.deposit(account, Money.parse("25.50"));
+        assertEquals(before.plus(Money.parse("25.50")), account.getBalance());
+
+        TransactionService.withdraw(account, Money.parse("10.00"));
+        assertEquals(before.plus(Money.parse("15.50")), account.getBalance());
+
+        Money stored = AccountRepository.findBalance(account.getId()).orElseThrow();
+        assertEquals(account.getBalance(), stored);
+    }
+
+    @Test
+    void testWithdrawRejectsOverdraft() {
+        Account account = accounts.get(1);
+        Money before = AccountRepository.findBalance(account.getId()).orElseThrow();
+
+        TransactionException e = assertThrows(TransactionException.class,
+                () -> TransactionService.withdraw(account, before.plus(Money.ofCents(100))));
+        assertTrue(e.getMessage().startsWith("Insufficient funds"));
+
+        Money after = AccountRepository.findBalance(account.getId()).orElseThrow();
+        assertEquals(before, after);
+    }
+
+    @Test
+    void testDepositIntoMissingAccountFails() {
+        Account missing = Account.builder().id(Long.MAX_VALUE).build();
+
+        assertThrows(TransactionException.class, () -> TransactionService.deposit(missing, Money.ofCents(1000)));
+    }
+
+    @Test
+    void testStaleCopyCannotOverwriteBalance() {
+        Account stale = AccountService.find(accounts.get(2).getId()).orElseThrow();
+        TransactionService.deposit(accounts.get(2), Money.ofCents(100));
+
+        // Merging the copy loaded before the deposit would silently undo it
+        stale.setBalance(stale.getBalance().plus(Money.parse("1000000")));
+        RuntimeException e = assertThrows(RuntimeException.class, () -> AccountRepository.save(stale));
+        assertTrue(RetryPolicy.isRetryable(e), e.toString());
+
+        Money stored = AccountRepository.findBalance(stale.getId()).orElseThrow();
+        assertEquals(accounts.get(2).getBalance(), stored);
+    }
+
+}
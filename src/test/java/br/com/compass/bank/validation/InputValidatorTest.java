@@ -0,0 +1,105 @@
+package br.com.compass.bank.validation;
+
+import br.com.compass.bank.Benchmark;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputValidatorTest {
+
+    private static final int ITERATIONS = 200_000;
+
+    // The regular expressions the validators used before, kept to check format parity and compare throughput
+    private static final Predicate<String> LEGACY_CPF = input -> input.matches("([0-9]{3}[.]?[0-9]{3}[.]?[0-9]{3}-[0-9]{2})|([0-9]{11})");
+    private static final Predicate<String> LEGACY_NAME = input -> input.matches("^[A-Za-zÀ-ÿ\\s]{2,50}$");
+    private static final Predicate<String> LEGACY_PHONE = input -> input.matches("^\\+55 \\(\\d{2}\\) 9\\d{4}\\d{4}$|^\\+55\\d{11}$|^\\+55 \\(\\d{2}\\) 9\\d{4}-\\d{4}$|^55\\d{11}$");
+    private static final Predicate<String> LEGACY_PASSWORD = input -> input.length() >= 8 && input.matches(".*[a-zA-Z].*") && input.matches(".*\\d.*");
+
+    private static boolean valid(InputValidator validator, String input) {
+        return validator.validate(input).isEmpty();
+    }
+
+    @Test
+    void testCpfCheckDigits() {
+        assertTrue(valid(InputValidator.CPF, "529.982.247-25"));
+        assertTrue(valid(InputValidator.CPF, "52998224725"));
+        assertTrue(valid(InputValidator.CPF, "529982247-25"));
+        assertTrue(valid(InputValidator.CPF, "111.444.777-35"));
+
+        assertFalse(valid(InputValidator.CPF, "529.982.247-26"));
+        assertFalse(valid(InputValidator.CPF, "123.456.789-00"));
+        assertFalse(valid(InputValidator.CPF, "111.111.111-11"));
+        assertFalse(valid(InputValidator.CPF, "00000000000"));
+
+        assertTrue(InputValidator.CPF.validate("529.982.247-26").get().getMessage().contains("check digits"));
+        assertTrue(InputValidator.CPF.validate("22222222222").get().getMessage().contains("repeated digits"));
+    }
+
+    @Test
+    void testFormatsMatchLegacyPatterns() {
+        List<String> cpfs = List.of("529.982.247-25", "52998224725", "529982247-25", "529.982247-25", "529.982.24725",
+                "529.982.247-2", "5299822472", "529.982.247-255", "abc.def.ghi-jk", "", "529 982 247 25");
+        for (String cpf : cpfs)
+            if (!LEGACY_CPF.test(cpf))
+                assertFalse(valid(InputValidator.CPF, cpf), cpf);
+            else
+                assertTrue(valid(InputValidator.CPF, cpf) || !InputValidator.CPF.validate(cpf).get().getMessage().startsWith("Invalid CPF format"), cpf);
+
+        List<String> names = List.of("Jane Doe", "José da Silva", "Ana", "A", "Jane2", "Jane-Doe", " ", "Élise\tMüller", "x".repeat(50), "x".repeat(51));
+        for (String name : names)
+            assertEquals(LEGACY_NAME.test(name) && !name.isBlank(), valid(InputValidator.NAME, name), name);
+
+        List<String> phones = List.of("+55 (11) 98765-4321", "+55 (11) 987654321", "+5511987654321", "5511987654321",
+                "+55 (11) 88765-4321", "+55 (11)98765-4321", "11987654321", "+55 (1a) 98765-4321", "+551198765432");
+        for (String phone : phones)
+            assertEquals(LEGACY_PHONE.test(phone), valid(InputValidator.PHONE, phone), phone);
+
+        List<String> passwords = List.of("secret123", "12345678", "abcdefgh", "short1", "Sénha1234", "        1a");
+        for (String password : passwords)
+            assertEquals(LEGACY_PASSWORD.test(password), valid(InputValidator.PASSWORD, password), password);
+    }
+
+    @Test
+    void testNullInputsAreRejected() {
+        for (InputValidator validator : InputValidator.values())
+            assertTrue(validator.validate(null).isPresent(), validator.name());
+    }
+
+    /**
+     * Measures how many inputs per second a check accepts, after a warm-up round.
+     */
+    private static double throughput(Predicate<String> check, String input) {
+        for (int i = 0; i < ITERATIONS; i++)
+            assertTrue(check.test(input));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            if (!check.test(input))
+                fail(input);
+
+        return ITERATIONS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    @Benchmark
+    void benchmarkScannersAgainstRegularExpressions() {
+        String[][] cases = {
+                {"CPF", "529.982.247-25"},
+                {"NAME", "José da Silva"},
+                {"PHONE", "+55 (11) 98765-4321"},
+                {"PASSWORD", "secret123"}
+        };
+        List<Predicate<String>> legacy = List.of(LEGACY_CPF, LEGACY_NAME, LEGACY_PHONE, LEGACY_PASSWORD);
+
+        for (int i = 0; i < cases.length; i++) {
+            InputValidator validator = InputValidator.valueOf(cases[i][0]);
+            double before = throughput(legacy.get(i), cases[i][1]);
+            double after = throughput(input -> valid(validator, input), cases[i][1]);
+
+            System.out.printf("%-8s regex %,12.0f ops/s, scanner %,12.0f ops/s (%.1fx)%n", cases[i][0], before, after, after / before);
+        }
+    }
+
+}
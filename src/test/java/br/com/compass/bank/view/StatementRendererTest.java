@@ -0,0 +1,136 @@
+package br.com.compass.bank.view;
+
+import br.com.compass.bank.Benchmark;
+import br.com.compass.bank.TestAccounts;
+import br.com.compass.bank.model.Account;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.model.TransactionType;
+import br.com.compass.bank.repository.StatementEntry;
+import br.com.compass.bank.repository.TransferItem;
+import br.com.compass.bank.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementRendererTest {
+
+    private static final int BENCHMARK_ROWS = 50_000;
+    private static final int STREAMED_ROWS = 2_500;
+
+    @Test
+    void testMatchesThePreviousFormat() {
+        List<StatementEntry> entries = entries(40);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        PrintStream legacy = new PrintStream(expected, true, StandardCharsets.UTF_8);
+        entries.forEach(entry -> printLegacy(legacy, entry));
+
+        StringBuilder actual = new StringBuilder();
+        StatementRenderer renderer = new StatementRenderer(actual);
+        renderer.render(entries);
+        assertEquals(0, actual.length(), "Rows under a chunk must wait for the flush");
+
+        renderer.flush();
+        assertEquals(expected.toString(StandardCharsets.UTF_8), actual.toString());
+    }
+
+    @Test
+    void testRenderAllStreamsEveryPage() {
+        Account sender = TestAccounts.open("Statement Reader", Money.parse("5000.00"));
+        Account receiver = TestAccounts.open("Statement Reader", Money.ZERO);
+
+        List<TransferItem> items = Collections.nCopies(STREAMED_ROWS, new TransferItem(receiver.getId(), Money.parse("1.00")));
+        assertTrue(TransactionService.transferAll(sender, items, true).isComplete());
+
+        StringBuilder out = new StringBuilder();
+        assertEquals(STREAMED_ROWS, new StatementRenderer(out).renderAll(sender, null));
+        assertEquals(STREAMED_ROWS, out.toString().split("Sent", -1).length - 1);
+        assertEquals(STREAMED_ROWS, out.toString().split("Amount: \u001B\\[31m1\\.00", -1).length - 1);
+    }
+
+    @Test
+    void testFileOutputMatchesThePreviousFormat(@TempDir Path dir) throws IOException {
+        List<StatementEntry> entries = entries(STREAMED_ROWS);
+
+        Path legacyFile = writeLegacy(dir.resolve("legacy.txt"), entries);
+        Path renderedFile = writeRendered(dir.resolve("rendered.txt"), entries);
+        assertEquals(-1L, Files.mismatch(legacyFile, renderedFile));
+    }
+
+    @Benchmark
+    void benchmarkRendererAgainstPrintlnPerRow(@TempDir Path dir) throws IOException {
+        List<StatementEntry> entries = entries(BENCHMARK_ROWS);
+
+        long start = System.nanoTime();
+        writeLegacy(dir.resolve("legacy.txt"), entries);
+        long legacyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        writeRendered(dir.resolve("rendered.txt"), entries);
+        long renderedNanos = System.nanoTime() - start;
+
+        System.out.printf("Statement of %,d rows: println per row %.1f ms per 10k rows, buffered renderer %.1f ms per 10k rows%n",
+                BENCHMARK_ROWS, legacyNanos / 1e6 / (BENCHMARK_ROWS / 10_000.0), renderedNanos / 1e6 / (BENCHMARK_ROWS / 10_000.0));
+    }
+
+    /**
+     * Writes the entries the way the account view did, to a stream mirroring System.out: a buffered file
+     * stream flushed on every println.
+     */
+    private static Path writeLegacy(Path file, List<StatementEntry> entries) throws IOException {
+        try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file.toFile())), true, StandardCharsets.UTF_8)) {
+            entries.forEach(entry -> printLegacy(out, entry));
+        }
+        return file;
+    }
+
+    private static Path writeRendered(Path file, List<StatementEntry> entries) throws IOException {
+        try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file.toFile())), true, StandardCharsets.UTF_8)) {
+            StatementRenderer renderer = new StatementRenderer(out);
+            renderer.render(entries);
+            renderer.flush();
+        }
+        return file;
+    }
+
+    /**
+     * The row rendering the account view used before {@link StatementRenderer}, kept as the reference.
+     */
+    private static void printLegacy(PrintStream out, StatementEntry entry) {
+        String type = entry.type().name();
+        boolean received = entry.received();
+
+        out.println("╭──────────────────────────────────────────────────╮");
+        out.println("  \u001B[32m" + (received ? "Received" : "\u001B[31mSent") + "\u001B[0m" + (received ? " " : "    ")
+                + "\u001B[33m" + type + "\u001B[0m" + (type.equals(TransactionType.WITHDRAWAL.name()) ? "    " : ("      ")) + "Date: " +
+                entry.timestamp().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")));
+        out.println("  Amount:" + (received ? "  " : " ") + (received
+                ? "\u001B[32m" + entry.amount() + "\u001B[0m" : "\u001B[31m" + entry.amount() + "\u001B[0m"));
+        out.println("╰──────────────────────────────────────────────────╯");
+    }
+
+    private static List<StatementEntry> entries(int count) {
+        TransactionType[] types = TransactionType.values();
+        LocalDateTime timestamp = LocalDateTime.of(2025, 3, 14, 9, 26, 53);
+
+        List<StatementEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            entries.add(new StatementEntry((long) i, types[i % types.length], Money.ofCents(i * 37L + 1), timestamp.minusSeconds(i * 61L), i % 3 == 0));
+        return entries;
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.compass.bank.view;
+
+import br.com.compass.bank.TestAccounts;
+import br.com.compass.bank.App;
+import br.com.compass.bank.model.Money;
+import br.com.compass.bank.repository.AccountRepository;
+import br.com.compass.bank.service.AccountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViewRendererTest {
+
+    private static final int INTERACTIONS = 100_000;
+    private static final int DEPOSITS = 50;
+
+    @AfterEach
+    void restoreInput() {
+        ViewRenderer.setScanner(App.scanner);
+    }
+
+    @Test
+    void testLongSessionKeepsConstantStackDepth() {
+        String cpf = TestAccounts.cpf();
+        List<String> script = new ArrayList<>(List.of(
+                "2", cpf, "Console User", TestAccounts.phone(), "checking", "secret123", "0",
+                "1", cpf, "1", "secret123"));
+
+        // A zero deposit goes back to the account menu instead of falling through to the next option
+        script.addAll(List.of("1", "0"));
+        for (int i = 0; i < DEPOSITS; i++)
+            script.addAll(List.of("1", "1.00", "0"));
+
+        // Browse the account menu: balance, an invalid option retried, an empty transfer
+        while (script.size() < INTERACTIONS / 2)
+            script.addAll(List.of("3", "0", "7", "1", "4", "0", "0"));
+        script.add("0");
+
+        // Then the main menu: invalid options and canceled logins
+        while (script.size() < INTERACTIONS)
+            script.addAll(List.of("9", "x", "1", "0", "0"));
+        script.add("0");
+
+        ScriptedInput input = new ScriptedInput(script);
+        runQuietly(input);
+
+        assertFalse(input.lines.hasNext(), "The session ended before the script did");
+        assertTrue(input.maxDepth - input.minDepth < 30,
+                "Stack depth grew from " + input.minDepth + " to " + input.maxDepth + " frames over " + script.size() + " interactions");
+
+        Long id = AccountService.findByCpf(cpf).get(0).getId();
+        assertEquals(Money.parse(DEPOSITS + ".00"), AccountRepository.findBalance(id).orElseThrow());
+    }
+
+    @Test
+    void testEndOfInputClosesTheSession() {
+        ScriptedInput input = new ScriptedInput(List.of("9", "abc"));
+        runQuietly(input);
+        assertFalse(input.lines.hasNext());
+    }
+
+    private static void runQuietly(ScriptedInput input) {
+        ViewRenderer.setScanner(new Scanner(input));
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            ViewRenderer.run(App::menu);
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Feeds the scanner one line per read and records how deep the stack is at each of them.
+     */
+    private static class ScriptedInput implements Readable {
+
+        private final Iterator<String> lines;
+        private final StackWalker walker = StackWalker.getInstance();
+        private long minDepth = Long.MAX_VALUE;
+        private long maxDepth;
+
+        private ScriptedInput(List<String> lines) {
+            this.lines = lines.iterator();
+        }
+
+        @Override
+        public int read(CharBuffer buffer) {
+            if (!lines.hasNext())
+                return -1;
+
+            long depth = walker.walk(frames -> frames.count());
+            minDepth = Math.min(minDepth, depth);
+            maxDepth = Math.max(maxDepth, depth);
+
+            String line = lines.next() + "\n";
+            buffer.put(line);
+            return line.length();
+        }
+    }
+}